@@ -0,0 +1,78 @@
+package org.sparkliang.textutil.benchmark;
+
+import org.apache.commons.io.FileUtils;
+import org.sparkliang.textutil.impl.DefaultXMLParameterFileTransformer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+/**
+ * Generate the parameter files and the configuration used by the benchmarks.
+ * The content is generated from the given sizes only, so every run of a benchmark works on the same data.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+final class BenchmarkData {
+    static final String PARAM_NAME_PREFIX = "BENCHMARK_PARAM_";
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<root version=\"2.0\" xmlns=\"http://www.informatica.com/Parameterization/1.0\">\n";
+    private static final String FOOTER = "</root>\n";
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generate a parameter file about the given size. The parameters are named from {@link #PARAM_NAME_PREFIX}0 and repeated,
+     * so a file larger than the parameters declared still contains only the parameter names configured.
+     *
+     * @param fileSize   The size of the file in bytes.
+     * @param paramCount The number of the distinct parameters in the file.
+     */
+    static byte[] generateParameterFile(int fileSize, int paramCount) {
+        StringBuilder content = new StringBuilder(fileSize + 256).append(HEADER);
+        for (int i = 0; content.length() < fileSize - FOOTER.length(); i++) {
+            int param = i % paramCount;
+            content.append("  <project name=\"project").append(i).append("\">\n")
+                    .append("    <parameter name=\"").append(PARAM_NAME_PREFIX).append(param).append("\">")
+                    .append("old value of parameter ").append(param).append("</parameter>\n")
+                    .append("  </project>\n");
+        }
+        return content.append(FOOTER).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generate the configuration that configures all the parameters in the files generated.
+     */
+    static Properties generateTransformerConfiguration(int paramCount, String mode) {
+        Properties conf = new Properties();
+        conf.setProperty(DefaultXMLParameterFileTransformer.MODE_CONF_NAME, mode);
+        for (int i = 0; i < paramCount; i++) {
+            conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + PARAM_NAME_PREFIX + i, "new value " + i);
+        }
+        return conf;
+    }
+
+    /**
+     * Generate a directory tree. Each directory contains {@code filesPerDirectory} files and {@code fanOut} sub-directories.
+     *
+     * @return The number of the files generated.
+     */
+    static int generateDirectoryTree(File directory, int depth, int fanOut, int filesPerDirectory, byte[] content) throws IOException {
+        int count = 0;
+        for (int i = 0; i < filesPerDirectory; i++) {
+            FileUtils.writeByteArrayToFile(new File(directory, "param" + i + ".xml"), content);
+            count++;
+        }
+        if (depth > 0) {
+            for (int i = 0; i < fanOut; i++) {
+                count += generateDirectoryTree(new File(directory, "dir" + i), depth - 1, fanOut, filesPerDirectory, content);
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,238 @@
+package org.sparkliang.textutil.benchmark;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The end to end benchmark of the program. For each scenario, it generates a {@link ParameterCorpus} of the shape of the scenario,
+ * runs the program on it in a new process for several times, and compares the median of the results with the baseline:
+ * <ul>
+ * <li>files-per-second: The source files transformed per second, including the startup of the process.</li>
+ * <li>mb-per-second: The MB of the source files transformed per second, including the startup of the process.</li>
+ * <li>peak-rss-mb: The peak resident set size of the process, which is only measured on linux.</li>
+ * </ul>
+ * It exits with 1 if any result is worse than its baseline by more than the threshold,
+ * or updates the baseline by the results with "--update-baseline".<br>
+ * The scenarios are the properties file of "--scenarios". "scenarios" lists their names, and the properties of a scenario are prefixed by its name:
+ * the shape of the corpus described by {@link ParameterCorpus.Shape}, "runs" and "warmup-runs" for the number of the runs,
+ * "jvm-options" for the options of the process, and the configurations of the program prefixed by "conf.", such as "conf.pipe.conf.parallelism".
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public final class MacroBenchmark {
+    private static final String FILES_PER_SECOND = "files-per-second";
+    private static final String MB_PER_SECOND = "mb-per-second";
+    private static final String PEAK_RSS_MB = "peak-rss-mb";
+    private static final String CONF_PREFIX = "conf.";
+    private static final double MB = 1024 * 1024;
+
+    private MacroBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options();
+        options.addOption(Option.builder().longOpt("scenarios").hasArg().required().desc("The properties file of the scenarios.").build());
+        options.addOption(Option.builder().longOpt("baseline").hasArg().required().desc("The properties file of the baseline.").build());
+        options.addOption(Option.builder().longOpt("work-dir").hasArg().required().desc("Where the corpora are generated.").build());
+        options.addOption(Option.builder().longOpt("threshold").hasArg().desc("The regression allowed in percent, 20 by default.").build());
+        options.addOption(Option.builder().longOpt("update-baseline").desc("Write the results into the baseline.").build());
+        CommandLine commandLine;
+        try {
+            commandLine = new DefaultParser().parse(options, args);
+        } catch (ParseException e) {
+            System.err.println("Error:" + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        Properties scenarios = load(new File(commandLine.getOptionValue("scenarios")));
+        File baselineFile = new File(commandLine.getOptionValue("baseline"));
+        Properties baseline = baselineFile.exists() ? load(baselineFile) : new Properties();
+        File workDirectory = new File(commandLine.getOptionValue("work-dir"));
+        double threshold = Double.parseDouble(commandLine.getOptionValue("threshold", "20")) / 100;
+
+        Properties results = new Properties();
+        List<String> regressions = new ArrayList<>();
+        for (String name : scenarios.getProperty("scenarios", "").split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            Result result = runScenario(name, scenarios, new File(workDirectory, name));
+            result.store(name, results);
+            regressions.addAll(result.compare(name, baseline, threshold));
+        }
+
+        if (commandLine.hasOption("update-baseline")) {
+            writeBaseline(results, baselineFile);
+            System.out.printf("The baseline \"%s\" is updated.%n", baselineFile);
+        } else if (!regressions.isEmpty()) {
+            System.out.printf("%d results regressed by more than %.0f%%:%n", regressions.size(), threshold * 100);
+            regressions.forEach(System.out::println);
+            System.exit(1);
+        }
+    }
+
+    private static Result runScenario(String name, Properties scenarios, File directory) throws IOException, InterruptedException {
+        String prefix = name + ".";
+        ParameterCorpus.Shape shape = ParameterCorpus.Shape.fromProperties(scenarios, prefix);
+        File sourceDirectory = new File(directory, "source");
+        File targetDirectory = new File(directory, "target");
+        File confFile = new File(directory, "conf.properties");
+        File peakRssFile = new File(directory, "peak-rss");
+        File logFile = new File(directory, "run.log");
+        FileUtils.deleteDirectory(directory);
+
+        long sourceSize = ParameterCorpus.generate(shape, sourceDirectory);
+        Properties conf = ParameterCorpus.generateTransformerConfiguration(shape);
+        for (String key : scenarios.stringPropertyNames()) {
+            if (key.startsWith(prefix + CONF_PREFIX)) {
+                conf.setProperty(key.substring(prefix.length() + CONF_PREFIX.length()), scenarios.getProperty(key));
+            }
+        }
+        try (OutputStream out = FileUtils.openOutputStream(confFile)) {
+            conf.store(out, null);
+        }
+        System.out.printf("%n%s: %s, %.1f MB in total.%n", name, shape, sourceSize / MB);
+
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        String jvmOptions = scenarios.getProperty(prefix + "jvm-options", "").trim();
+        if (!jvmOptions.isEmpty()) {
+            command.addAll(Arrays.asList(jvmOptions.split("\\s+")));
+        }
+        command.addAll(Arrays.asList("-classpath", System.getProperty("java.class.path"), MeasuredCLI.class.getName(), peakRssFile.getPath(),
+                "--default-conf-dir", confFile.getPath(), sourceDirectory.getPath(), targetDirectory.getPath()));
+
+        int warmupRuns = Integer.parseInt(scenarios.getProperty(prefix + "warmup-runs", "1").trim());
+        int runs = Integer.parseInt(scenarios.getProperty(prefix + "runs", "3").trim());
+        List<Long> elapsedNanos = new ArrayList<>();
+        List<Long> peakRssKb = new ArrayList<>();
+        for (int i = 0; i < warmupRuns + runs; i++) {
+            FileUtils.deleteDirectory(targetDirectory);
+            // a run that is unable to write its peak RSS must not take the one of the run before it
+            Files.deleteIfExists(peakRssFile.toPath());
+            long start = System.nanoTime();
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(logFile).start();
+            int exitCode = process.waitFor();
+            long elapsed = System.nanoTime() - start;
+            if (0 != exitCode) {
+                throw new IllegalStateException(String.format("The run of \"%s\" exits with %d, see \"%s\".", name, exitCode, logFile));
+            }
+            if (i >= warmupRuns) {
+                elapsedNanos.add(elapsed);
+                peakRssKb.add(readPeakRssKb(peakRssFile));
+                System.out.printf("  run %d: %d ms%n", i - warmupRuns + 1, TimeUnit.NANOSECONDS.toMillis(elapsed));
+            }
+        }
+
+        double seconds = median(elapsedNanos) / 1e9;
+        long peakRss = median(peakRssKb);
+        Result result = new Result(shape.getFileCount() / seconds, sourceSize / MB / seconds, peakRss < 0 ? -1 : peakRss / 1024.0);
+        System.out.printf("%s: %.1f files/s, %.2f MB/s, peak RSS %.1f MB.%n", name, result.filesPerSecond, result.mbPerSecond, result.peakRssMb);
+        return result;
+    }
+
+    /**
+     * Write the results sorted and without the date, so the changes of the baseline are easy to review.
+     */
+    private static void writeBaseline(Properties results, File baselineFile) throws IOException {
+        StringBuilder content = new StringBuilder("# The baseline of the macro benchmark, which is updated by \"--update-baseline\".\n");
+        new TreeMap<>(results).forEach((key, value) -> content.append(key).append('=').append(value).append('\n'));
+        FileUtils.writeStringToFile(baselineFile, content.toString(), StandardCharsets.ISO_8859_1);
+    }
+
+    private static long readPeakRssKb(File peakRssFile) throws IOException {
+        if (!peakRssFile.exists()) {
+            return -1;
+        }
+        return Long.parseLong(FileUtils.readFileToString(peakRssFile, StandardCharsets.UTF_8).trim());
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static Properties load(File file) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = FileUtils.openInputStream(file)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    private static final class Result {
+        private final double filesPerSecond;
+        private final double mbPerSecond;
+        private final double peakRssMb;
+
+        private Result(double filesPerSecond, double mbPerSecond, double peakRssMb) {
+            this.filesPerSecond = filesPerSecond;
+            this.mbPerSecond = mbPerSecond;
+            this.peakRssMb = peakRssMb;
+        }
+
+        private void store(String name, Properties results) {
+            results.setProperty(name + "." + FILES_PER_SECOND, String.format(Locale.ROOT, "%.1f", filesPerSecond));
+            results.setProperty(name + "." + MB_PER_SECOND, String.format(Locale.ROOT, "%.2f", mbPerSecond));
+            if (peakRssMb >= 0) {
+                results.setProperty(name + "." + PEAK_RSS_MB, String.format(Locale.ROOT, "%.1f", peakRssMb));
+            }
+        }
+
+        /**
+         * @return The descriptions of the results that regressed. The results without a baseline are never regressed.
+         */
+        private List<String> compare(String name, Properties baseline, double threshold) {
+            List<String> regressions = new ArrayList<>();
+            compare(name + "." + FILES_PER_SECOND, filesPerSecond, baseline, -threshold, regressions);
+            compare(name + "." + MB_PER_SECOND, mbPerSecond, baseline, -threshold, regressions);
+            if (peakRssMb >= 0) {
+                compare(name + "." + PEAK_RSS_MB, peakRssMb, baseline, threshold, regressions);
+            }
+            return regressions;
+        }
+
+        /**
+         * @param change The change allowed, which is negative for the results that are better when higher.
+         */
+        private static void compare(String key, double value, Properties baseline, double change, List<String> regressions) {
+            String baselineValue = baseline.getProperty(key);
+            if (null == baselineValue) {
+                System.out.printf("  %s: %.2f, no baseline.%n", key, value);
+                return;
+            }
+            double expected = Double.parseDouble(baselineValue.trim());
+            double limit = expected * (1 + change);
+            boolean regressed = change < 0 ? value < limit : value > limit;
+            String description = String.format("%s: %.2f, baseline %.2f (%+.1f%%)", key, value, expected, (value / expected - 1) * 100);
+            System.out.println("  " + description + (regressed ? ", REGRESSED." : "."));
+            if (regressed) {
+                regressions.add(description);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.sparkliang.textutil.benchmark;
+
+import org.sparkliang.textutil.app.CLI;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The process of a run of the {@link MacroBenchmark}. It runs {@link CLI#main(String[])} with the rest of the arguments,
+ * and writes the peak resident set size of the process into the file of the first argument on exit,
+ * which is after the run even if {@link CLI#main(String[])} exits by {@link System#exit(int)}.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public final class MeasuredCLI {
+    private static final String PROC_STATUS = "/proc/self/status";
+    private static final String PEAK_RSS_FIELD = "VmHWM:";
+
+    private MeasuredCLI() {
+    }
+
+    public static void main(String[] args) {
+        File peakRssFile = new File(args[0]);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> writePeakRss(peakRssFile)));
+        CLI.main(Arrays.copyOfRange(args, 1, args.length));
+    }
+
+    private static void writePeakRss(File peakRssFile) {
+        try (Writer writer = Files.newBufferedWriter(peakRssFile.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(Long.toString(getPeakRssKb()));
+        } catch (IOException e) {
+            System.err.println("Unable to write the peak RSS into \"" + peakRssFile + "\": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return The peak resident set size in KB, or -1 if it is unknown, which is on the systems other than linux.
+     */
+    private static long getPeakRssKb() {
+        try {
+            List<String> lines = Files.readAllLines(Paths.get(PROC_STATUS), StandardCharsets.UTF_8);
+            for (String line : lines) {
+                if (line.startsWith(PEAK_RSS_FIELD)) {
+                    return Long.parseLong(line.substring(PEAK_RSS_FIELD.length()).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // unknown
+        }
+        return -1;
+    }
+}
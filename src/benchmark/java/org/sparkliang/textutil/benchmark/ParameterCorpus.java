@@ -0,0 +1,180 @@
+package org.sparkliang.textutil.benchmark;
+
+import org.apache.commons.io.FileUtils;
+import org.sparkliang.textutil.impl.DefaultXMLParameterFileTransformer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * Generate a tree of parameter files in the layout of "sample/generateParameterForSIT/source",
+ * that is the parameters grouped by the project, the folder and the workflow.<br>
+ * The content only depends on the {@link Shape}, and the random choices are made by a {@link Random} of the seed of the shape,
+ * so the same shape always generates the same corpus.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+final class ParameterCorpus {
+    static final String PARAM_NAME_PREFIX = "MACRO_PARAM_";
+
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<root version=\"2.0\" xmlns=\"http://www.informatica.com/Parameterization/1.0\">\n";
+    private static final String FOOTER = "</root>\n";
+    private static final int PARAMS_PER_WORKFLOW = 8;
+    private static final int WORKFLOWS_PER_FOLDER = 4;
+    /**
+     * The bytes of a parameter element other than its value, that is the indent, the tags and the name of the parameter.
+     */
+    private static final int PARAM_ELEMENT_OVERHEAD = 65;
+
+    private ParameterCorpus() {
+    }
+
+    /**
+     * Generate the files of the shape in the given directory.
+     *
+     * @return The total size of the files generated, in bytes.
+     */
+    static long generate(Shape shape, File directory) throws IOException {
+        Random random = new Random(shape.seed);
+        long totalSize = 0;
+        for (int i = 0; i < shape.fileCount; i++) {
+            File parent = directory;
+            int level = random.nextInt(shape.depth + 1);
+            for (int j = 0; j < level; j++) {
+                parent = new File(parent, "dir" + random.nextInt(shape.fanOut));
+            }
+            byte[] content = generateFile(shape, random, i);
+            FileUtils.writeByteArrayToFile(new File(parent, "param" + i + ".xml"), content);
+            totalSize += content.length;
+        }
+        return totalSize;
+    }
+
+    /**
+     * Generate the transformer configuration of the shape, which configures the values of all the parameters that are configured.
+     */
+    static Properties generateTransformerConfiguration(Shape shape) {
+        Properties conf = new Properties();
+        for (int i = 0; i < shape.configuredParams; i++) {
+            conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + paramName(i), "new value " + i);
+        }
+        return conf;
+    }
+
+    private static byte[] generateFile(Shape shape, Random random, int index) {
+        int fileSize = shape.minFileSize;
+        if (shape.maxFileSize > shape.minFileSize) {
+            // log-uniform, so there are many small files and a few large ones, as the real trees are
+            double ratio = (double) shape.maxFileSize / shape.minFileSize;
+            fileSize = (int) (shape.minFileSize * Math.pow(ratio, random.nextDouble()));
+        }
+        int valueLength = Math.max(1, 1024 / shape.paramsPerKb - PARAM_ELEMENT_OVERHEAD);
+        int matchedPercent = shape.matchedPercent;
+
+        StringBuilder content = new StringBuilder(fileSize + 1024).append(HEADER);
+        int params = 0;
+        for (int project = 0; content.length() < fileSize - FOOTER.length(); project++) {
+            content.append("    <project name=\"PROJECT_").append(index).append('_').append(project).append("\">\n")
+                    .append("        <folder name=\"FOLDER_").append(project).append("\">\n");
+            for (int workflow = 0; workflow < WORKFLOWS_PER_FOLDER && content.length() < fileSize - FOOTER.length(); workflow++) {
+                content.append("            <workflow name=\"wf_").append(workflow).append("\">\n");
+                for (int i = 0; i < PARAMS_PER_WORKFLOW; i++, params++) {
+                    int param = random.nextInt(100) < matchedPercent
+                            ? random.nextInt(shape.configuredParams)
+                            : shape.configuredParams + random.nextInt(shape.configuredParams);
+                    content.append("                <parameter name=\"").append(paramName(param)).append("\">");
+                    for (int j = 0; j < valueLength; j++) {
+                        content.append((char) ('a' + (params + j) % 26));
+                    }
+                    content.append("</parameter>\n");
+                }
+                content.append("            </workflow>\n");
+            }
+            content.append("        </folder>\n")
+                    .append("    </project>\n");
+        }
+        return content.append(FOOTER).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String paramName(int index) {
+        return String.format("%s%05d", PARAM_NAME_PREFIX, index);
+    }
+
+    /**
+     * The shape of a corpus, which is read from the properties of a scenario:
+     * <ul>
+     * <li>"file-count": The number of the files.</li>
+     * <li>"depth": The maximum depth of the directories, the files are put into the directories of any depth up to it.</li>
+     * <li>"fan-out": The number of the sub-directories of a directory.</li>
+     * <li>"min-file-size", "max-file-size": The sizes of the files in bytes, which are distributed log-uniformly between them.</li>
+     * <li>"params-per-kb": The number of the parameters in each KB, a lower density means the longer values.</li>
+     * <li>"configured-params": The number of the parameters configured.</li>
+     * <li>"matched-percent": The percentage of the parameters in the files that are configured, the others are left as they are.</li>
+     * <li>"seed": The seed of the random choices.</li>
+     * </ul>
+     */
+    static final class Shape {
+        private final int fileCount;
+        private final int depth;
+        private final int fanOut;
+        private final int minFileSize;
+        private final int maxFileSize;
+        private final int paramsPerKb;
+        private final int configuredParams;
+        private final int matchedPercent;
+        private final long seed;
+
+        private Shape(Properties conf, String prefix) {
+            fileCount = getInt(conf, prefix + "file-count", 1000, 1);
+            depth = getInt(conf, prefix + "depth", 3, 0);
+            fanOut = getInt(conf, prefix + "fan-out", 4, 1);
+            minFileSize = getInt(conf, prefix + "min-file-size", 1024, 1);
+            maxFileSize = getInt(conf, prefix + "max-file-size", 64 * 1024, minFileSize);
+            paramsPerKb = getInt(conf, prefix + "params-per-kb", 8, 1);
+            configuredParams = getInt(conf, prefix + "configured-params", 100, 1);
+            matchedPercent = Math.min(100, getInt(conf, prefix + "matched-percent", 50, 0));
+            seed = getInt(conf, prefix + "seed", 20261018, 0);
+        }
+
+        /**
+         * @param conf   The properties of the scenarios.
+         * @param prefix The prefix of the properties of the scenario, such as "small-files.".
+         */
+        static Shape fromProperties(Properties conf, String prefix) {
+            return new Shape(conf, prefix);
+        }
+
+        int getFileCount() {
+            return fileCount;
+        }
+
+        private static int getInt(Properties conf, String name, int defaultValue, int min) {
+            String value = conf.getProperty(name);
+            if (null == value) {
+                return defaultValue;
+            }
+            int result;
+            try {
+                result = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("The value \"%s\" of \"%s\" is not a number.", value, name), e);
+            }
+            if (result < min) {
+                throw new IllegalArgumentException(String.format("The value \"%s\" of \"%s\" should not be less than %d.", value, name, min));
+            }
+            return result;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d files, depth %d, fan-out %d, %d-%d bytes, %d params/KB, %d%% of %d params matched",
+                    fileCount, depth, fanOut, minFileSize, maxFileSize, paramsPerKb, matchedPercent, configuredParams);
+        }
+    }
+}
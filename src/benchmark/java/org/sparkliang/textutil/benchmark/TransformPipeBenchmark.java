@@ -0,0 +1,94 @@
+package org.sparkliang.textutil.benchmark;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sparkliang.textutil.impl.DefaultTransformPipe;
+import org.sparkliang.textutil.impl.DefaultXMLParameterFileTransformer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure {@link DefaultTransformPipe#transform(String, String, org.sparkliang.textutil.api.Transformer)} on a generated directory tree.
+ * The tree is generated once for each trial, and the target directory is removed after each invocation,
+ * so each invocation writes all the target files.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransformPipeBenchmark {
+    private static final int PARAM_COUNT = 100;
+
+    @Param({"1", "3"})
+    private int depth;
+
+    @Param({"16384"})
+    private int fileSize;
+
+    @Param({"1", "4"})
+    private String parallelism;
+
+    @Param({DefaultXMLParameterFileTransformer.MODE_DOM, DefaultXMLParameterFileTransformer.MODE_SPLICE})
+    private String mode;
+
+    private File workDirectory;
+    private File sourceDirectory;
+    private File targetDirectory;
+    private DefaultTransformPipe pipe;
+    private DefaultXMLParameterFileTransformer transformer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        workDirectory = Files.createTempDirectory("text-util-benchmark").toFile();
+        sourceDirectory = new File(workDirectory, "source");
+        targetDirectory = new File(workDirectory, "target");
+        int fileCount = BenchmarkData.generateDirectoryTree(
+                sourceDirectory, depth, 4, 50, BenchmarkData.generateParameterFile(fileSize, PARAM_COUNT)
+        );
+        System.out.printf("%n%d files are generated in \"%s\".%n", fileCount, sourceDirectory);
+
+        pipe = new DefaultTransformPipe();
+        Properties pipeConf = new Properties();
+        pipeConf.setProperty(DefaultTransformPipe.PARALLELISM_CONF_NAME, parallelism);
+        pipe.set(pipeConf);
+        transformer = new DefaultXMLParameterFileTransformer();
+        transformer.set(BenchmarkData.generateTransformerConfiguration(PARAM_COUNT, mode));
+    }
+
+    @TearDown(Level.Invocation)
+    public void cleanTarget() throws IOException {
+        FileUtils.deleteDirectory(targetDirectory);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(workDirectory);
+    }
+
+    @Benchmark
+    public void transformDirectory() {
+        pipe.transform(sourceDirectory.getPath(), targetDirectory.getPath(), transformer);
+    }
+}
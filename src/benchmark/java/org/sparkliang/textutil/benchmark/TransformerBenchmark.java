@@ -0,0 +1,72 @@
+package org.sparkliang.textutil.benchmark;
+
+import org.apache.commons.io.output.NullOutputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sparkliang.textutil.impl.DefaultXMLParameterFileTransformer;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the throughput of {@link DefaultXMLParameterFileTransformer} on one file in memory.
+ * The file is read from a byte array and written into {@link NullOutputStream}, so only the transformation is measured.
+ * Run it with "-prof gc" to get the allocation rate per operation.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformerBenchmark {
+
+    @Param({"4096", "262144", "4194304"})
+    private int fileSize;
+
+    @Param({"10", "1000"})
+    private int paramCount;
+
+    @Param({DefaultXMLParameterFileTransformer.MODE_DOM, DefaultXMLParameterFileTransformer.MODE_STAX, DefaultXMLParameterFileTransformer.MODE_SPLICE})
+    private String mode;
+
+    private DefaultXMLParameterFileTransformer transformer;
+    private byte[] content;
+    private String[] lines;
+
+    @Setup
+    public void setUp() {
+        transformer = new DefaultXMLParameterFileTransformer();
+        transformer.set(BenchmarkData.generateTransformerConfiguration(paramCount, mode));
+        content = BenchmarkData.generateParameterFile(fileSize, paramCount);
+        lines = new String(content, StandardCharsets.UTF_8).split("\n");
+    }
+
+    @Benchmark
+    public void applyStream() {
+        transformer.apply(new ByteArrayInputStream(content), NullOutputStream.INSTANCE);
+    }
+
+    /**
+     * The line based API in {@link org.sparkliang.textutil.api.AbstractStreamBasedTransformer}, which joins the lines and splits the output.
+     */
+    @Benchmark
+    public void applyLines(Blackhole blackhole) {
+        blackhole.consume(transformer.apply(lines));
+    }
+}
@@ -1,12 +1,10 @@
 package org.sparkliang.textutil.api;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-import org.sparkliang.textutil.exception.TextTransformUtilException;
-
-import java.io.*;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Provide the common implementation on method {@link Transformer#apply(String[])}. <br>
@@ -17,20 +15,19 @@ import java.util.Arrays;
  * @since 1.0
  */
 public abstract class AbstractStreamBasedTransformer implements Transformer {
-    private static Logger LOGGER = LoggerFactory.getLogger(AbstractStreamBasedTransformer.class);
 
+    /**
+     * Transform the lines by {@link Transformer#apply(java.util.Iterator, java.util.function.Consumer)}.
+     * The empty lines at the end of the output are removed.
+     */
     @Override
     public String[] apply(String[] input) {
-        try (InputStream in = new ByteArrayInputStream(
-                String.join(System.lineSeparator(), Arrays.asList(input)).getBytes(StandardCharsets.UTF_8))
-        ) {
-            try (OutputStream out = new ByteArrayOutputStream()) {
-                this.apply(in, out);
-                return out.toString().split(System.lineSeparator());
-            }
-        } catch (IOException e) {
-            LOGGER.warn("An error occur during transform String[] into input stream or output stream.", e);
-            throw new TextTransformUtilException(e);
+        List<String> output = new ArrayList<>();
+        this.apply(Arrays.asList(input).iterator(), output::add);
+        int size = output.size();
+        while (size > 0 && output.get(size - 1).isEmpty()) {
+            size--;
         }
+        return output.subList(0, size).toArray(new String[0]);
     }
 }
@@ -0,0 +1,26 @@
+package org.sparkliang.textutil.api;
+
+import java.io.InputStream;
+
+/**
+ * The transformer which is able to tell which part of its configuration applies on a content. <br>
+ * The {@link TransformPipe} might keep the transformed content in a cache shared by the runs, keyed by the content and this key,
+ * so the runs that only differ in the configuration not applied on a content still reuse the result of each other.
+ * The transformers that only implement {@link Fingerprintable} are cached by their whole configuration instead.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public interface CacheableTransformer extends Transformer {
+
+    /**
+     * Get the key of the configuration that applies on the content. It should be much cheaper than transforming the content.
+     *
+     * @param input The input stream of the content. It is read partially or fully, and it will not be closed.
+     * @return A value that keeps the same as long as the content is transformed into the same output,
+     * or null if it is unable to tell, so the content is not cached.
+     * @since 1.0
+     */
+    String getCacheKey(InputStream input);
+}
@@ -0,0 +1,27 @@
+package org.sparkliang.textutil.api;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The transformer that is able to transform a content held in a {@link ByteBuffer}. <br>
+ * The {@link TransformPipe} might hand it the large source files mapped into memory, so the content is not copied into the java heap,
+ * and the parts of the content that are not changed can be written into the output as the slices of the input.
+ * The transformers that only implement {@link Transformer#apply(java.io.InputStream, java.io.OutputStream)} are still fed by the streams.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public interface ChannelTransformer extends Transformer {
+
+    /**
+     * Transform the content, as if {@link Transformer#apply(java.io.InputStream, java.io.OutputStream)} is called on the same content.
+     *
+     * @param input  The content from its position to its limit. It might be a read-only buffer, and its position is not changed.
+     *               It should not be referred to after the call returns, so a mapped file can be released by the GC.
+     * @param output The channel of the content after transformed. It is buffered by the caller, and it will not be closed.
+     * @since 1.0
+     */
+    void apply(ByteBuffer input, WritableByteChannel output);
+}
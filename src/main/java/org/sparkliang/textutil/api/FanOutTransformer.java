@@ -0,0 +1,27 @@
+package org.sparkliang.textutil.api;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * The transformer that is able to transform a content for several configurations at once. <br>
+ * It is used by the {@link MultiProfileTransformPipe} so that the content is only parsed once for all the profiles,
+ * and only the substitution and the serialization are done for each profile.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public interface FanOutTransformer extends Transformer {
+
+    /**
+     * Transform the content for each of the given transformers, as if {@link Transformer#apply(InputStream, OutputStream)} of each of them is called.
+     *
+     * @param input        The input stream of the content. It will not be closed.
+     * @param transformers The transformers of the same class as this one, each of which is configured by a profile. This one might be one of them.
+     * @param outputs      The output stream of each transformer, in the same order as the transformers. They will not be closed.
+     * @since 1.0
+     */
+    void apply(InputStream input, List<? extends Transformer> transformers, List<? extends OutputStream> outputs);
+}
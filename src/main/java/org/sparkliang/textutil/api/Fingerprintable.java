@@ -0,0 +1,20 @@
+package org.sparkliang.textutil.api;
+
+/**
+ * The classes which implement this interface are able to tell whether their configuration is changed. <br>
+ * It allows the {@link TransformPipe} to reuse the files transformed by the previous runs.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public interface Fingerprintable {
+
+    /**
+     * Get the fingerprint of the current configuration.
+     *
+     * @return A value that keeps the same as long as the same input will be transformed into the same output.
+     * @since 1.0
+     */
+    String getFingerprint();
+}
@@ -0,0 +1,100 @@
+package org.sparkliang.textutil.api;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Read the lines taken from an iterator as the UTF-8 bytes of the lines joined by "\n".<br>
+ * The lines are taken and encoded only when the bytes are read, so only the current line is held in memory.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class LineInputStream extends InputStream {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Iterator<? extends CharSequence> lines;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private CharBuffer currentLine = null;
+    private boolean firstLine = true;
+
+    LineInputStream(Iterator<? extends CharSequence> lines) {
+        this.lines = lines;
+        bytes.flip();
+    }
+
+    @Override
+    public int read() {
+        if (!bytes.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return bytes.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (0 == len) {
+            return 0;
+        }
+        if (!bytes.hasRemaining() && !fill()) {
+            return -1;
+        }
+        int count = Math.min(len, bytes.remaining());
+        bytes.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return bytes.remaining();
+    }
+
+    /**
+     * Encode the lines into the buffer until it is full or there is no more line.
+     *
+     * @return false if there is no more byte.
+     */
+    private boolean fill() {
+        bytes.clear();
+        while (bytes.hasRemaining()) {
+            if (null == currentLine) {
+                if (!lines.hasNext()) {
+                    break;
+                }
+                CharSequence line = lines.next();
+                if (!firstLine) {
+                    bytes.put((byte) '\n');
+                }
+                firstLine = false;
+                currentLine = CharBuffer.wrap(line);
+            }
+            CoderResult result = encoder.encode(currentLine, bytes, true);
+            if (result.isOverflow()) {
+                break;
+            }
+            if (result.isError()) {
+                // never happens, the malformed characters are replaced
+                try {
+                    result.throwException();
+                } catch (CharacterCodingException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            encoder.reset();
+            currentLine = null;
+        }
+        bytes.flip();
+        return bytes.hasRemaining();
+    }
+}
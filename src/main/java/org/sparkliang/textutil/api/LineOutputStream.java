@@ -0,0 +1,104 @@
+package org.sparkliang.textutil.api;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Decode the bytes written as UTF-8 and pass each line to the consumer once it is complete.<br>
+ * The lines are terminated by "\n" or "\r\n", and the terminators are not passed to the consumer.
+ * Only the current line is held in memory. The last line is passed when the stream is closed, if it is not empty.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class LineOutputStream extends OutputStream {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Consumer<? super String> lines;
+    private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final StringBuilder currentLine = new StringBuilder();
+    private boolean closed = false;
+
+    LineOutputStream(Consumer<? super String> lines) {
+        this.lines = lines;
+    }
+
+    @Override
+    public void write(int b) {
+        if (!bytes.hasRemaining()) {
+            decode(false);
+        }
+        bytes.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            if (!bytes.hasRemaining()) {
+                decode(false);
+            }
+            int count = Math.min(len, bytes.remaining());
+            bytes.put(b, off, count);
+            off += count;
+            len -= count;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        decode(true);
+        decoder.flush(chars);
+        drainChars();
+        if (currentLine.length() > 0) {
+            endLine();
+        }
+    }
+
+    /**
+     * Decode the bytes in the buffer. An incomplete character at the end is kept in the buffer unless it is the end of input.
+     */
+    private void decode(boolean endOfInput) {
+        bytes.flip();
+        while (decoder.decode(bytes, chars, endOfInput).isOverflow()) {
+            drainChars();
+        }
+        drainChars();
+        bytes.compact();
+    }
+
+    private void drainChars() {
+        chars.flip();
+        while (chars.hasRemaining()) {
+            char c = chars.get();
+            if ('\n' == c) {
+                endLine();
+            } else {
+                currentLine.append(c);
+            }
+        }
+        chars.clear();
+    }
+
+    private void endLine() {
+        int length = currentLine.length();
+        if (length > 0 && '\r' == currentLine.charAt(length - 1)) {
+            currentLine.setLength(length - 1);
+        }
+        lines.accept(currentLine.toString());
+        currentLine.setLength(0);
+    }
+}
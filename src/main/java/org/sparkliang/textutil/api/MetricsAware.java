@@ -0,0 +1,20 @@
+package org.sparkliang.textutil.api;
+
+import org.sparkliang.textutil.metrics.RunMetrics;
+
+/**
+ * The {@link TransformPipe} or {@link Transformer} that records its work into the metrics of the run. <br>
+ * The metrics are set before the run starts. The instances that never get the metrics should record into {@link RunMetrics#DISABLED}.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public interface MetricsAware {
+
+    /**
+     * @param metrics The metrics of the run.
+     * @since 1.0
+     */
+    void setMetrics(RunMetrics metrics);
+}
@@ -0,0 +1,23 @@
+package org.sparkliang.textutil.api;
+
+import java.util.List;
+
+/**
+ * The {@link TransformPipe} that is able to transform the same source for several profiles in one run. <br>
+ * Each source file is read once for all the profiles, instead of once for each run of every profile.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public interface MultiProfileTransformPipe extends TransformPipe {
+
+    /**
+     * Transform the files of the source for all the given profiles.
+     *
+     * @param sourcePath The base source of the files that before transform.
+     * @param profiles   The profiles, each of which has its own target path and transformer. There should be at least one profile.
+     * @since 1.0
+     */
+    void transform(String sourcePath, List<TransformProfile> profiles);
+}
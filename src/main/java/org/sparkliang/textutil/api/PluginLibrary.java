@@ -0,0 +1,35 @@
+package org.sparkliang.textutil.api;
+
+import java.util.function.Supplier;
+
+/**
+ * A library of {@link TransformPipe} and {@link Transformer} implementations. <br>
+ * The libraries are found by {@link java.util.ServiceLoader}, so a library lists its class in
+ * "META-INF/services/org.sparkliang.textutil.api.PluginLibrary". The plugins registered can be named by their aliases instead of their class names,
+ * and they are created by their factories instead of reflection.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public interface PluginLibrary {
+
+    /**
+     * Register all the plugins of the library.
+     *
+     * @param registrar Where the plugins are registered.
+     * @since 1.0
+     */
+    void register(Registrar registrar);
+
+    interface Registrar {
+
+        /**
+         * @param alias       The short name of the plugin, such as "xml". The first library that registers an alias wins.
+         * @param pluginClass The class of the plugin.
+         * @param factory     Create a new instance of the plugin on each call.
+         * @since 1.0
+         */
+        <T extends Configurable> void register(String alias, Class<T> pluginClass, Supplier<? extends T> factory);
+    }
+}
@@ -0,0 +1,24 @@
+package org.sparkliang.textutil.api;
+
+import java.io.InputStream;
+
+/**
+ * The transformer which is able to tell cheaply whether a content needs to be transformed. <br>
+ * The {@link TransformPipe} copies the content that does not need to be transformed directly into the target,
+ * without calling {@link Transformer#apply(InputStream, java.io.OutputStream)}.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public interface SelectiveTransformer extends Transformer {
+
+    /**
+     * Check whether the content needs to be transformed. The check should be much cheaper than transforming the content.
+     *
+     * @param input The input stream of the content. It is read partially or fully, and it will not be closed.
+     * @return false if the content can be copied into the target as it is. It should be true when it is unable to tell.
+     * @since 1.0
+     */
+    boolean isTransformRequired(InputStream input);
+}
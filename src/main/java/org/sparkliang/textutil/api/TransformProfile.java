@@ -0,0 +1,43 @@
+package org.sparkliang.textutil.api;
+
+/**
+ * One of the named configuration profiles of a run, such as the configuration of an environment.
+ * The same source is transformed by the transformer of each profile into the target path of that profile.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public final class TransformProfile {
+    private final String name;
+    private final String targetPath;
+    private final Transformer transformer;
+
+    /**
+     * @param name        The name of the profile, which is only used to tell the profiles apart.
+     * @param targetPath  The base target path of the profile.
+     * @param transformer The transformer configured by the profile.
+     */
+    public TransformProfile(String name, String targetPath, Transformer transformer) {
+        this.name = name;
+        this.targetPath = targetPath;
+        this.transformer = transformer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTargetPath() {
+        return targetPath;
+    }
+
+    public Transformer getTransformer() {
+        return transformer;
+    }
+
+    @Override
+    public String toString() {
+        return name + " -> " + targetPath;
+    }
+}
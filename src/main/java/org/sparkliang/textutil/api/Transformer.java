@@ -1,7 +1,12 @@
 package org.sparkliang.textutil.api;
 
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.function.Consumer;
 
 
 /**
@@ -32,4 +37,22 @@ public interface Transformer extends Configurable {
      * @since 1.0
      */
     void apply(InputStream input, OutputStream output);
+
+    /**
+     * The method that process the text content line by line in a streaming approach.<br>
+     * The lines are taken from the input only when {@link #apply(InputStream, OutputStream)} reads them,
+     * encoded in UTF-8 and joined by "\n". The output is decoded as UTF-8 and each line is passed to the consumer once it is complete.
+     * So the memory used does not grow with the size of the content, unless the transformer itself holds the content.
+     *
+     * @param input  The lines of the source that need to be transform. They are produced lazily by the iterator.
+     * @param output The consumer of the lines after transformed, without the line terminators.
+     * @since 1.0
+     */
+    default void apply(Iterator<? extends CharSequence> input, Consumer<? super String> output) {
+        try (InputStream in = new LineInputStream(input); OutputStream out = new LineOutputStream(output)) {
+            apply(in, out);
+        } catch (IOException e) {
+            throw new TextTransformUtilException(e);
+        }
+    }
 }
@@ -0,0 +1,25 @@
+package org.sparkliang.textutil.api;
+
+import java.util.List;
+
+/**
+ * The {@link MultiProfileTransformPipe} that is able to keep the targets up to date while the source is being edited. <br>
+ * After the first transform, only the files changed in the source are transformed again,
+ * and the target files whose source is deleted are deleted.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public interface WatchableTransformPipe extends MultiProfileTransformPipe {
+
+    /**
+     * Transform the source as {@link #transform(String, List)} does, and then keep transforming the changed files
+     * until the current thread is interrupted.
+     *
+     * @param sourcePath The base source directory of the files that before transform.
+     * @param profiles   The profiles, each of which has its own target path and transformer. There should be at least one profile.
+     * @since 1.0
+     */
+    void watch(String sourcePath, List<TransformProfile> profiles);
+}
@@ -4,19 +4,28 @@ import org.apache.commons.cli.*;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.sparkliang.textutil.api.MetricsAware;
+import org.sparkliang.textutil.api.MultiProfileTransformPipe;
 import org.sparkliang.textutil.api.TransformPipe;
+import org.sparkliang.textutil.api.TransformProfile;
 import org.sparkliang.textutil.api.Transformer;
+import org.sparkliang.textutil.api.WatchableTransformPipe;
 import org.sparkliang.textutil.exception.TextTransformUtilException;
 import org.sparkliang.textutil.impl.DefaultTransformPipe;
 import org.sparkliang.textutil.impl.DefaultXMLParameterFileTransformer;
+import org.sparkliang.textutil.impl.PluginRegistry;
+import org.sparkliang.textutil.metrics.RunMetrics;
 
 import java.io.*;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
 
 /**
  * The entry point of entire program.
@@ -29,112 +38,299 @@ import java.util.Properties;
 public final class CLI {
     private static final Logger LOGGER = LoggerFactory.getLogger(CLI.class);
 
-    static Options OPTIONS = null;
-    static String HELP_STRING = null;
+    private static final Pattern PROFILE_NAME_PATTERN = Pattern.compile("[A-Za-z0-9._-]+");
 
-    static Map<Class<?>, Object> INSTANCE_MAP = new HashMap<>();
-    static Properties CONFIGURATION;
-    static String SOURCE_PATH;
-    static String TARGET_PATH;
+    static Options OPTIONS = null;
+    private static String HELP_STRING = null;
 
     public static void main(String[] args) {
+        int exitCode = run(args, null, System.out, System.err, PluginProvider.NEW_INSTANCE);
+        if (0 != exitCode) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Run the program with the given arguments. It is what {@link #main(String[])} does, except that the exit code is returned instead.
+     *
+     * @param args             The command line arguments.
+     * @param workingDirectory The directory that the relative paths in the arguments are relative to, or null for the current directory.
+     * @param out              Where the standard output goes.
+     * @param err              Where the error output goes.
+     * @param pluginProvider   Where the configured {@link TransformPipe} and {@link Transformer} come from.
+     * @return 0 if the run succeeds, -1 if the arguments or the configurations are invalid,
+     * or -2 if the command line is unable to be parsed or on any other error.
+     */
+    static int run(String[] args, File workingDirectory, PrintStream out, PrintStream err, PluginProvider pluginProvider) {
         CommandLineParser parser = new DefaultParser();
 
         try {
             CommandLine commandLine = parser.parse(OPTIONS, args);
             if (Arrays.stream(commandLine.getOptions()).anyMatch(opt -> "h".equals(opt.getOpt()))) {
-                System.out.println(HELP_STRING);
-                return;
+                out.println(getHelpString());
+                return 0;
             }
 
-            validateCommandLine(commandLine);
-            getConfiguration(commandLine);
-            doMain(commandLine);
+            Job job = new Job(commandLine, workingDirectory);
+            if (commandLine.hasOption("serve")) {
+                if (PluginProvider.NEW_INSTANCE != pluginProvider) {
+                    logAndThrowException("Unable to start a daemon from the job of another daemon.");
+                }
+                return new DaemonServer(new File(job.resolve(DaemonClient.getDaemonFilePath(commandLine.getOptionValue("daemon-file")))),
+                        getDaemonPort(commandLine)).serve();
+            }
+            if (commandLine.hasOption("watch") && PluginProvider.NEW_INSTANCE != pluginProvider) {
+                logAndThrowException("The watch mode is not supported by the jobs of a daemon, since the job never ends.");
+            }
+            job.validateCommandLine();
+            job.getConfiguration();
+            job.doMain(pluginProvider);
+            return 0;
         } catch (TextTransformUtilException e) {
-            System.err.println("Error:" + e.getMessage() + "\n" + HELP_STRING);
-            System.exit(-1);
+            err.println("Error:" + e.getMessage() + "\n" + getHelpString());
+            return -1;
+        } catch (ParseException e) {
+            // it was reported as an unknown error, and the exit code is kept for the scripts depending on it
+            err.println("Error:" + e.getMessage() + "\n" + getHelpString());
+            return -2;
         } catch (Exception e) {
             LOGGER.error("Unknown Error!", e);
             ByteArrayOutputStream bao = new ByteArrayOutputStream();
             e.printStackTrace(new PrintStream(bao));
-            System.err.println("Unknown Error:" + e.getMessage() + "\n" + bao.toString() + "\n" + HELP_STRING);
-            System.exit(-2);
+            err.println("Unknown Error:" + e.getMessage() + "\n" + bao.toString() + "\n" + getHelpString());
+            return -2;
         }
+    }
 
+    private static Class<?> resolvePlugin(String name, Class<?> implementsClass) {
+        try {
+            return PluginRegistry.resolve(name, implementsClass);
+        } catch (TextTransformUtilException e) {
+            LOGGER.warn(e.getMessage());
+            throw e;
+        }
     }
 
-    static void validateCommandLine(CommandLine commandLine) {
-        String transformPipeName = commandLine.getOptionValue('p', DefaultTransformPipe.class.getName());
-        assertClassExistsAndImplementAndCreateInstance(transformPipeName, TransformPipe.class);
-        String transformerName = commandLine.getOptionValue('t', DefaultXMLParameterFileTransformer.class.getName());
-        assertClassExistsAndImplementAndCreateInstance(transformerName, Transformer.class);
+    private static int getDaemonPort(CommandLine commandLine) {
+        String port = commandLine.getOptionValue("daemon-port", "0");
+        try {
+            int result = Integer.parseInt(port.trim());
+            if (result >= 0 && result <= 65535) {
+                return result;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        logAndThrowException(String.format("Invalid daemon port \"%s\".", port));
+        return 0;
+    }
 
-        String[] remainArgs = commandLine.getArgs();
-        if (2 != remainArgs.length) {
-            logAndThrowException("Invalid arguments.");
+    private static void setMetrics(Object instance, RunMetrics metrics) {
+        if (instance instanceof MetricsAware) {
+            ((MetricsAware) instance).setMetrics(metrics);
         }
-        SOURCE_PATH = remainArgs[0];
-        TARGET_PATH = remainArgs[1];
     }
 
-    static void assertClassExistsAndImplementAndCreateInstance(String className, Class<?> implementsClass) {
-        try {
-            Class<?> clazz = Class.forName(className);
-            if (!implementsClass.isAssignableFrom(clazz)) {
-                logAndThrowException(String.format("The given class \"%s\" is not implements \"%s\".", className, implementsClass.getName()));
-            }
-            Constructor<?> constructor = clazz.getConstructor();
-            Object instance = constructor.newInstance();
-            INSTANCE_MAP.put(implementsClass, implementsClass.cast(instance));
-        } catch (ClassNotFoundException e) {
-            logAndThrowException(String.format("The given class \"%s\" is not exists.", className));
-        } catch (NoSuchMethodException e) {
-            logAndThrowException(String.format("The given class \"%s\" does not have the default constructor.", className));
-        } catch (IllegalAccessException e) {
-            logAndThrowException(String.format("The default constructor of \"%s\" is unable to access.", className));
-        } catch (InstantiationException | InvocationTargetException e) {
-            logAndThrowException(String.format("The class \"%s\" is unable to create instance. Reason is: %s", className, e.getMessage()));
+    /**
+     * The metrics are written even if the run failed, so a failure does not hide the report of the run.
+     */
+    private static void writeMetrics(RunMetrics metrics, String metricsPath) {
+        try (Writer writer = new OutputStreamWriter(FileUtils.openOutputStream(new File(metricsPath)), StandardCharsets.UTF_8)) {
+            metrics.writeJson(writer);
+        } catch (IOException e) {
+            LOGGER.error("Unable to write the metrics into \"{}\".", metricsPath, e);
         }
     }
 
-    static void getConfiguration(CommandLine commandLine) {
-        CONFIGURATION = new Properties();
-        String configFileDir = commandLine.getOptionValue("default-conf-dir");
-        if (null != configFileDir) {
-            File confFile = new File(configFileDir);
+    static void logAndThrowException(String message) {
+        LOGGER.warn(message);
+        throw new TextTransformUtilException(message);
+    }
+
+    /**
+     * The state of one run, so the runs of a daemon do not share anything but the plugins.
+     */
+    private static class Job {
+        private static final AtomicLong JOB_SEQUENCE = new AtomicLong();
+
+        private final CommandLine commandLine;
+        private final File workingDirectory;
+        private Class<?> pipeClass;
+        private Class<?> transformerClass;
+        private Properties configuration;
+        private final Map<String, Properties> profiles = new LinkedHashMap<>();
+        private final Map<String, String> profileTargets = new LinkedHashMap<>();
+        private String sourcePath;
+        private String targetPath;
+
+        private Job(CommandLine commandLine, File workingDirectory) {
+            this.commandLine = commandLine;
+            this.workingDirectory = workingDirectory;
+        }
+
+        private String resolve(String path) {
+            if (null == workingDirectory || new File(path).isAbsolute()) {
+                return path;
+            }
+            return new File(workingDirectory, path).getPath();
+        }
+
+        private void validateCommandLine() {
+            String transformPipeName = commandLine.getOptionValue('p', DefaultTransformPipe.class.getName());
+            pipeClass = resolvePlugin(transformPipeName, TransformPipe.class);
+            String transformerName = commandLine.getOptionValue('t', DefaultXMLParameterFileTransformer.class.getName());
+            transformerClass = resolvePlugin(transformerName, Transformer.class);
+
+            String[] remainArgs = commandLine.getArgs();
+            if (2 != remainArgs.length) {
+                logAndThrowException("Invalid arguments.");
+            }
+            sourcePath = resolve(remainArgs[0]);
+            targetPath = resolve(remainArgs[1]);
+        }
+
+        private void getConfiguration() {
+            Properties fileConfiguration = new Properties();
+            String configFileDir = commandLine.getOptionValue("default-conf-dir");
+            if (null != configFileDir) {
+                loadConfiguration(fileConfiguration, configFileDir);
+            }
+            Properties commandLineConfiguration = new Properties();
+            String[] configurations = commandLine.getOptionValues("conf");
+            if (null != configurations) {
+                for (String conf : configurations) {
+                    int separatorIdx = conf.indexOf("=");
+                    if (0 == separatorIdx) {
+                        logAndThrowException(
+                                String.format("Invalid configuration %s. The correct format is <key>=<value>.", conf)
+                        );
+                    }
+
+                    commandLineConfiguration.setProperty(conf.substring(0, separatorIdx), conf.substring(separatorIdx + 1));
+                }
+            }
+            configuration = new Properties();
+            configuration.putAll(fileConfiguration);
+            configuration.putAll(commandLineConfiguration);
+
+            // the configuration of a profile overrides the configuration file, and is still overridden by the command line
+            for (Map.Entry<String, String> profile : getNamedValues("profile-conf").entrySet()) {
+                Properties profileConfiguration = new Properties();
+                profileConfiguration.putAll(fileConfiguration);
+                loadConfiguration(profileConfiguration, profile.getValue());
+                profileConfiguration.putAll(commandLineConfiguration);
+                profiles.put(profile.getKey(), profileConfiguration);
+            }
+            profileTargets.putAll(getNamedValues("profile-target"));
+            for (String profileName : profileTargets.keySet()) {
+                if (!profiles.containsKey(profileName)) {
+                    logAndThrowException(String.format("The profile \"%s\" of the target is not given by \"--profile-conf\".", profileName));
+                }
+            }
+        }
+
+        private void loadConfiguration(Properties conf, String path) {
+            File confFile = new File(resolve(path));
             try (InputStream inputStream = FileUtils.openInputStream(confFile)) {
-                CONFIGURATION.load(inputStream);
+                conf.load(inputStream);
             } catch (Exception e) {
-                logAndThrowException(String.format("Unable to open %s. Reason is: %s", configFileDir, e.getMessage()));
+                logAndThrowException(String.format("Unable to open %s. Reason is: %s", path, e.getMessage()));
             }
         }
-        String[] configurations = commandLine.getOptionValues("conf");
-        if (null != configurations) {
-            for (String configuration : configurations) {
-                int separatorIdx = configuration.indexOf("=");
-                if (0 == separatorIdx) {
-                    logAndThrowException(
-                            String.format("Invalid configuration %s. The correct format is <key>=<value>.", configuration)
-                    );
-                }
 
-                CONFIGURATION.setProperty(configuration.substring(0, separatorIdx), configuration.substring(separatorIdx + 1));
+        /**
+         * @return The values in the format of "name=value" of the given option, by the name in the given order.
+         */
+        private Map<String, String> getNamedValues(String option) {
+            Map<String, String> result = new LinkedHashMap<>();
+            String[] values = commandLine.getOptionValues(option);
+            if (null == values) {
+                return result;
             }
+            for (String value : values) {
+                int separatorIdx = value.indexOf("=");
+                String name = separatorIdx < 0 ? "" : value.substring(0, separatorIdx);
+                if (!PROFILE_NAME_PATTERN.matcher(name).matches()) {
+                    logAndThrowException(String.format("Invalid %s %s. The correct format is <name>=<value>, " +
+                            "and the name should only contain letters, digits, \".\", \"_\" and \"-\".", option, value));
+                }
+                if (null != result.put(name, value.substring(separatorIdx + 1))) {
+                    logAndThrowException(String.format("The %s \"%s\" is given more than once.", option, name));
+                }
+            }
+            return result;
         }
-    }
 
-    static void doMain(CommandLine commandLine) {
-        TransformPipe pipe = (TransformPipe) INSTANCE_MAP.get(TransformPipe.class);
-        pipe.set(CONFIGURATION);
-        Transformer transformer = (Transformer) INSTANCE_MAP.get(Transformer.class);
-        transformer.set(CONFIGURATION);
+        private void doMain(PluginProvider pluginProvider) {
+            String metricsPath = commandLine.getOptionValue("metrics");
+            // the metrics are set on the plugins, so the plugins of a measured run are never shared with another run
+            boolean exclusive = null != metricsPath;
+            TransformPipe pipe = pluginProvider.get(pipeClass, TransformPipe.class, configuration, exclusive);
+            List<TransformProfile> transformProfiles = createProfiles(pluginProvider, exclusive);
 
-        pipe.transform(SOURCE_PATH, TARGET_PATH, transformer);
-    }
+            if (null == metricsPath) {
+                transform(pipe, transformProfiles);
+                return;
+            }
 
-    private static void logAndThrowException(String message) {
-        LOGGER.warn(message);
-        throw new TextTransformUtilException(message);
+            RunMetrics metrics = new RunMetrics();
+            setMetrics(pipe, metrics);
+            for (TransformProfile profile : transformProfiles) {
+                setMetrics(profile.getTransformer(), metrics);
+            }
+            if (PluginProvider.NEW_INSTANCE == pluginProvider) {
+                metrics.registerMBean();
+            } else {
+                metrics.registerMBean(RunMetrics.OBJECT_NAME + ",job=" + JOB_SEQUENCE.incrementAndGet());
+            }
+            try {
+                transform(pipe, transformProfiles);
+            } finally {
+                metrics.finish();
+                metrics.unregisterMBean();
+                writeMetrics(metrics, resolve(metricsPath));
+            }
+        }
+
+        /**
+         * The target of a profile is the directory named after the profile under the target, unless it is given by "--profile-target".
+         */
+        private List<TransformProfile> createProfiles(PluginProvider pluginProvider, boolean exclusive) {
+            List<TransformProfile> result = new ArrayList<>();
+            if (profiles.isEmpty()) {
+                Transformer transformer = pluginProvider.get(transformerClass, Transformer.class, configuration, exclusive);
+                result.add(new TransformProfile(DefaultTransformPipe.DEFAULT_PROFILE_NAME, targetPath, transformer));
+                return result;
+            }
+            for (Map.Entry<String, Properties> profile : profiles.entrySet()) {
+                String profileName = profile.getKey();
+                Transformer transformer = pluginProvider.get(transformerClass, Transformer.class, profile.getValue(), exclusive);
+                String profileTarget = profileTargets.containsKey(profileName)
+                        ? resolve(profileTargets.get(profileName)) : new File(targetPath, profileName).getPath();
+                result.add(new TransformProfile(profileName, profileTarget, transformer));
+            }
+            return result;
+        }
+
+        /**
+         * The pipe that is unable to transform for several profiles at once runs once for each profile.
+         */
+        private void transform(TransformPipe pipe, List<TransformProfile> transformProfiles) {
+            if (commandLine.hasOption("watch")) {
+                if (!(pipe instanceof WatchableTransformPipe)) {
+                    logAndThrowException(String.format("The pipe \"%s\" does not support the watch mode.", pipe.getClass().getName()));
+                }
+                ((WatchableTransformPipe) pipe).watch(sourcePath, transformProfiles);
+                return;
+            }
+            if (transformProfiles.size() > 1 && pipe instanceof MultiProfileTransformPipe) {
+                ((MultiProfileTransformPipe) pipe).transform(sourcePath, transformProfiles);
+                return;
+            }
+            for (TransformProfile profile : transformProfiles) {
+                pipe.transform(sourcePath, profile.getTargetPath(), profile.getTransformer());
+            }
+        }
     }
 
     private static void initCliOption() {
@@ -148,7 +344,8 @@ public final class CLI {
                     Option.builder("p").longOpt("pipe").argName("Class name of transform pipe").type(String.class)
                             .optionalArg(false).required(false).numberOfArgs(1)
                             .desc("The class to control which file that need to be transformed and how to place the file in target folder.\n" +
-                                    "The default value is " + DefaultTransformPipe.class.getName() + '.'
+                                    "The default value is " + DefaultTransformPipe.class.getName() + ".\n" +
+                                    "The built-in pipes can also be named by their aliases: default, archive."
                             )
                             .build()
             );
@@ -157,7 +354,8 @@ public final class CLI {
                     Option.builder("t").longOpt("transformer").argName("Class name of text transformer").type(String.class)
                             .optionalArg(false).required(false).numberOfArgs(1)
                             .desc("The class to control how the program transform the content in each file.\n" +
-                                    "The default value is " + DefaultXMLParameterFileTransformer.class.getName() + '.'
+                                    "The default value is " + DefaultXMLParameterFileTransformer.class.getName() + ".\n" +
+                                    "The built-in transformers can also be named by their aliases: xml, placeholder, regex, chain."
                             )
                             .build()
             );
@@ -177,12 +375,69 @@ public final class CLI {
                             .build()
             );
 
+            // The configuration profiles
+            options.addOption(
+                    Option.builder().longOpt("profile-conf").argName("The profile configuration").type(String.class)
+                            .optionalArg(false).required(false).numberOfArgs(1)
+                            .desc("Transform the source for a profile, such as an environment. The source files are read once for all the profiles.\n" +
+                                    "The format of each argument is <name>=<configuration file path>.\n" +
+                                    "The configuration file of a profile overrides the default one, and \"--conf\" overrides both.")
+                            .build()
+            );
+            options.addOption(
+                    Option.builder().longOpt("profile-target").argName("The profile target").type(String.class)
+                            .optionalArg(false).required(false).numberOfArgs(1)
+                            .desc("The target path of a profile. The format of each argument is <name>=<target path>.\n" +
+                                    "The default target of a profile is the directory named after the profile under the target.")
+                            .build()
+            );
+
+            // The watch mode
+            options.addOption(
+                    Option.builder().longOpt("watch").required(false)
+                            .desc("Keep running after the transform, and transform the files again once they are changed in the source directory.\n" +
+                                    "The target files whose source is deleted are deleted. It runs until the program is stopped.")
+                            .build()
+            );
+
+            // The metrics report
+            options.addOption(
+                    Option.builder().longOpt("metrics").argName("The metrics file path").type(String.class)
+                            .optionalArg(false).required(false).numberOfArgs(1)
+                            .desc("Write the metrics of the run into the given file as JSON when the run finishes.\n" +
+                                    "The metrics are also exposed through JMX as \"" + RunMetrics.OBJECT_NAME + "\" while the run is in progress.")
+                            .build()
+            );
+
+            // The daemon mode
+            options.addOption(
+                    Option.builder().longOpt("serve").required(false)
+                            .desc("Start a daemon that runs the jobs submitted by " + DaemonClient.class.getName() + " instead of running a job.\n" +
+                                    "The daemon only listens on the loopback address.")
+                            .build()
+            );
+            options.addOption(
+                    Option.builder().longOpt("daemon-file").argName("The daemon file path").type(String.class)
+                            .optionalArg(false).required(false).numberOfArgs(1)
+                            .desc("The file where the daemon writes its port and access token, which the clients read.\n" +
+                                    "The default value is " + DaemonClient.DEFAULT_DAEMON_FILE_PATH + " under the home directory of the user.")
+                            .build()
+            );
+            options.addOption(
+                    Option.builder().longOpt("daemon-port").argName("The daemon port").type(String.class)
+                            .optionalArg(false).required(false).numberOfArgs(1)
+                            .desc("The port that the daemon listens on. The default value is 0, which means any free port.")
+                            .build()
+            );
+
             OPTIONS = options;
         }
     }
 
-    private static void initHelpString() {
-
+    /**
+     * The help is only rendered when it is printed, so a normal run does not pay for it.
+     */
+    static synchronized String getHelpString() {
         if (HELP_STRING == null) {
             HelpFormatter helpFormatter = new HelpFormatter();
 
@@ -194,10 +449,10 @@ public final class CLI {
             HELP_STRING = new String(byteArrayOutputStream.toByteArray());
             printWriter.close();
         }
+        return HELP_STRING;
     }
 
     static {
         initCliOption();
-        initHelpString();
     }
 }
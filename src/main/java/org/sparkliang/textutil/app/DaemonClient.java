@@ -0,0 +1,124 @@
+package org.sparkliang.textutil.app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * The thin client that submits a job to the daemon started by "text-util --serve", and exits with the exit code of the job.<br>
+ * It takes the same arguments as {@link CLI}, so a script only changes the main class to use the daemon, for example:
+ * <pre>
+ * java -cp text-util-1.0.jar org.sparkliang.textutil.app.DaemonClient [--daemon-file path] [options] source target
+ * java -cp text-util-1.0.jar org.sparkliang.textutil.app.DaemonClient [--daemon-file path] --stop
+ * </pre>
+ * The relative paths in the arguments are relative to the current directory of the client.
+ * It depends on nothing but the JDK, so it starts much faster than a run of the program.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public final class DaemonClient {
+    static final String DEFAULT_DAEMON_FILE_PATH = ".text-util" + File.separator + "daemon.properties";
+    static final String DAEMON_FILE_OPTION = "--daemon-file";
+    static final String STOP_OPTION = "--stop";
+
+    private DaemonClient() {
+    }
+
+    public static void main(String[] args) {
+        String daemonFilePath = null;
+        int jobArgsStart = 0;
+        if (args.length >= 2 && DAEMON_FILE_OPTION.equals(args[0])) {
+            daemonFilePath = args[1];
+            jobArgsStart = 2;
+        }
+        File daemonFile = new File(getDaemonFilePath(daemonFilePath));
+        String[] jobArgs = Arrays.copyOfRange(args, jobArgsStart, args.length);
+
+        int exitCode;
+        if (1 == jobArgs.length && STOP_OPTION.equals(jobArgs[0])) {
+            exitCode = stop(daemonFile, System.err);
+        } else {
+            exitCode = submit(daemonFile, jobArgs, new File("").getAbsoluteFile(), System.out, System.err);
+        }
+        if (0 != exitCode) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * @return The given path, or the default daemon file under the home directory of the user if it is null.
+     */
+    static String getDaemonFilePath(String daemonFilePath) {
+        if (null != daemonFilePath) {
+            return daemonFilePath;
+        }
+        return new File(System.getProperty("user.home"), DEFAULT_DAEMON_FILE_PATH).getPath();
+    }
+
+    /**
+     * Run a job by the daemon.
+     *
+     * @param daemonFile       The file written by the daemon.
+     * @param args             The same arguments as {@link CLI}.
+     * @param workingDirectory The directory that the relative paths in the arguments are relative to.
+     * @param out              Where the standard output of the job goes.
+     * @param err              Where the error output of the job goes.
+     * @return The exit code of the job, or -1 if the daemon is unable to reach.
+     */
+    static int submit(File daemonFile, String[] args, File workingDirectory, PrintStream out, PrintStream err) {
+        return request(daemonFile, DaemonProtocol.REQUEST_RUN, args, workingDirectory, out, err);
+    }
+
+    /**
+     * Stop the daemon. The daemon stops accepting the jobs at once, and exits after the running jobs finish.
+     *
+     * @return 0 if the daemon is stopping, or -1 if the daemon is unable to reach.
+     */
+    static int stop(File daemonFile, PrintStream err) {
+        return request(daemonFile, DaemonProtocol.REQUEST_STOP, new String[0], new File("").getAbsoluteFile(), err, err);
+    }
+
+    private static int request(File daemonFile, byte type, String[] args, File workingDirectory, PrintStream out, PrintStream err) {
+        try {
+            Properties daemon = DaemonProtocol.readDaemonFile(daemonFile);
+            int port = Integer.parseInt(daemon.getProperty(DaemonProtocol.PORT_PROPERTY_NAME).trim());
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+                DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+                output.writeUTF(daemon.getProperty(DaemonProtocol.TOKEN_PROPERTY_NAME).trim());
+                output.writeByte(type);
+                output.writeUTF(workingDirectory.getAbsolutePath());
+                output.writeInt(args.length);
+                for (String arg : args) {
+                    output.writeUTF(arg);
+                }
+                output.flush();
+
+                DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                while (true) {
+                    byte channel = input.readByte();
+                    if (DaemonProtocol.FRAME_EXIT == channel) {
+                        return input.readInt();
+                    }
+                    byte[] bytes = new byte[input.readInt()];
+                    input.readFully(bytes);
+                    PrintStream stream = DaemonProtocol.FRAME_OUT == channel ? out : err;
+                    stream.write(bytes);
+                    stream.flush();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            err.println(String.format("Error:Unable to reach the daemon of \"%s\". Reason is: %s", daemonFile, e.getMessage()));
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.sparkliang.textutil.app;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * The protocol between {@link DaemonServer} and {@link DaemonClient}. Each connection carries one request:
+ * <ol>
+ *     <li>The client sends the token in the daemon file, the type of the request, the working directory and the arguments of the job.</li>
+ *     <li>The daemon sends the output of the job in frames, each of which is the channel, the length and the bytes,
+ *     and then {@link #FRAME_EXIT} followed by the exit code.</li>
+ * </ol>
+ * The strings are sent by {@link java.io.DataOutput#writeUTF(String)}.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+final class DaemonProtocol {
+    static final String PORT_PROPERTY_NAME = "port";
+    static final String TOKEN_PROPERTY_NAME = "token";
+
+    static final byte REQUEST_RUN = 1;
+    static final byte REQUEST_STOP = 2;
+    static final int MAX_ARGUMENT_COUNT = 4096;
+
+    static final byte FRAME_EXIT = 0;
+    static final byte FRAME_OUT = 1;
+    static final byte FRAME_ERR = 2;
+
+    private DaemonProtocol() {
+    }
+
+    static Properties readDaemonFile(File daemonFile) throws IOException {
+        Properties daemon = new Properties();
+        try (InputStream input = new FileInputStream(daemonFile)) {
+            daemon.load(input);
+        }
+        if (null == daemon.getProperty(PORT_PROPERTY_NAME) || null == daemon.getProperty(TOKEN_PROPERTY_NAME)) {
+            throw new IOException(String.format("The daemon file \"%s\" is incomplete.", daemonFile));
+        }
+        return daemon;
+    }
+
+    /**
+     * Send everything written as the frames of the given channel.
+     */
+    static class FrameOutputStream extends OutputStream {
+        private final DataOutputStream output;
+        private final byte channel;
+
+        FrameOutputStream(DataOutputStream output, byte channel) {
+            this.output = output;
+            this.channel = channel;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (0 == len) {
+                return;
+            }
+            synchronized (output) {
+                output.writeByte(channel);
+                output.writeInt(len);
+                output.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (output) {
+                output.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package org.sparkliang.textutil.app;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sparkliang.textutil.api.Configurable;
+import org.sparkliang.textutil.impl.DaemonThreadFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The daemon that keeps the JVM warm and runs the jobs submitted by {@link DaemonClient}, so the jobs do not pay for the JVM startup,
+ * the class loading and the cold JIT each time.<br>
+ * <ul>
+ *     <li>It listens on the loopback address only, and writes the port and a random token into the daemon file, which only the owner can read.
+ *     The requests without the token are rejected, so only the users that can read the daemon file are able to submit jobs.</li>
+ *     <li>Each job runs in its own thread as {@link CLI#run(String[], File, PrintStream, PrintStream, PluginProvider)} does,
+ *     and its output is sent back to the client. The logs still go to the daemon.</li>
+ *     <li>The configured plugins are kept and reused by the later jobs of the same class and configuration,
+ *     except for the jobs that write the metrics. The paths in the configurations are relative to the directory of the daemon.</li>
+ * </ul>
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class DaemonServer implements PluginProvider {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DaemonServer.class);
+
+    private static final int MAX_CACHED_PLUGINS = 32;
+    private static final int REQUEST_TIMEOUT_MILLIS = 30 * 1000;
+    private static final int TOKEN_LENGTH = 32;
+
+    private final File daemonFile;
+    private final int port;
+    private final String token;
+    private final Map<String, Configurable> plugins = new PluginCache();
+    private final ExecutorService executor = Executors.newCachedThreadPool(new DaemonThreadFactory("text-util-daemon-job-"));
+    private volatile ServerSocket serverSocket = null;
+
+    /**
+     * @param daemonFile The file to write the port and the token into.
+     * @param port       The port to listen on, or 0 for any free port.
+     */
+    DaemonServer(File daemonFile, int port) {
+        this.daemonFile = daemonFile.getAbsoluteFile();
+        this.port = port;
+        byte[] tokenBytes = new byte[TOKEN_LENGTH];
+        new SecureRandom().nextBytes(tokenBytes);
+        StringBuilder tokenBuilder = new StringBuilder();
+        for (byte b : tokenBytes) {
+            tokenBuilder.append(String.format("%02x", b & 0xFF));
+        }
+        this.token = tokenBuilder.toString();
+    }
+
+    /**
+     * Accept the jobs until the daemon is stopped by {@link DaemonClient#stop(File, PrintStream)}.
+     *
+     * @return The exit code of the daemon.
+     */
+    int serve() throws IOException {
+        try (ServerSocket server = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            serverSocket = server;
+            writeDaemonFile(server.getLocalPort());
+            Thread cleaner = new Thread(this::deleteDaemonFile, "text-util-daemon-cleaner");
+            Runtime.getRuntime().addShutdownHook(cleaner);
+            LOGGER.info("the daemon is listening on {}, see \"{}\".", server.getLocalSocketAddress(), daemonFile);
+            try {
+                acceptJobs(server);
+            } finally {
+                awaitJobs();
+                deleteDaemonFile();
+                try {
+                    Runtime.getRuntime().removeShutdownHook(cleaner);
+                } catch (IllegalStateException e) {
+                    // the JVM is shutting down
+                }
+            }
+        }
+        LOGGER.info("the daemon is stopped.");
+        return 0;
+    }
+
+    private void acceptJobs(ServerSocket server) throws IOException {
+        while (true) {
+            Socket socket;
+            try {
+                socket = server.accept();
+            } catch (SocketException e) {
+                if (server.isClosed()) {
+                    return;
+                }
+                throw e;
+            }
+            executor.execute(() -> handle(socket));
+        }
+    }
+
+    private void awaitJobs() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.info("waiting for the running jobs to finish.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket) {
+            s.setSoTimeout(REQUEST_TIMEOUT_MILLIS);
+            DataInputStream input = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+            byte[] requestToken = input.readUTF().getBytes(StandardCharsets.UTF_8);
+            if (!MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), requestToken)) {
+                LOGGER.warn("rejected the request with an invalid token from {}.", s.getRemoteSocketAddress());
+                writeExitCode(output, -1);
+                return;
+            }
+            byte type = input.readByte();
+            File workingDirectory = new File(input.readUTF());
+            int argCount = input.readInt();
+            if (argCount < 0 || argCount > DaemonProtocol.MAX_ARGUMENT_COUNT) {
+                throw new IOException("Invalid argument count " + argCount + '.');
+            }
+            String[] args = new String[argCount];
+            for (int i = 0; i < argCount; i++) {
+                args[i] = input.readUTF();
+            }
+            s.setSoTimeout(0);
+
+            if (DaemonProtocol.REQUEST_STOP == type) {
+                LOGGER.info("stopping the daemon as requested.");
+                writeExitCode(output, 0);
+                serverSocket.close();
+                return;
+            }
+            if (DaemonProtocol.REQUEST_RUN != type) {
+                throw new IOException("Unknown request type " + type + '.');
+            }
+            PrintStream out = new PrintStream(new DaemonProtocol.FrameOutputStream(output, DaemonProtocol.FRAME_OUT), true, "UTF-8");
+            PrintStream err = new PrintStream(new DaemonProtocol.FrameOutputStream(output, DaemonProtocol.FRAME_ERR), true, "UTF-8");
+            int exitCode = CLI.run(args, workingDirectory, out, err, this);
+            out.flush();
+            err.flush();
+            writeExitCode(output, exitCode);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to serve the request.", e);
+        }
+    }
+
+    private static void writeExitCode(DataOutputStream output, int exitCode) throws IOException {
+        synchronized (output) {
+            output.writeByte(DaemonProtocol.FRAME_EXIT);
+            output.writeInt(exitCode);
+            output.flush();
+        }
+    }
+
+    @Override
+    public <T extends Configurable> T get(Class<?> clazz, Class<T> implementsClass, Properties configuration, boolean exclusive) {
+        if (exclusive) {
+            return NEW_INSTANCE.get(clazz, implementsClass, configuration, true);
+        }
+        String key = clazz.getName() + new TreeMap<>(configuration);
+        synchronized (plugins) {
+            Configurable plugin = plugins.get(key);
+            if (null != plugin) {
+                return implementsClass.cast(plugin);
+            }
+        }
+        // created out of the lock, so a slow plugin does not block the other jobs
+        T instance = NEW_INSTANCE.get(clazz, implementsClass, configuration, false);
+        synchronized (plugins) {
+            Configurable plugin = plugins.putIfAbsent(key, instance);
+            return null == plugin ? instance : implementsClass.cast(plugin);
+        }
+    }
+
+    /**
+     * The file is written into a temporary file and then moved, so a client never reads an incomplete file.
+     */
+    private void writeDaemonFile(int localPort) throws IOException {
+        File directory = daemonFile.getParentFile();
+        FileUtils.forceMkdir(directory);
+        FileAttribute<?>[] attributes = FileSystems.getDefault().supportedFileAttributeViews().contains("posix")
+                ? new FileAttribute<?>[]{PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------"))}
+                : new FileAttribute<?>[0];
+        Path temporaryFile = Files.createTempFile(directory.toPath(), "." + daemonFile.getName() + '.', ".tmp", attributes);
+        try {
+            Properties daemon = new Properties();
+            daemon.setProperty(DaemonProtocol.PORT_PROPERTY_NAME, String.valueOf(localPort));
+            daemon.setProperty(DaemonProtocol.TOKEN_PROPERTY_NAME, token);
+            try (OutputStream output = Files.newOutputStream(temporaryFile)) {
+                daemon.store(output, "text-util daemon");
+            }
+            Files.move(temporaryFile, daemonFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+    }
+
+    /**
+     * The file is deleted only if it is still written by this daemon.
+     */
+    private void deleteDaemonFile() {
+        try {
+            if (daemonFile.exists() && token.equals(DaemonProtocol.readDaemonFile(daemonFile).getProperty(DaemonProtocol.TOKEN_PROPERTY_NAME))) {
+                Files.deleteIfExists(daemonFile.toPath());
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete the daemon file \"{}\".", daemonFile, e);
+        }
+    }
+
+    /**
+     * The configured plugins in the order of their last use, which evicts the least recently used one once it is full.
+     */
+    private static class PluginCache extends LinkedHashMap<String, Configurable> {
+        private static final long serialVersionUID = 1L;
+
+        private PluginCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Configurable> eldest) {
+            return size() > MAX_CACHED_PLUGINS;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.sparkliang.textutil.app;
+
+import org.sparkliang.textutil.api.Configurable;
+import org.sparkliang.textutil.impl.PluginRegistry;
+
+import java.util.Properties;
+
+/**
+ * Provide the configured {@link org.sparkliang.textutil.api.TransformPipe} and {@link org.sparkliang.textutil.api.Transformer} of a run.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+interface PluginProvider {
+
+    /**
+     * Create a new instance for each run, which is what a single run of the program does.
+     */
+    PluginProvider NEW_INSTANCE = new PluginProvider() {
+        @Override
+        public <T extends Configurable> T get(Class<?> clazz, Class<T> implementsClass, Properties configuration, boolean exclusive) {
+            T instance = PluginRegistry.create(clazz, implementsClass);
+            instance.set(configuration);
+            return instance;
+        }
+    };
+
+    /**
+     * @param clazz           The class of the instance, which implements the given interface and has the default constructor.
+     * @param implementsClass The interface of the instance.
+     * @param configuration   The configuration of the run.
+     * @param exclusive       Whether the instance will be changed by the run, so it must not be used by any other run.
+     * @return The instance that has been set by the given configuration.
+     */
+    <T extends Configurable> T get(Class<?> clazz, Class<T> implementsClass, Properties configuration, boolean exclusive);
+}
@@ -0,0 +1,354 @@
+package org.sparkliang.textutil.impl;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sparkliang.textutil.api.SelectiveTransformer;
+import org.sparkliang.textutil.api.TransformProfile;
+import org.sparkliang.textutil.api.Transformer;
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+import org.sparkliang.textutil.metrics.RunMetrics;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+
+/**
+ * The pipe that transforms the entries of an archive, such as a zip, jar or tar file, into an archive of the same format,
+ * without extracting it onto the disk.<br>
+ * The entries are read from the source archive and written into the target archive in their order.
+ * The entries that do not match "pipe.conf.extensions", or that do not need to be transformed by a {@link SelectiveTransformer},
+ * are copied as they are. For a zip file, they are copied in their compressed form, so they are never decompressed or compressed again.
+ * The target archive is written into a temporary file and renamed when it is complete, the same as the other target files.<br>
+ * Configurations:
+ * <p>
+ *     <ul>
+ *         <li>All the configurations of {@link DefaultTransformPipe}. "pipe.conf.extensions" applies on the names of the entries,
+ *         and "pipe.conf.error-policy" decides whether to stop on the first failed entry. The target archive is not written if any entry failed.</li>
+ *         <li>pipe.conf.archive-format: The format of the source archive. The supported values are:
+ *         <ul>
+ *             <li>auto: (default) Tell it by the file name. ".zip", ".jar", ".war" and ".ear" are zip files, ".tar" is a tar file,
+ *             and ".tar.gz" and ".tgz" are gzip compressed tar files. The other sources are transformed the same as {@link DefaultTransformPipe}.</li>
+ *             <li>zip, tar or tar.gz: The source file is an archive of the format, whatever its name is.</li>
+ *         </ul>
+ *         </li>
+ *     </ul>
+ * </p>
+ * The entries to transform are held in memory while they are transformed, and so are all the entries of a tar file for several profiles,
+ * since a tar file can only be read once.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public class ArchiveTransformPipe extends DefaultTransformPipe {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ArchiveTransformPipe.class);
+
+    public static final String ARCHIVE_FORMAT_CONF_NAME = "pipe.conf.archive-format";
+    public static final String FORMAT_AUTO = "auto";
+    public static final String FORMAT_ZIP = "zip";
+    public static final String FORMAT_TAR = "tar";
+    public static final String FORMAT_TAR_GZ = "tar.gz";
+
+    private String archiveFormat = FORMAT_AUTO;
+
+    @Override
+    public void transform(String sourcePath, List<TransformProfile> profiles) {
+        File source = new File(sourcePath);
+        String format = source.isFile() ? getArchiveFormat(source) : null;
+        if (null == format || profiles.isEmpty()) {
+            super.transform(sourcePath, profiles);
+            return;
+        }
+
+        List<Transformer> transformers = new ArrayList<>();
+        List<File> targetFiles = new ArrayList<>();
+        for (TransformProfile profile : profiles) {
+            transformers.add(profile.getTransformer());
+            targetFiles.add(getTargetFile(source, profile.getTargetPath()));
+        }
+        LOGGER.debug("transform the {} archive \"{}\" into {}.", format, source, targetFiles);
+        TargetFileWriter writer = new TargetFileWriter(getFsyncPolicy());
+        TransformErrors errors = new TransformErrors(getErrorPolicy());
+        List<TargetFileWriter.PendingFile> pendingFiles = new ArrayList<>();
+        try {
+            for (File targetFile : targetFiles) {
+                pendingFiles.add(writer.open(targetFile));
+            }
+            if (FORMAT_ZIP.equals(format)) {
+                transformZip(source, pendingFiles, new EntryTransformer(transformers), errors);
+            } else {
+                transformTar(source, FORMAT_TAR_GZ.equals(format), pendingFiles, new EntryTransformer(transformers), errors);
+            }
+            errors.throwIfAny();
+
+            RunMetrics metrics = getMetrics();
+            long writeStart = metrics.startStage();
+            for (TargetFileWriter.PendingFile pendingFile : pendingFiles) {
+                pendingFile.commit();
+            }
+            metrics.endStage(RunMetrics.Stage.WRITE, writeStart);
+        } catch (IOException e) {
+            throw new TextTransformUtilException(e);
+        } finally {
+            for (TargetFileWriter.PendingFile pendingFile : pendingFiles) {
+                IOUtils.closeQuietly(pendingFile);
+            }
+        }
+        finishWriter(writer);
+    }
+
+    /**
+     * @return The format of the source archive, or null if the source is not an archive.
+     */
+    private String getArchiveFormat(File source) {
+        if (!FORMAT_AUTO.equals(archiveFormat)) {
+            return archiveFormat;
+        }
+        String fileName = source.getName().toLowerCase();
+        if (fileName.endsWith(".zip") || fileName.endsWith(".jar") || fileName.endsWith(".war") || fileName.endsWith(".ear")) {
+            return FORMAT_ZIP;
+        }
+        if (fileName.endsWith(".tar")) {
+            return FORMAT_TAR;
+        }
+        if (fileName.endsWith(".tar.gz") || fileName.endsWith(".tgz")) {
+            return FORMAT_TAR_GZ;
+        }
+        return null;
+    }
+
+    /**
+     * A zip file is read by its central directory, so the compressed content of an entry can be copied by
+     * {@link ZipArchiveOutputStream#addRawArchiveEntry(ZipArchiveEntry, InputStream)} without inflating it.
+     * The target is written through its channel, so the sizes of the transformed entries are written into their local headers.
+     */
+    private void transformZip(File source, List<TargetFileWriter.PendingFile> pendingFiles, EntryTransformer entryTransformer, TransformErrors errors) throws IOException {
+        RunMetrics metrics = getMetrics();
+        String[] fileSuffixes = SourceFileWalker.toFileSuffixes(getFileExtensions());
+        try (ZipFile zipFile = ZipFile.builder().setFile(source).get()) {
+            List<ZipArchiveOutputStream> outputs = new ArrayList<>();
+            for (TargetFileWriter.PendingFile pendingFile : pendingFiles) {
+                outputs.add(new ZipArchiveOutputStream(pendingFile.getOutputStream().getChannel()));
+            }
+            for (ZipArchiveEntry entry : Collections.list(zipFile.getEntriesInPhysicalOrder())) {
+                if (errors.shouldStop()) {
+                    break;
+                }
+                long entryStart = metrics.startStage();
+                RunMetrics.Outcome outcome = RunMetrics.Outcome.FAILED;
+                try {
+                    byte[][] transformed = null;
+                    if (!entry.isDirectory() && zipFile.canReadEntryData(entry)
+                            && SourceFileWalker.accepts(entry.getName(), fileSuffixes)) {
+                        transformed = entryTransformer.transform(IOUtils.toByteArray(zipFile.getInputStream(entry)));
+                    }
+                    for (int i = 0; i < outputs.size(); i++) {
+                        ZipArchiveOutputStream output = outputs.get(i);
+                        if (null == transformed || null == transformed[i]) {
+                            long copyStart = metrics.startStage();
+                            output.addRawArchiveEntry(entry, zipFile.getRawInputStream(entry));
+                            metrics.endStage(RunMetrics.Stage.COPY, copyStart);
+                            metrics.recordBytes(entry.getCompressedSize(), entry.getCompressedSize());
+                        } else {
+                            output.putArchiveEntry(createTransformedEntry(entry));
+                            output.write(transformed[i]);
+                            output.closeArchiveEntry();
+                            metrics.recordBytes(entry.getSize(), transformed[i].length);
+                        }
+                    }
+                    outcome = entryTransformer.isAnyTransformed(transformed) ? RunMetrics.Outcome.TRANSFORMED : RunMetrics.Outcome.COPIED;
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.warn("Failed to transform the entry \"{}\" of \"{}\".", entry.getName(), source, e);
+                    errors.record(entry.getName(), e);
+                } finally {
+                    metrics.recordFile(entry.getName(), System.nanoTime() - entryStart, outcome);
+                }
+            }
+            for (ZipArchiveOutputStream output : outputs) {
+                output.finish();
+            }
+        }
+    }
+
+    /**
+     * The transformed entry keeps the name, time, comment and attributes of the source entry, and it is always deflated.
+     */
+    private static ZipArchiveEntry createTransformedEntry(ZipArchiveEntry entry) {
+        ZipArchiveEntry transformedEntry = new ZipArchiveEntry(entry.getName());
+        transformedEntry.setMethod(ZipEntry.DEFLATED);
+        transformedEntry.setTime(entry.getTime());
+        transformedEntry.setComment(entry.getComment());
+        transformedEntry.setInternalAttributes(entry.getInternalAttributes());
+        transformedEntry.setExternalAttributes(entry.getExternalAttributes());
+        return transformedEntry;
+    }
+
+    /**
+     * A tar file can only be read in order, and the size of an entry is written before its content.
+     * So the transformed entries are held in memory to tell their size, while the other entries are streamed into the target,
+     * unless there are several profiles.
+     */
+    private void transformTar(File source, boolean gzip, List<TargetFileWriter.PendingFile> pendingFiles, EntryTransformer entryTransformer, TransformErrors errors) throws IOException {
+        RunMetrics metrics = getMetrics();
+        String[] fileSuffixes = SourceFileWalker.toFileSuffixes(getFileExtensions());
+        InputStream in = new BufferedInputStream(Files.newInputStream(source.toPath()));
+        try (TarArchiveInputStream tarIn = new TarArchiveInputStream(gzip ? new GzipCompressorInputStream(in) : in)) {
+            List<TarArchiveOutputStream> outputs = new ArrayList<>();
+            List<GzipCompressorOutputStream> gzipOutputs = new ArrayList<>();
+            for (TargetFileWriter.PendingFile pendingFile : pendingFiles) {
+                OutputStream out = pendingFile.getOutputStream();
+                if (gzip) {
+                    GzipCompressorOutputStream gzipOutput = new GzipCompressorOutputStream(out);
+                    gzipOutputs.add(gzipOutput);
+                    out = gzipOutput;
+                }
+                TarArchiveOutputStream output = new TarArchiveOutputStream(out);
+                output.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+                output.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+                outputs.add(output);
+            }
+            for (TarArchiveEntry entry = tarIn.getNextEntry(); null != entry; entry = tarIn.getNextEntry()) {
+                if (errors.shouldStop()) {
+                    break;
+                }
+                long entryStart = metrics.startStage();
+                RunMetrics.Outcome outcome = RunMetrics.Outcome.FAILED;
+                try {
+                    byte[] content = null;
+                    byte[][] transformed = null;
+                    if (entry.isFile() && SourceFileWalker.accepts(entry.getName(), fileSuffixes)) {
+                        content = IOUtils.toByteArray(tarIn);
+                        transformed = entryTransformer.transform(content);
+                    } else if (outputs.size() > 1) {
+                        content = IOUtils.toByteArray(tarIn);
+                    }
+                    long sourceSize = entry.getSize();
+                    for (int i = 0; i < outputs.size(); i++) {
+                        TarArchiveOutputStream output = outputs.get(i);
+                        byte[] entryContent = null == transformed || null == transformed[i] ? content : transformed[i];
+                        long copyStart = metrics.startStage();
+                        if (null != entryContent) {
+                            entry.setSize(entryContent.length);
+                        }
+                        output.putArchiveEntry(entry);
+                        if (null == entryContent) {
+                            IOUtils.copyLarge(tarIn, output);
+                        } else {
+                            output.write(entryContent);
+                        }
+                        output.closeArchiveEntry();
+                        if (entryContent == content) {
+                            metrics.endStage(RunMetrics.Stage.COPY, copyStart);
+                        }
+                        metrics.recordBytes(sourceSize, entry.getSize());
+                    }
+                    outcome = entryTransformer.isAnyTransformed(transformed) ? RunMetrics.Outcome.TRANSFORMED : RunMetrics.Outcome.COPIED;
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.warn("Failed to transform the entry \"{}\" of \"{}\".", entry.getName(), source, e);
+                    errors.record(entry.getName(), e);
+                    if (!(e instanceof TextTransformUtilException)) {
+                        // the target archive is broken once an entry is partly written
+                        break;
+                    }
+                } finally {
+                    metrics.recordFile(entry.getName(), System.nanoTime() - entryStart, outcome);
+                }
+            }
+            for (TarArchiveOutputStream output : outputs) {
+                output.finish();
+            }
+            for (GzipCompressorOutputStream gzipOutput : gzipOutputs) {
+                gzipOutput.finish();
+            }
+        }
+    }
+
+    @Override
+    public synchronized void set(Properties conf) {
+        super.set(conf);
+        if (conf.containsKey(ARCHIVE_FORMAT_CONF_NAME)) {
+            String formatConf = conf.getProperty(ARCHIVE_FORMAT_CONF_NAME).trim().toLowerCase();
+            if (!FORMAT_AUTO.equals(formatConf) && !FORMAT_ZIP.equals(formatConf)
+                    && !FORMAT_TAR.equals(formatConf) && !FORMAT_TAR_GZ.equals(formatConf)) {
+                throw new TextTransformUtilException(String.format("Unsupported archive format \"%s\" in \"%s\".", formatConf, ARCHIVE_FORMAT_CONF_NAME));
+            }
+            this.archiveFormat = formatConf;
+            LOGGER.debug("the archive format: {}.", archiveFormat);
+        }
+    }
+
+    /**
+     * Transform the content of an entry for all the profiles.
+     */
+    private class EntryTransformer {
+        private final List<Transformer> transformers;
+
+        private EntryTransformer(List<Transformer> transformers) {
+            this.transformers = transformers;
+        }
+
+        /**
+         * @return The transformed content for each profile, which is null for the profiles that do not need to transform it.
+         */
+        private byte[][] transform(byte[] content) {
+            RunMetrics metrics = getMetrics();
+            byte[][] results = new byte[transformers.size()][];
+            List<Integer> indexes = new ArrayList<>();
+            List<Transformer> transformersToApply = new ArrayList<>();
+            List<OutputStream> outputs = new ArrayList<>();
+            for (int i = 0; i < transformers.size(); i++) {
+                Transformer transformer = transformers.get(i);
+                if (transformer instanceof SelectiveTransformer) {
+                    long scanStart = metrics.startStage();
+                    boolean transformRequired = ((SelectiveTransformer) transformer).isTransformRequired(new ByteArrayInputStream(content));
+                    metrics.endStage(RunMetrics.Stage.SCAN, scanStart);
+                    if (!transformRequired) {
+                        continue;
+                    }
+                }
+                indexes.add(i);
+                transformersToApply.add(transformer);
+                outputs.add(new ByteArrayOutputStream(content.length));
+            }
+            if (!transformersToApply.isEmpty()) {
+                long transformStart = metrics.startStage();
+                applyForProfiles(content, transformersToApply, outputs);
+                metrics.endStage(RunMetrics.Stage.TRANSFORM, transformStart);
+            }
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = ((ByteArrayOutputStream) outputs.get(i)).toByteArray();
+            }
+            return results;
+        }
+
+        private boolean isAnyTransformed(byte[][] transformed) {
+            if (null != transformed) {
+                for (byte[] content : transformed) {
+                    if (null != content) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
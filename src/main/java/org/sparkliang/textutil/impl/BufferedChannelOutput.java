@@ -0,0 +1,86 @@
+package org.sparkliang.textutil.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * The output into a target channel, which is buffered by a direct buffer of a {@link DirectBufferPool}.<br>
+ * The small writes are collected in the buffer and written into the target in blocks of the buffer size.
+ * The writes larger than the buffer, such as the slices of a memory-mapped source, are written into the target directly.
+ * Closing it flushes the buffer and returns it to the pool, but the target is not closed.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class BufferedChannelOutput implements WritableByteChannel {
+    private final WritableByteChannel target;
+    private final DirectBufferPool pool;
+    private ByteBuffer buffer;
+
+    BufferedChannelOutput(WritableByteChannel target, DirectBufferPool pool) {
+        this.target = target;
+        this.pool = pool;
+        this.buffer = pool.acquire();
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (null == buffer) {
+            throw new ClosedChannelException();
+        }
+        int length = src.remaining();
+        if (length >= buffer.capacity()) {
+            flush();
+            writeFully(src);
+            return length;
+        }
+        if (length > buffer.remaining()) {
+            flush();
+        }
+        buffer.put(src);
+        return length;
+    }
+
+    /**
+     * @return The stream for the transformers that only write into a stream. The bytes written are buffered the same,
+     * and closing the stream closes this output.
+     */
+    OutputStream asOutputStream() {
+        return Channels.newOutputStream(this);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            target.write(src);
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return null != buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (null == buffer) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            pool.release(buffer);
+            buffer = null;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package org.sparkliang.textutil.impl;
+
+import org.sparkliang.textutil.api.PluginLibrary;
+
+/**
+ * The plugins of this program.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public class BuiltinPluginLibrary implements PluginLibrary {
+
+    @Override
+    public void register(Registrar registrar) {
+        registrar.register("default", DefaultTransformPipe.class, DefaultTransformPipe::new);
+        registrar.register("archive", ArchiveTransformPipe.class, ArchiveTransformPipe::new);
+        registrar.register("xml", DefaultXMLParameterFileTransformer.class, DefaultXMLParameterFileTransformer::new);
+        registrar.register("placeholder", PlaceholderTransformer.class, PlaceholderTransformer::new);
+        registrar.register("regex", RegexReplaceTransformer.class, RegexReplaceTransformer::new);
+        registrar.register("chain", CompositeTransformer.class, CompositeTransformer::new);
+    }
+}
@@ -0,0 +1,259 @@
+package org.sparkliang.textutil.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sparkliang.textutil.api.AbstractStreamBasedTransformer;
+import org.sparkliang.textutil.api.Fingerprintable;
+import org.sparkliang.textutil.api.MetricsAware;
+import org.sparkliang.textutil.api.Transformer;
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+import org.sparkliang.textutil.metrics.RunMetrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The transformer that chains several transformers in one run. The output of each stage is streamed into the next stage,
+ * so there is no intermediate file and the content is never held in memory as a whole between the stages.<br>
+ * Each stage except the last one runs on a worker thread, and the last one runs on the thread that calls the transformer.
+ * Configurations:
+ * <p>
+ *     <ul>
+ *         <li>transformer.chain.stages: The class names or the aliases of the stages in order, separated by comma ",". It is required.</li>
+ *         <li>transformer.chain.&lt;index&gt;.*: The configuration that only applies on the stage at the given index, starting from 0.
+ *         For example, "transformer.chain.1.transformer.conf.mode=stax" sets "transformer.conf.mode=stax" on the second stage.
+ *         All the other configurations apply on all the stages.</li>
+ *         <li>transformer.chain.buffer-size: The size in bytes of each buffer handed over between two stages. The default value is 65536.</li>
+ *         <li>transformer.chain.buffer-count: The number of buffers between two stages. The default value is 4.</li>
+ *     </ul>
+ * </p>
+ * If a stage fails, the stages before it are stopped, and the failure of the stage that failed on its own is reported,
+ * rather than the failures of the stages stopped by it.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public class CompositeTransformer extends AbstractStreamBasedTransformer implements Fingerprintable, MetricsAware {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompositeTransformer.class);
+
+    public static final String CHAIN_CONF_PREFIX = "transformer.chain.";
+    public static final String STAGES_CONF_NAME = CHAIN_CONF_PREFIX + "stages";
+    public static final String STAGES_SEPARATOR = ",";
+    public static final String BUFFER_SIZE_CONF_NAME = CHAIN_CONF_PREFIX + "buffer-size";
+    public static final String BUFFER_COUNT_CONF_NAME = CHAIN_CONF_PREFIX + "buffer-count";
+
+    /**
+     * The threads of the stages, shared by all the chains, so a chain discarded or evicted by the daemon leaves no thread behind.
+     * The idle threads end after a minute.
+     */
+    private static final ExecutorService STAGE_EXECUTOR = Executors.newCachedThreadPool(new DaemonThreadFactory("text-util-chain-stage-"));
+
+    private final Properties configuration = new Properties();
+    private volatile List<Transformer> stages = Collections.emptyList();
+    private volatile int bufferSize = 64 * 1024;
+    private volatile int bufferCount = 4;
+    private volatile RunMetrics metrics = RunMetrics.DISABLED;
+
+    @Override
+    public void apply(InputStream input, OutputStream output) {
+        List<Transformer> stages = this.stages;
+        if (stages.isEmpty()) {
+            throw new TextTransformUtilException(String.format("No stage is configured in \"%s\".", STAGES_CONF_NAME));
+        }
+        int lastStage = stages.size() - 1;
+        List<StreamHandoff> handoffs = new ArrayList<>(lastStage);
+        List<Future<?>> stageResults = new ArrayList<>(lastStage);
+        InputStream stageInput = input;
+        for (int i = 0; i < lastStage; i++) {
+            StreamHandoff handoff = new StreamHandoff(bufferSize, bufferCount);
+            Transformer stage = stages.get(i);
+            StreamHandoff inputHandoff = 0 == i ? null : handoffs.get(i - 1);
+            InputStream in = stageInput;
+            stageResults.add(STAGE_EXECUTOR.submit(() -> runStage(stage, in, inputHandoff, handoff)));
+            handoffs.add(handoff);
+            stageInput = handoff.getInputStream();
+        }
+
+        RuntimeException lastStageFailure = null;
+        try {
+            stages.get(lastStage).apply(stageInput, output);
+            if (lastStage > 0) {
+                closeInput(stageInput);
+            }
+        } catch (RuntimeException e) {
+            lastStageFailure = e;
+            if (lastStage > 0) {
+                handoffs.get(lastStage - 1).abort();
+            }
+        }
+        awaitStages(stageResults, lastStageFailure);
+    }
+
+    /**
+     * Run a stage on a worker thread. The output is closed to tell the next stage the end of the content,
+     * and the rest of the input is discarded, since the stage might not read its input to the end.
+     */
+    private static void runStage(Transformer stage, InputStream input, StreamHandoff inputHandoff, StreamHandoff outputHandoff) {
+        try {
+            stage.apply(input, outputHandoff.getOutputStream());
+            outputHandoff.getOutputStream().close();
+        } catch (IOException | RuntimeException e) {
+            outputHandoff.fail(e);
+            if (null != inputHandoff) {
+                inputHandoff.abort();
+            }
+            throw e instanceof RuntimeException ? (RuntimeException) e : new TextTransformUtilException(e);
+        }
+        if (null != inputHandoff) {
+            closeInput(input);
+        }
+    }
+
+    private static void closeInput(InputStream input) {
+        try {
+            input.close();
+        } catch (IOException e) {
+            LOGGER.debug("unable to close the input of the stage.", e);
+        }
+    }
+
+    /**
+     * Wait for all the stages on the worker threads. The failure of a stage makes the stages after it fail by reading the failure,
+     * and the stages before it fail by writing to the aborted input of it. So the reported failure is the earliest one not caused by an abort,
+     * which the failures after it are caused by, and the others are suppressed by it.
+     */
+    private static void awaitStages(List<Future<?>> stageResults, RuntimeException lastStageFailure) {
+        List<Integer> failedStages = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int i = 0; i < stageResults.size(); i++) {
+            try {
+                stageResults.get(i).get();
+            } catch (ExecutionException e) {
+                failedStages.add(i);
+                failures.add(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TextTransformUtilException("Interrupted while waiting for the stages of the chain.", e);
+            }
+        }
+        if (null != lastStageFailure) {
+            if (failures.isEmpty()) {
+                throw lastStageFailure;
+            }
+            failedStages.add(stageResults.size());
+            failures.add(lastStageFailure);
+        }
+        if (failures.isEmpty()) {
+            return;
+        }
+        int reported = 0;
+        while (reported < failures.size() - 1 && StreamHandoff.isCausedByAbort(failures.get(reported))) {
+            reported++;
+        }
+        TextTransformUtilException failure = new TextTransformUtilException(
+                String.format("The stage %d of the chain failed.", failedStages.get(reported)), failures.get(reported));
+        for (int i = 0; i < failures.size(); i++) {
+            if (i != reported) {
+                failure.addSuppressed(failures.get(i));
+            }
+        }
+        throw failure;
+    }
+
+    @Override
+    public synchronized void set(Properties conf) {
+        configuration.putAll(conf);
+        if (conf.containsKey(BUFFER_SIZE_CONF_NAME)) {
+            this.bufferSize = ConfigurationValues.getPositiveInt(configuration, BUFFER_SIZE_CONF_NAME);
+        }
+        if (conf.containsKey(BUFFER_COUNT_CONF_NAME)) {
+            this.bufferCount = ConfigurationValues.getPositiveInt(configuration, BUFFER_COUNT_CONF_NAME);
+        }
+        String stagesConf = configuration.getProperty(STAGES_CONF_NAME);
+        if (null == stagesConf) {
+            return;
+        }
+        List<Transformer> stages = new ArrayList<>();
+        for (String className : stagesConf.split(STAGES_SEPARATOR)) {
+            if (!className.trim().isEmpty()) {
+                stages.add(createStage(className.trim()));
+            }
+        }
+        for (int i = 0; i < stages.size(); i++) {
+            Transformer stage = stages.get(i);
+            stage.set(getStageConfiguration(i));
+            if (stage instanceof MetricsAware) {
+                ((MetricsAware) stage).setMetrics(metrics);
+            }
+        }
+        LOGGER.debug("chain the stages: {}.", stages);
+        this.stages = Collections.unmodifiableList(stages);
+    }
+
+    private static Transformer createStage(String name) {
+        return PluginRegistry.create(PluginRegistry.resolve(name, Transformer.class), Transformer.class);
+    }
+
+    /**
+     * The configuration of the stage is all the configuration outside the chain, overridden by the configuration of the stage.
+     */
+    private Properties getStageConfiguration(int index) {
+        Properties stageConf = new Properties();
+        String stagePrefix = CHAIN_CONF_PREFIX + index + ".";
+        for (String name : configuration.stringPropertyNames()) {
+            if (!name.startsWith(CHAIN_CONF_PREFIX)) {
+                stageConf.setProperty(name, configuration.getProperty(name));
+            }
+        }
+        for (String name : configuration.stringPropertyNames()) {
+            if (name.startsWith(stagePrefix)) {
+                stageConf.setProperty(name.substring(stagePrefix.length()), configuration.getProperty(name));
+            }
+        }
+        return stageConf;
+    }
+
+    /**
+     * The stages that are unable to tell their fingerprint are identified by their own configuration.
+     */
+    @Override
+    public String getFingerprint() {
+        List<String> values = new ArrayList<>();
+        List<Transformer> stages = this.stages;
+        for (int i = 0; i < stages.size(); i++) {
+            Transformer stage = stages.get(i);
+            values.add(stage.getClass().getName());
+            if (stage instanceof Fingerprintable) {
+                values.add(((Fingerprintable) stage).getFingerprint());
+            } else {
+                Properties stageConf = getStageConfiguration(i);
+                for (String name : new TreeSet<>(stageConf.stringPropertyNames())) {
+                    values.add(name);
+                    values.add(stageConf.getProperty(name));
+                }
+            }
+        }
+        return Hashes.hashStrings(values);
+    }
+
+    @Override
+    public void setMetrics(RunMetrics metrics) {
+        this.metrics = metrics;
+        for (Transformer stage : stages) {
+            if (stage instanceof MetricsAware) {
+                ((MetricsAware) stage).setMetrics(metrics);
+            }
+        }
+    }
+}
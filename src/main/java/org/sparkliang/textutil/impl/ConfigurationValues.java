@@ -0,0 +1,35 @@
+package org.sparkliang.textutil.impl;
+
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+
+import java.util.Properties;
+
+/**
+ * The helper to parse the values of the configurations shared by the pipes and the transformers.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+final class ConfigurationValues {
+
+    private ConfigurationValues() {
+    }
+
+    /**
+     * @return The value of the configuration, which should be an integer not less than 1.
+     */
+    static int getPositiveInt(Properties conf, String name) {
+        String valueConf = conf.getProperty(name).trim();
+        int value;
+        try {
+            value = Integer.parseInt(valueConf);
+        } catch (NumberFormatException e) {
+            throw new TextTransformUtilException(String.format("Invalid value \"%s\" of \"%s\".", valueConf, name), e);
+        }
+        if (value < 1) {
+            throw new TextTransformUtilException(String.format("The value of \"%s\" should be at least 1.", name));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,31 @@
+package org.sparkliang.textutil.impl;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The factory of the daemon threads named by a prefix followed by their number, so the pools never keep the JVM alive
+ * and their threads are easy to tell in a thread dump.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public final class DaemonThreadFactory implements ThreadFactory {
+    private final AtomicInteger threadNumber = new AtomicInteger(1);
+    private final String namePrefix;
+
+    /**
+     * @param namePrefix The prefix of the thread names, such as "text-util-pipe-1-worker-".
+     */
+    public DaemonThreadFactory(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, namePrefix + threadNumber.getAndIncrement());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
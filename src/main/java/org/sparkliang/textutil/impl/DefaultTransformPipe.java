@@ -3,16 +3,48 @@ package org.sparkliang.textutil.impl;
 import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.sparkliang.textutil.api.TransformPipe;
+import org.sparkliang.textutil.api.CacheableTransformer;
+import org.sparkliang.textutil.api.ChannelTransformer;
+import org.sparkliang.textutil.api.FanOutTransformer;
+import org.sparkliang.textutil.api.Fingerprintable;
+import org.sparkliang.textutil.api.MetricsAware;
+import org.sparkliang.textutil.api.SelectiveTransformer;
+import org.sparkliang.textutil.api.TransformProfile;
 import org.sparkliang.textutil.api.Transformer;
+import org.sparkliang.textutil.api.WatchableTransformPipe;
 import org.sparkliang.textutil.exception.TextTransformUtilException;
+import org.sparkliang.textutil.metrics.RunMetrics;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Collection;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 
 /**
@@ -21,83 +53,940 @@ import java.util.Properties;
  * <p>
  *     <ul>
  *         <li>pipe.conf.extensions: The file extensions of the files that need to transform. We separate the multiple extension by comma ",".</li>
+ *         <li>pipe.conf.parallelism: The number of files that transformed at the same time. The default value is 1.</li>
+ *         <li>pipe.conf.queue-capacity: The directory is walked while the files found are being transformed.
+ *         This is the maximum number of files that found but not yet transformed. The default value is 1024.</li>
+ *         <li>pipe.conf.schedule: The order to transform the files found. The supported values are:
+ *         <ul>
+ *             <li>largest-first: (default) The largest file in the queue is transformed first, so the large files do not run alone at the end.</li>
+ *             <li>walk-order: The files are transformed in the order they are found.</li>
+ *         </ul>
+ *         </li>
+ *         <li>pipe.conf.heap-budget-mb: The files running at the same time never take more than this heap in MiB by their estimated cost,
+ *         so a high parallelism does not run out of memory on the large files. A file larger than the whole budget runs alone.
+ *         The default value is half of the maximum heap.</li>
+ *         <li>pipe.conf.heap-cost-factor: The estimated heap cost of a file is its size multiplied by this factor.
+ *         The default value is 8, which suits the dom mode of {@link DefaultXMLParameterFileTransformer}.
+ *         A streaming transformer takes much less.</li>
+ *         <li>pipe.conf.error-policy: How to handle the files that failed to transform. The supported values are:
+ *         <ul>
+ *             <li>fail-fast: (default) Stop transforming the remaining files once a file failed.</li>
+ *             <li>collect-all: Transform all the files and report all the failed files at the end.</li>
+ *         </ul>
+ *         In both cases, the failed files are reported in the order of their relative path.
+ *         </li>
+ *         <li>pipe.conf.incremental: If it is true, the files whose source content and configuration are not changed since the last run are skipped.
+ *         The state of the last run is kept in the file ".text-util-manifest" in the target directory.
+ *         It only applies when the source is a directory. The default value is false.</li>
+ *         <li>pipe.conf.dedup: How to handle the source files of the same content, such as the parameter files copied across the workflows.
+ *         The supported values are:
+ *         <ul>
+ *             <li>none: (default) Transform each file.</li>
+ *             <li>hard-link: Transform each content once, and make the target files of the other files of the same content
+ *             the hard links of its target files. It falls back to copy when the file system is unable to link them.
+ *             Since the linked files share their content, they should not be edited in place after the run.</li>
+ *             <li>copy: Transform each content once, and copy its target files for the other files of the same content.</li>
+ *         </ul>
+ *         The source files are hashed to find the same content. It only applies when the source is a directory,
+ *         and the number of the files and the bytes not transformed again are reported at the end of the run.
+ *         </li>
+ *         <li>pipe.conf.cache-dir: The directory of the transform cache, which keeps the transformed contents on the local disk,
+ *         so the same content transformed with the same values again, such as by another job on the same host, is loaded instead.
+ *         The key of the cache is the hash of the source content, the class of the transformer, and the configuration that applies on the content.
+ *         For a {@link CacheableTransformer}, it is only the part of the configuration that the content refers to,
+ *         and it is found without parsing the content. The other transformers are only cached if they are {@link Fingerprintable}.
+ *         The directory can be shared by the processes running at the same time. There is no cache by default.</li>
+ *         <li>pipe.conf.cache-size-mb: The maximum size of the transform cache in MiB.
+ *         The least recently used contents are evicted once it is exceeded. The default value is 1024.</li>
+ *         <li>pipe.conf.fsync: Each target file is written into a temporary file and renamed when it is complete,
+ *         so a crash never leaves a half-written target file. This is how the written files are made durable:
+ *         <ul>
+ *             <li>none: (default) Leave it to the operating system.</li>
+ *             <li>per-file: Call fsync on each file and its directory when it is renamed.</li>
+ *             <li>batch: Keep the files complete until the end of the run, and then call fsync on all of them, rename them and call fsync on their directories.
+ *             The target files are only replaced at the end of the run.</li>
+ *         </ul>
+ *         </li>
+ *         <li>pipe.conf.mmap-threshold: The size in bytes from which the source file is mapped into memory for a {@link ChannelTransformer},
+ *         instead of being read by a stream. The default value is 1048576.
+ *         The mapping of a file is only released when its buffer is collected by the GC, so across a large tree the mappings can build up
+ *         against the address space and "vm.max_map_count" until the GC runs, and on Windows the source file stays locked until then.
+ *         Raise the threshold to read more files by the streams if it happens.</li>
+ *         <li>pipe.conf.watch-debounce-millis: In the watch mode, the changes are collected until there is no change for this time,
+ *         and then the changed files are transformed together. The default value is 200.</li>
  *     </ul>
  * </p>
  * <p>
+ * The same source can be transformed for several profiles in one run by {@link #transform(String, List)}.
+ * Each source file is read once, and it is parsed once if the transformers are {@link FanOutTransformer}.
+ * The configurations above are shared by all the profiles, while the incremental manifest is kept in the target of each profile.
+ * </p>
+ * <p>
+ * In the watch mode of {@link #watch(String, List)}, only the files changed in the source are transformed again, and the target files of
+ * the deleted sources are deleted. The failed files are logged instead of stopping the watch, and transformed again once they are changed.
+ * </p>
+ * <p>
  * The we can filter the files we need to transform by the file extension. If we
  *
  * @author spark
  * @date 2020-04-07
  * @since 1.0
  */
-public class DefaultTransformPipe implements TransformPipe {
+public class DefaultTransformPipe implements WatchableTransformPipe, MetricsAware {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultTransformPipe.class);
 
     public static final String EXTENSIONS_CONF_NAME = "pipe.conf.extensions";
     public static final String EXTENSIONS_SEPARATOR = ",";
+    public static final String PARALLELISM_CONF_NAME = "pipe.conf.parallelism";
+    public static final String QUEUE_CAPACITY_CONF_NAME = "pipe.conf.queue-capacity";
+    public static final String SCHEDULE_CONF_NAME = "pipe.conf.schedule";
+    public static final String SCHEDULE_LARGEST_FIRST = "largest-first";
+    public static final String SCHEDULE_WALK_ORDER = "walk-order";
+    public static final String HEAP_BUDGET_CONF_NAME = "pipe.conf.heap-budget-mb";
+    public static final String HEAP_COST_FACTOR_CONF_NAME = "pipe.conf.heap-cost-factor";
+    public static final String INCREMENTAL_CONF_NAME = "pipe.conf.incremental";
+    public static final String DEDUP_CONF_NAME = "pipe.conf.dedup";
+    public static final String DEDUP_NONE = "none";
+    public static final String DEDUP_HARD_LINK = "hard-link";
+    public static final String DEDUP_COPY = "copy";
+    public static final String CACHE_DIR_CONF_NAME = "pipe.conf.cache-dir";
+    public static final String CACHE_SIZE_CONF_NAME = "pipe.conf.cache-size-mb";
+    public static final String FSYNC_CONF_NAME = "pipe.conf.fsync";
+    public static final String FSYNC_NONE = TargetFileWriter.FSYNC_NONE;
+    public static final String FSYNC_PER_FILE = TargetFileWriter.FSYNC_PER_FILE;
+    public static final String FSYNC_BATCH = TargetFileWriter.FSYNC_BATCH;
+    public static final String ERROR_POLICY_CONF_NAME = "pipe.conf.error-policy";
+    public static final String ERROR_POLICY_FAIL_FAST = TransformErrors.FAIL_FAST;
+    public static final String ERROR_POLICY_COLLECT_ALL = TransformErrors.COLLECT_ALL;
+    public static final String WATCH_DEBOUNCE_CONF_NAME = "pipe.conf.watch-debounce-millis";
+    public static final String MMAP_THRESHOLD_CONF_NAME = "pipe.conf.mmap-threshold";
+    public static final String DEFAULT_PROFILE_NAME = "default";
+
+    /**
+     * The larger source files are read once for each profile, instead of being held in memory.
+     */
+    static final long MAX_BUFFERED_SOURCE_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * The buffers of the target files, which are shared by all the pipes.
+     */
+    private static final DirectBufferPool OUTPUT_BUFFERS = new DirectBufferPool(64 * 1024, 64);
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger(1);
 
     private String[] fileExtensions = null;
+    private int parallelism = 1;
+    private int queueCapacity = 1024;
+    private String schedule = SCHEDULE_LARGEST_FIRST;
+    private long heapBudget = Runtime.getRuntime().maxMemory() / 2;
+    private int heapCostFactor = 8;
+    private String errorPolicy = ERROR_POLICY_FAIL_FAST;
+    private boolean incremental = false;
+    private String dedup = DEDUP_NONE;
+    private String cacheDirectory = null;
+    private long cacheMaxSize = 1024L * 1024 * 1024;
+    /**
+     * The cache opened on the first use, and dropped when the cache is configured again.
+     * It holds no open file between the uses, since the lock file is only open during an eviction.
+     */
+    private TransformCache cache = null;
+    private String fsyncPolicy = FSYNC_NONE;
+    private int watchDebounceMillis = 200;
+    private int mmapThreshold = 1024 * 1024;
+    private final Properties configuration = new Properties();
+    private volatile RunMetrics metrics = RunMetrics.DISABLED;
 
     @Override
     public void transform(String sourcePath, String targetPath, Transformer transformer) {
+        transform(sourcePath, Collections.singletonList(new TransformProfile(DEFAULT_PROFILE_NAME, targetPath, transformer)));
+    }
 
-        File source = new File(sourcePath), target = new File(targetPath);
+    @Override
+    public void transform(String sourcePath, List<TransformProfile> profiles) {
+        if (profiles.isEmpty()) {
+            throw new TextTransformUtilException("There should be at least one profile to transform.");
+        }
+        File source = new File(sourcePath);
         if (!source.exists()) {
             throw new TextTransformUtilException(String.format("The given source path \"%s\"is not exists!", sourcePath));
         }
 
+        List<Transformer> transformers = new ArrayList<>();
+        for (TransformProfile profile : profiles) {
+            transformers.add(profile.getTransformer());
+        }
         if (source.isFile()) {
-            try (InputStream in = FileUtils.openInputStream(source)) {
-                File targetFile;
-                if (target.isFile()) {
-                    targetFile = target;
-                } else {
-                    if (!target.exists() && !target.mkdirs()) {
-                        throw new TextTransformUtilException(String.format("The target path \"\" is not exists and we unable to create this path.", targetPath));
-                    }
-                    targetFile = new File(target, source.getName());
-                }
-                try (OutputStream out = FileUtils.openOutputStream(targetFile)) {
-                    transformer.apply(in, out);
-                }
+            List<File> targetFiles = new ArrayList<>();
+            for (TransformProfile profile : profiles) {
+                targetFiles.add(getTargetFile(source, profile.getTargetPath()));
+            }
+            TargetFileWriter writer = new TargetFileWriter(fsyncPolicy);
+            long fileStart = metrics.startStage();
+            RunMetrics.Outcome outcome = RunMetrics.Outcome.FAILED;
+            try {
+                outcome = transformFile(source, targetFiles, transformers, writer);
             } catch (IOException e) {
                 throw new TextTransformUtilException(e);
+            } finally {
+                metrics.recordFile(source.getName(), System.nanoTime() - fileStart, outcome);
             }
+            finishWriter(writer);
         } else {
-            String sourceAbsolutePath = source.getAbsolutePath();
-            if (!target.exists()) {
-                if (!target.mkdirs()) {
-                    throw new TextTransformUtilException(String.format("The target path \"\" is not exists and we unable to create this path.", targetPath));
+            List<File> targets = new ArrayList<>();
+            for (TransformProfile profile : profiles) {
+                File target = new File(profile.getTargetPath());
+                if (!target.exists()) {
+                    if (!target.mkdirs()) {
+                        throw new TextTransformUtilException(String.format("The target path \"%s\" is not exists and we unable to create this path.", profile.getTargetPath()));
+                    }
+                }
+                targets.add(target);
+            }
+            transformDirectory(source, targets, transformers);
+        }
+    }
+
+    static File getTargetFile(File source, String targetPath) {
+        File target = new File(targetPath);
+        if (target.isFile()) {
+            return target;
+        }
+        if (!target.exists() && !target.mkdirs()) {
+            throw new TextTransformUtilException(String.format("The target path \"%s\" is not exists and we unable to create this path.", targetPath));
+        }
+        return new File(target, source.getName());
+    }
+
+    private void transformDirectory(File source, List<File> targets, List<Transformer> transformers) {
+        DirectoryRun run = new DirectoryRun(source.toPath().toAbsolutePath(), targets, transformers, errorPolicy, incremental);
+        runWorkers(run, queue -> {
+            long walkStart = metrics.startStage();
+            new SourceFileWalker(run.sourceRoot, fileExtensions, queue, run.errors).walk();
+            metrics.endStage(RunMetrics.Stage.LIST, walkStart);
+        });
+        run.errors.throwIfAny();
+    }
+
+    /**
+     * Start the workers of the run, and wait for them after the producer has put all the files into the queue and ended it.
+     */
+    private void runWorkers(DirectoryRun run, Consumer<SourceFileQueue> producer) {
+        SourceFileQueue queue = new SourceFileQueue(queueCapacity, SCHEDULE_LARGEST_FIRST.equals(schedule), heapBudget, heapCostFactor);
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                new DaemonThreadFactory("text-util-pipe-" + POOL_NUMBER.getAndIncrement() + "-worker-"));
+        boolean produced = false;
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                executor.execute(() -> run.consumeSourceFiles(queue));
+            }
+            producer.accept(queue);
+            produced = true;
+        } finally {
+            if (!produced) {
+                // the workers will never get the end marker
+                executor.shutdownNow();
+            }
+            awaitWorkers(executor);
+            run.finish();
+        }
+    }
+
+    /**
+     * The watcher is registered before the first transform, so the files changed during the first transform are not missed.
+     * The failed files are only logged, since they are transformed again once they are fixed.
+     */
+    @Override
+    public void watch(String sourcePath, List<TransformProfile> profiles) {
+        File source = new File(sourcePath);
+        if (!source.isDirectory()) {
+            throw new TextTransformUtilException(String.format("The watch mode only applies when the source path \"%s\" is a directory.", sourcePath));
+        }
+        Path sourceRoot = source.toPath().toAbsolutePath();
+        List<File> targets = new ArrayList<>();
+        List<Path> targetRoots = new ArrayList<>();
+        List<Transformer> transformers = new ArrayList<>();
+        for (TransformProfile profile : profiles) {
+            targets.add(new File(profile.getTargetPath()));
+            targetRoots.add(new File(profile.getTargetPath()).toPath().toAbsolutePath());
+            transformers.add(profile.getTransformer());
+        }
+
+        try (SourceTreeWatcher watcher = new SourceTreeWatcher(sourceRoot, targetRoots)) {
+            transformAndLogErrors(sourcePath, profiles);
+            LOGGER.info("watching \"{}\" for changes.", sourceRoot);
+            while (true) {
+                SourceTreeWatcher.Changes changes = watcher.awaitChanges(watchDebounceMillis);
+                if (changes.isOverflowed()) {
+                    LOGGER.warn("some changes of \"{}\" are lost, transform the whole source again.", sourceRoot);
+                    transformAndLogErrors(sourcePath, profiles);
+                } else {
+                    transformChanges(sourceRoot, targets, transformers, changes);
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new TextTransformUtilException(e);
+        } catch (TextTransformUtilException e) {
+            if (!Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+        }
+        LOGGER.info("stopped watching \"{}\".", sourceRoot);
+    }
 
-            Collection<File> sourceFilePaths = FileUtils.listFiles(source, fileExtensions, true);
+    private void transformAndLogErrors(String sourcePath, List<TransformProfile> profiles) {
+        try {
+            transform(sourcePath, profiles);
+        } catch (TextTransformUtilException e) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw e;
+            }
+            LOGGER.error("Failed to transform \"{}\". The failed files will be transformed again once they are changed.", sourcePath, e);
+        }
+    }
 
+    /**
+     * Transform the changed files by the workers as a directory run does, and delete the target files of the deleted sources.
+     */
+    private void transformChanges(Path sourceRoot, List<File> targets, List<Transformer> transformers, SourceTreeWatcher.Changes changes) {
+        String[] fileSuffixes = SourceFileWalker.toFileSuffixes(fileExtensions);
+        List<Path> changedFiles = new ArrayList<>();
+        for (Path changedFile : changes.getChangedFiles()) {
+            if (SourceFileWalker.accepts(changedFile, fileSuffixes)) {
+                changedFiles.add(changedFile);
+            }
+        }
+        if (!changedFiles.isEmpty()) {
+            // the manifests only know the files of a whole run, so they are not used for the changes
+            DirectoryRun run = new DirectoryRun(sourceRoot, targets, transformers, ERROR_POLICY_COLLECT_ALL, false);
+            runWorkers(run, queue -> {
+                try {
+                    for (Path changedFile : changedFiles) {
+                        queue.put(changedFile, changedFile.toFile().length());
+                    }
+                    queue.end();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new TextTransformUtilException("Interrupted while transforming the changed files.", e);
+                }
+            });
+            LOGGER.info("transformed {} changed file(s).", changedFiles.size());
             try {
-                for (File sourceFile : sourceFilePaths) {
-                    String pathRelativeToSource = sourceFile.getAbsolutePath().substring(sourceAbsolutePath.length() + 1);
-                    File targetFile = new File(target, pathRelativeToSource);
-                    try (InputStream in = FileUtils.openInputStream(sourceFile)) {
-                        try (OutputStream out = FileUtils.openOutputStream(targetFile)) {
-                            transformer.apply(in, out);
-                        }
+                run.errors.throwIfAny();
+            } catch (TextTransformUtilException e) {
+                LOGGER.error("{} The failed files will be transformed again once they are changed.", e.getMessage());
+            }
+        }
+
+        int deletedCount = 0;
+        for (Path deletedPath : changes.getDeletedPaths()) {
+            String pathRelativeToSource = sourceRoot.relativize(deletedPath).toString();
+            if (pathRelativeToSource.isEmpty()) {
+                // the source itself is deleted, which never deletes the whole target
+                continue;
+            }
+            for (File target : targets) {
+                deletedCount += deleteTargetFiles(new File(target, pathRelativeToSource).toPath(), fileSuffixes);
+            }
+        }
+        if (deletedCount > 0) {
+            LOGGER.info("deleted {} target file(s) whose source is deleted.", deletedCount);
+        }
+    }
+
+    /**
+     * Delete the target files of a deleted source file or directory. Only the files with the extensions that the pipe transforms are deleted,
+     * so the other files placed into the target are kept.
+     *
+     * @return The number of files deleted.
+     */
+    private static int deleteTargetFiles(Path target, String[] fileSuffixes) {
+        if (!Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+            return 0;
+        }
+        AtomicInteger deletedCount = new AtomicInteger();
+        try {
+            Files.walkFileTree(target, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    if (attrs.isRegularFile() && SourceFileWalker.accepts(file, fileSuffixes)) {
+                        Files.delete(file);
+                        deletedCount.incrementAndGet();
                     }
+                    return FileVisitResult.CONTINUE;
                 }
-            } catch (IOException e) {
-                throw new TextTransformUtilException(e);
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    try {
+                        Files.delete(dir);
+                    } catch (DirectoryNotEmptyException e) {
+                        LOGGER.debug("keep the directory \"{}\" which has other files.", dir);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete the target \"{}\".", target, e);
+        }
+        return deletedCount.get();
+    }
+
+    /**
+     * Transform the source into the target file of each profile.
+     * The source is read once for all the profiles, unless it is too large to be held in memory.
+     *
+     * @return {@link RunMetrics.Outcome#COPIED} if the source does not need to be transformed for any profile, otherwise {@link RunMetrics.Outcome#TRANSFORMED}.
+     */
+    private RunMetrics.Outcome transformFile(File sourceFile, List<File> targetFiles, List<Transformer> transformers, TargetFileWriter writer) throws IOException {
+        if (1 == targetFiles.size()) {
+            return transformFile(sourceFile, targetFiles.get(0), transformers.get(0), writer);
+        }
+        if (sourceFile.length() <= MAX_BUFFERED_SOURCE_SIZE) {
+            return transformBuffered(sourceFile, targetFiles, transformers, writer);
+        }
+        RunMetrics.Outcome outcome = RunMetrics.Outcome.COPIED;
+        for (int i = 0; i < targetFiles.size(); i++) {
+            if (RunMetrics.Outcome.TRANSFORMED == transformFile(sourceFile, targetFiles.get(i), transformers.get(i), writer)) {
+                outcome = RunMetrics.Outcome.TRANSFORMED;
             }
         }
+        return outcome;
+    }
+
+    /**
+     * Read the source into memory once. Each profile that does not need to transform it gets a copy of the bytes,
+     * the ones in the transform cache are loaded from it, and the others are transformed together by {@link #applyForProfiles(byte[], List, List)}.
+     */
+    private RunMetrics.Outcome transformBuffered(File sourceFile, List<File> targetFiles, List<Transformer> transformers, TargetFileWriter writer) throws IOException {
+        LOGGER.debug("transform \"{}\" into {}.", sourceFile, targetFiles);
+        byte[] content = FileUtils.readFileToByteArray(sourceFile);
+        List<TargetFileWriter.PendingFile> pendingFiles = new ArrayList<>();
+        try {
+            List<Transformer> transformersToApply = new ArrayList<>();
+            List<OutputStream> outputs = new ArrayList<>();
+            List<TargetFileWriter.PendingFile> pendingFilesToApply = new ArrayList<>();
+            List<String> cacheKeys = new ArrayList<>();
+            TransformCache transformCache = getCache();
+            int cachedCount = 0;
+            for (int i = 0; i < targetFiles.size(); i++) {
+                TargetFileWriter.PendingFile pendingFile = writer.open(targetFiles.get(i));
+                pendingFiles.add(pendingFile);
+                Transformer transformer = transformers.get(i);
+                if (transformer instanceof SelectiveTransformer) {
+                    long scanStart = metrics.startStage();
+                    boolean transformRequired = ((SelectiveTransformer) transformer).isTransformRequired(new ByteArrayInputStream(content));
+                    metrics.endStage(RunMetrics.Stage.SCAN, scanStart);
+                    if (!transformRequired) {
+                        long copyStart = metrics.startStage();
+                        pendingFile.getOutputStream().write(content);
+                        metrics.endStage(RunMetrics.Stage.COPY, copyStart);
+                        continue;
+                    }
+                }
+                String cacheKey = null;
+                if (null != transformCache && isCacheable(transformer)) {
+                    long scanStart = metrics.startStage();
+                    cacheKey = getCacheKey(transformer, new ByteArrayInputStream(content));
+                    metrics.endStage(RunMetrics.Stage.SCAN, scanStart);
+                    if (null != cacheKey && loadFromCache(transformCache, cacheKey, pendingFile)) {
+                        cachedCount++;
+                        continue;
+                    }
+                }
+                transformersToApply.add(transformer);
+                outputs.add(pendingFile.getOutputStream());
+                pendingFilesToApply.add(pendingFile);
+                cacheKeys.add(cacheKey);
+            }
+            if (!transformersToApply.isEmpty()) {
+                long transformStart = metrics.startStage();
+                applyForProfiles(content, transformersToApply, outputs);
+                metrics.endStage(RunMetrics.Stage.TRANSFORM, transformStart);
+            }
+            for (int i = 0; i < cacheKeys.size(); i++) {
+                if (null != cacheKeys.get(i)) {
+                    transformCache.store(cacheKeys.get(i), pendingFilesToApply.get(i).getTempPath());
+                }
+            }
+
+            long writeStart = metrics.startStage();
+            long bytesWritten = 0;
+            for (TargetFileWriter.PendingFile pendingFile : pendingFiles) {
+                bytesWritten += pendingFile.commit();
+            }
+            metrics.endStage(RunMetrics.Stage.WRITE, writeStart);
+            metrics.recordBytes(content.length, bytesWritten);
+            if (!transformersToApply.isEmpty()) {
+                return RunMetrics.Outcome.TRANSFORMED;
+            }
+            return cachedCount > 0 ? RunMetrics.Outcome.CACHED : RunMetrics.Outcome.COPIED;
+        } finally {
+            for (TargetFileWriter.PendingFile pendingFile : pendingFiles) {
+                pendingFile.close();
+            }
+        }
+    }
+
+    /**
+     * The content is parsed once for all the profiles if the transformers are able to, otherwise it is transformed for each profile.
+     */
+    static void applyForProfiles(byte[] content, List<Transformer> transformers, List<OutputStream> outputs) {
+        Transformer first = transformers.get(0);
+        if (transformers.size() > 1 && first instanceof FanOutTransformer
+                && transformers.stream().allMatch(transformer -> first.getClass() == transformer.getClass())) {
+            ((FanOutTransformer) first).apply(new ByteArrayInputStream(content), transformers, outputs);
+            return;
+        }
+        for (int i = 0; i < transformers.size(); i++) {
+            transformers.get(i).apply(new ByteArrayInputStream(content), outputs.get(i));
+        }
+    }
+
+    /**
+     * @return {@link RunMetrics.Outcome#COPIED} if the source does not need to be transformed, otherwise {@link RunMetrics.Outcome#TRANSFORMED}.
+     */
+    private RunMetrics.Outcome transformFile(File sourceFile, File targetFile, Transformer transformer, TargetFileWriter writer) throws IOException {
+        LOGGER.debug("transform \"{}\" into \"{}\".", sourceFile, targetFile);
+        try (InputStream in = FileUtils.openInputStream(sourceFile);
+             TargetFileWriter.PendingFile pendingFile = writer.open(targetFile)) {
+            RunMetrics.Outcome outcome;
+            if (transformer instanceof SelectiveTransformer) {
+                outcome = transformSelectively((FileInputStream) in, pendingFile, (SelectiveTransformer) transformer);
+            } else {
+                outcome = applyOrLoadFromCache(transformer, (FileInputStream) in, pendingFile);
+            }
+            long writeStart = metrics.startStage();
+            long bytesWritten = pendingFile.commit();
+            metrics.endStage(RunMetrics.Stage.WRITE, writeStart);
+            metrics.recordBytes(sourceFile.length(), bytesWritten);
+            return outcome;
+        }
+    }
+
+    /**
+     * Scan the source first. The source that does not need to be transformed is copied by {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+     * so the content does not need to be copied through the java heap.
+     */
+    private RunMetrics.Outcome transformSelectively(FileInputStream in, TargetFileWriter.PendingFile pendingFile, SelectiveTransformer transformer) throws IOException {
+        FileChannel inChannel = in.getChannel();
+        long scanStart = metrics.startStage();
+        boolean transformRequired = transformer.isTransformRequired(in);
+        inChannel.position(0);
+        metrics.endStage(RunMetrics.Stage.SCAN, scanStart);
+        if (transformRequired) {
+            return applyOrLoadFromCache(transformer, in, pendingFile);
+        }
+        LOGGER.debug("copy the source which does not need to be transformed.");
+        long copyStart = metrics.startStage();
+        FileChannel outChannel = pendingFile.getOutputStream().getChannel();
+        for (long position = 0, size = inChannel.size(); position < size; ) {
+            position += inChannel.transferTo(position, size - position, outChannel);
+        }
+        metrics.endStage(RunMetrics.Stage.COPY, copyStart);
+        return RunMetrics.Outcome.COPIED;
+    }
+
+    /**
+     * Load the target file from the transform cache if it is there, otherwise apply the transformer on the whole source file
+     * and put the result into the cache before the target file is committed.
+     *
+     * @return {@link RunMetrics.Outcome#CACHED} if it is loaded from the cache, otherwise {@link RunMetrics.Outcome#TRANSFORMED}.
+     */
+    private RunMetrics.Outcome applyOrLoadFromCache(Transformer transformer, FileInputStream in, TargetFileWriter.PendingFile pendingFile) throws IOException {
+        TransformCache transformCache = getCache();
+        String cacheKey = null;
+        if (null != transformCache && isCacheable(transformer)) {
+            long scanStart = metrics.startStage();
+            cacheKey = getCacheKey(transformer, in);
+            in.getChannel().position(0);
+            metrics.endStage(RunMetrics.Stage.SCAN, scanStart);
+            if (null != cacheKey && loadFromCache(transformCache, cacheKey, pendingFile)) {
+                return RunMetrics.Outcome.CACHED;
+            }
+        }
+        long transformStart = metrics.startStage();
+        applyOnFile(transformer, in, pendingFile.getOutputStream());
+        metrics.endStage(RunMetrics.Stage.TRANSFORM, transformStart);
+        if (null != cacheKey) {
+            transformCache.store(cacheKey, pendingFile.getTempPath());
+        }
+        return RunMetrics.Outcome.TRANSFORMED;
+    }
+
+    private boolean loadFromCache(TransformCache transformCache, String cacheKey, TargetFileWriter.PendingFile pendingFile) throws IOException {
+        long copyStart = metrics.startStage();
+        boolean hit = transformCache.load(cacheKey, pendingFile.getOutputStream().getChannel());
+        metrics.endStage(RunMetrics.Stage.COPY, copyStart);
+        metrics.recordCacheLookup(hit);
+        return hit;
+    }
+
+    private static boolean isCacheable(Transformer transformer) {
+        return transformer instanceof CacheableTransformer || transformer instanceof Fingerprintable;
+    }
+
+    /**
+     * @param content The content, which is read fully.
+     * @return The key of the content transformed by the transformer, or null if the transformer is unable to tell.
+     */
+    private static String getCacheKey(Transformer transformer, InputStream content) throws IOException {
+        MessageDigest digest = Hashes.newDigest();
+        DigestInputStream digestInput = new DigestInputStream(content, digest);
+        String transformerKey = transformer instanceof CacheableTransformer
+                ? ((CacheableTransformer) transformer).getCacheKey(digestInput)
+                : ((Fingerprintable) transformer).getFingerprint();
+        if (null == transformerKey) {
+            return null;
+        }
+        // the rest of the content, which the transformer does not read
+        byte[] buffer = new byte[64 * 1024];
+        while (digestInput.read(buffer) >= 0) {
+            // hashed
+        }
+        return Hashes.hashStrings(Arrays.asList(
+                TransformCache.FORMAT_VERSION, Hashes.toHex(digest.digest()), transformer.getClass().getName(), transformerKey
+        ));
+    }
+
+    /**
+     * Apply the transformer on the whole source file. The output is buffered by a pooled direct buffer, and a {@link ChannelTransformer}
+     * gets the source mapped into memory if it is not smaller than "pipe.conf.mmap-threshold".
+     * The mapping is not released here, since the JDK has no public way to unmap a buffer; it is released once the buffer is collected.
+     */
+    private void applyOnFile(Transformer transformer, FileInputStream in, FileOutputStream out) throws IOException {
+        FileChannel inChannel = in.getChannel();
+        long size = inChannel.size();
+        try (BufferedChannelOutput output = new BufferedChannelOutput(out.getChannel(), OUTPUT_BUFFERS)) {
+            if (transformer instanceof ChannelTransformer && size >= mmapThreshold && size <= Integer.MAX_VALUE) {
+                ((ChannelTransformer) transformer).apply(inChannel.map(FileChannel.MapMode.READ_ONLY, 0, size), output);
+            } else {
+                transformer.apply(in, output.asOutputStream());
+            }
+        }
+    }
+
+    void finishWriter(TargetFileWriter writer) {
+        long writeStart = metrics.startStage();
+        writer.finish();
+        metrics.endStage(RunMetrics.Stage.WRITE, writeStart);
+    }
+
+    private static void awaitWorkers(ExecutorService executor) {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOGGER.debug("waiting for the workers to finish.");
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new TextTransformUtilException("Interrupted while waiting for the workers to finish.", e);
+        }
     }
 
 
+    @Override
+    public void setMetrics(RunMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    RunMetrics getMetrics() {
+        return metrics;
+    }
+
+    synchronized String[] getFileExtensions() {
+        return fileExtensions;
+    }
+
+    synchronized String getErrorPolicy() {
+        return errorPolicy;
+    }
+
+    synchronized String getFsyncPolicy() {
+        return fsyncPolicy;
+    }
+
+    /**
+     * @return The transform cache, or null if it is not configured.
+     */
+    synchronized TransformCache getCache() {
+        if (null == cache && null != cacheDirectory) {
+            try {
+                cache = new TransformCache(new File(cacheDirectory).toPath(), cacheMaxSize);
+            } catch (IOException e) {
+                throw new TextTransformUtilException(String.format("Unable to open the transform cache \"%s\".", cacheDirectory), e);
+            }
+        }
+        return cache;
+    }
+
     @Override
     public synchronized void set(Properties conf) {
+        configuration.putAll(conf);
         if (conf.containsKey(EXTENSIONS_CONF_NAME)) {
             String extensionsConf = conf.getProperty(EXTENSIONS_CONF_NAME).trim();
             String[] extensions = extensionsConf.split(EXTENSIONS_SEPARATOR);
             LOGGER.debug("will only apply change on the files with extension in:{}.", extensions);
             this.fileExtensions = extensions;
         }
+        if (conf.containsKey(PARALLELISM_CONF_NAME)) {
+            this.parallelism = ConfigurationValues.getPositiveInt(conf, PARALLELISM_CONF_NAME);
+            LOGGER.debug("will transform {} files at the same time.", parallelism);
+        }
+        if (conf.containsKey(QUEUE_CAPACITY_CONF_NAME)) {
+            this.queueCapacity = ConfigurationValues.getPositiveInt(conf, QUEUE_CAPACITY_CONF_NAME);
+        }
+        if (conf.containsKey(SCHEDULE_CONF_NAME)) {
+            String scheduleConf = conf.getProperty(SCHEDULE_CONF_NAME).trim().toLowerCase();
+            if (!SCHEDULE_LARGEST_FIRST.equals(scheduleConf) && !SCHEDULE_WALK_ORDER.equals(scheduleConf)) {
+                throw new TextTransformUtilException(String.format("Unsupported schedule \"%s\" in \"%s\".", scheduleConf, SCHEDULE_CONF_NAME));
+            }
+            this.schedule = scheduleConf;
+        }
+        if (conf.containsKey(HEAP_BUDGET_CONF_NAME)) {
+            this.heapBudget = ConfigurationValues.getPositiveInt(conf, HEAP_BUDGET_CONF_NAME) * 1024L * 1024L;
+            LOGGER.debug("the heap budget of the files running at the same time: {} bytes.", heapBudget);
+        }
+        if (conf.containsKey(HEAP_COST_FACTOR_CONF_NAME)) {
+            this.heapCostFactor = ConfigurationValues.getPositiveInt(conf, HEAP_COST_FACTOR_CONF_NAME);
+        }
+        if (conf.containsKey(INCREMENTAL_CONF_NAME)) {
+            this.incremental = Boolean.parseBoolean(conf.getProperty(INCREMENTAL_CONF_NAME).trim());
+            LOGGER.debug("incremental mode: {}.", incremental);
+        }
+        if (conf.containsKey(DEDUP_CONF_NAME)) {
+            String dedupConf = conf.getProperty(DEDUP_CONF_NAME).trim().toLowerCase();
+            if (!DEDUP_NONE.equals(dedupConf) && !DEDUP_HARD_LINK.equals(dedupConf) && !DEDUP_COPY.equals(dedupConf)) {
+                throw new TextTransformUtilException(String.format("Unsupported dedup \"%s\" in \"%s\".", dedupConf, DEDUP_CONF_NAME));
+            }
+            this.dedup = dedupConf;
+            LOGGER.debug("dedup: {}.", dedup);
+        }
+        if (conf.containsKey(CACHE_DIR_CONF_NAME)) {
+            String cacheDirectoryConf = conf.getProperty(CACHE_DIR_CONF_NAME).trim();
+            this.cacheDirectory = cacheDirectoryConf.isEmpty() ? null : cacheDirectoryConf;
+            this.cache = null;
+            LOGGER.debug("the transform cache: {}.", cacheDirectory);
+        }
+        if (conf.containsKey(CACHE_SIZE_CONF_NAME)) {
+            this.cacheMaxSize = ConfigurationValues.getPositiveInt(conf, CACHE_SIZE_CONF_NAME) * 1024L * 1024L;
+            this.cache = null;
+        }
+        if (conf.containsKey(FSYNC_CONF_NAME)) {
+            String fsyncConf = conf.getProperty(FSYNC_CONF_NAME).trim().toLowerCase();
+            if (!FSYNC_NONE.equals(fsyncConf) && !FSYNC_PER_FILE.equals(fsyncConf) && !FSYNC_BATCH.equals(fsyncConf)) {
+                throw new TextTransformUtilException(String.format("Unsupported fsync policy \"%s\" in \"%s\".", fsyncConf, FSYNC_CONF_NAME));
+            }
+            this.fsyncPolicy = fsyncConf;
+        }
+        if (conf.containsKey(WATCH_DEBOUNCE_CONF_NAME)) {
+            this.watchDebounceMillis = ConfigurationValues.getPositiveInt(conf, WATCH_DEBOUNCE_CONF_NAME);
+        }
+        if (conf.containsKey(MMAP_THRESHOLD_CONF_NAME)) {
+            this.mmapThreshold = ConfigurationValues.getPositiveInt(conf, MMAP_THRESHOLD_CONF_NAME);
+        }
+        if (conf.containsKey(ERROR_POLICY_CONF_NAME)) {
+            String errorPolicyConf = conf.getProperty(ERROR_POLICY_CONF_NAME).trim().toLowerCase();
+            if (!ERROR_POLICY_FAIL_FAST.equals(errorPolicyConf) && !ERROR_POLICY_COLLECT_ALL.equals(errorPolicyConf)) {
+                throw new TextTransformUtilException(String.format("Unsupported error policy \"%s\" in \"%s\".", errorPolicyConf, ERROR_POLICY_CONF_NAME));
+            }
+            this.errorPolicy = errorPolicyConf;
+        }
+
+    }
 
+    /**
+     * The fingerprint of the configuration applied on the files. If the transformer is unable to tell its fingerprint,
+     * we can only assume that it is configured by the same configuration as this pipe.
+     */
+    private String getConfigurationFingerprint(Transformer transformer) {
+        String transformerName = transformer.getClass().getName();
+        if (transformer instanceof Fingerprintable) {
+            return Hashes.hashStrings(Arrays.asList(transformerName, ((Fingerprintable) transformer).getFingerprint()));
+        }
+        List<String> values = new ArrayList<>();
+        values.add(transformerName);
+        for (String name : new TreeSet<>(configuration.stringPropertyNames())) {
+            values.add(name);
+            values.add(configuration.getProperty(name));
+        }
+        return Hashes.hashStrings(values);
+    }
+
+    /**
+     * The state of transforming one directory for all the profiles, which is shared by all the workers.
+     */
+    private class DirectoryRun {
+        private final Path sourceRoot;
+        private final List<File> targets;
+        private final List<Transformer> transformers;
+        private final TransformErrors errors;
+        /**
+         * The manifest in the target of each profile, or empty if the run is not incremental.
+         */
+        private final List<IncrementalManifest> manifests = new ArrayList<>();
+        /**
+         * The source files by their content, or null if the files are not deduplicated.
+         */
+        private final DuplicateSources duplicates = DEDUP_NONE.equals(dedup) ? null : new DuplicateSources();
+        private final boolean hardLink = DEDUP_HARD_LINK.equals(dedup);
+        private final TargetFileWriter writer = new TargetFileWriter(fsyncPolicy);
+        /**
+         * The transform cache, or null if it is not configured. Its counts are shared by the runs, so the counts of this run are the differences.
+         */
+        private final TransformCache cache = getCache();
+        private final long cacheHitCountAtStart = null == cache ? 0 : cache.getHitCount();
+        private final long cacheMissCountAtStart = null == cache ? 0 : cache.getMissCount();
+
+        DirectoryRun(Path sourceRoot, List<File> targets, List<Transformer> transformers, String errorPolicy, boolean useManifests) {
+            this.sourceRoot = sourceRoot;
+            this.targets = targets;
+            this.transformers = transformers;
+            this.errors = new TransformErrors(errorPolicy);
+            if (useManifests) {
+                for (int i = 0; i < targets.size(); i++) {
+                    manifests.add(IncrementalManifest.load(targets.get(i), getConfigurationFingerprint(transformers.get(i))));
+                }
+            }
+        }
+
+        /**
+         * Take the files from the queue and transform them until the walker reaches the end or the errors tell to stop.
+         */
+        void consumeSourceFiles(SourceFileQueue queue) {
+            try {
+                while (!errors.shouldStop()) {
+                    SourceFileQueue.SourceFile file = queue.take();
+                    if (null == file) {
+                        return;
+                    }
+                    Path sourceFile = file.getPath();
+                    String pathRelativeToSource = sourceRoot.relativize(sourceFile).toString();
+                    long fileStart = metrics.startStage();
+                    RunMetrics.Outcome outcome = RunMetrics.Outcome.FAILED;
+                    try {
+                        outcome = transformSourceFile(sourceFile, pathRelativeToSource);
+                    } catch (IOException | RuntimeException e) {
+                        LOGGER.warn("Failed to transform \"{}\".", pathRelativeToSource, e);
+                        errors.record(pathRelativeToSource, e);
+                    } finally {
+                        queue.release(file);
+                    }
+                    metrics.recordFile(pathRelativeToSource, System.nanoTime() - fileStart, outcome);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * In the incremental run, the source is only transformed for the profiles whose target file is outdated.
+         */
+        private RunMetrics.Outcome transformSourceFile(Path sourceFile, String pathRelativeToSource) throws IOException {
+            List<File> targetFiles = new ArrayList<>();
+            for (File target : targets) {
+                targetFiles.add(new File(target, pathRelativeToSource));
+            }
+            if (manifests.isEmpty() && null == duplicates) {
+                return transformFile(sourceFile.toFile(), targetFiles, transformers, writer);
+            }
+            String sourceHash = Hashes.hashFile(sourceFile);
+            List<Integer> outdatedProfiles = new ArrayList<>();
+            List<String> manifestEntries = new ArrayList<>();
+            for (int i = 0; i < targetFiles.size(); i++) {
+                if (manifests.isEmpty()) {
+                    outdatedProfiles.add(i);
+                    continue;
+                }
+                String manifestEntry = manifests.get(i).checkOutdated(pathRelativeToSource, sourceHash, targetFiles.get(i));
+                if (null != manifestEntry) {
+                    outdatedProfiles.add(i);
+                    manifestEntries.add(manifestEntry);
+                }
+            }
+            if (outdatedProfiles.isEmpty()) {
+                LOGGER.debug("skip \"{}\" which is not changed since the last run.", pathRelativeToSource);
+                return RunMetrics.Outcome.SKIPPED;
+            }
+            RunMetrics.Outcome outcome = null == duplicates
+                    ? transformProfiles(sourceFile, targetFiles, outdatedProfiles)
+                    : transformOrReuse(sourceFile, sourceHash, targetFiles, outdatedProfiles);
+            for (int i = 0; i < manifestEntries.size(); i++) {
+                manifests.get(outdatedProfiles.get(i)).commit(pathRelativeToSource, manifestEntries.get(i));
+            }
+            return outcome;
+        }
+
+        private RunMetrics.Outcome transformProfiles(Path sourceFile, List<File> targetFiles, List<Integer> profiles) throws IOException {
+            List<File> profileTargetFiles = new ArrayList<>();
+            List<Transformer> profileTransformers = new ArrayList<>();
+            for (int i : profiles) {
+                profileTargetFiles.add(targetFiles.get(i));
+                profileTransformers.add(transformers.get(i));
+            }
+            return transformFile(sourceFile.toFile(), profileTargetFiles, profileTransformers, writer);
+        }
+
+        /**
+         * Transform the first file of each content. The other files of the same content wait for it, and link or copy its target files,
+         * except for the profiles it did not write, which are transformed as usual.
+         */
+        private RunMetrics.Outcome transformOrReuse(Path sourceFile, String sourceHash, List<File> targetFiles, List<Integer> profiles) throws IOException {
+            DuplicateSources.Original original = duplicates.register(sourceHash);
+            if (null == original) {
+                Map<Integer, File> committedFiles = new HashMap<>();
+                try {
+                    RunMetrics.Outcome outcome = transformProfiles(sourceFile, targetFiles, profiles);
+                    for (int i : profiles) {
+                        committedFiles.put(i, targetFiles.get(i));
+                    }
+                    return outcome;
+                } finally {
+                    duplicates.complete(sourceHash, committedFiles);
+                }
+            }
+
+            Map<Integer, File> originalFiles = original.awaitTargetFiles();
+            List<Integer> profilesToTransform = new ArrayList<>();
+            long writeStart = metrics.startStage();
+            for (int i : profiles) {
+                File originalFile = originalFiles.get(i);
+                if (null == originalFile) {
+                    profilesToTransform.add(i);
+                } else {
+                    LOGGER.debug("reuse \"{}\" of the same content for \"{}\".", originalFile, targetFiles.get(i));
+                    writer.linkOrCopy(originalFile, targetFiles.get(i), hardLink);
+                }
+            }
+            metrics.endStage(RunMetrics.Stage.WRITE, writeStart);
+            if (!profilesToTransform.isEmpty()) {
+                return transformProfiles(sourceFile, targetFiles, profilesToTransform);
+            }
+            long sourceSize = Files.size(sourceFile);
+            duplicates.recordDeduplicated(sourceSize);
+            metrics.recordDeduplicatedBytes(sourceSize);
+            return RunMetrics.Outcome.DEDUPLICATED;
+        }
+
+        /**
+         * Save the manifests even if some files failed, so the files transformed can be skipped in the next run.
+         */
+        void finish() {
+            finishWriter(writer);
+            for (IncrementalManifest manifest : manifests) {
+                manifest.save();
+                LOGGER.info("incremental run: {} file(s) skipped, {} file(s) transformed.", manifest.getHitCount(), manifest.getMissCount());
+            }
+            if (null != duplicates) {
+                LOGGER.info("dedup: {} file(s) of {} distinct content(s) reused the target files, {} bytes not transformed again.",
+                        duplicates.getFilesDeduplicated(), duplicates.getContentCount(), duplicates.getBytesDeduplicated());
+            }
+            if (null != cache) {
+                LOGGER.info("transform cache: {} hit(s), {} miss(es).",
+                        cache.getHitCount() - cacheHitCountAtStart, cache.getMissCount() - cacheMissCountAtStart);
+            }
+        }
     }
 }
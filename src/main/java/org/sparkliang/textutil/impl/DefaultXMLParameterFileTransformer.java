@@ -1,23 +1,52 @@
 package org.sparkliang.textutil.impl;
 
+import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sparkliang.textutil.api.AbstractStreamBasedTransformer;
+import org.sparkliang.textutil.api.CacheableTransformer;
+import org.sparkliang.textutil.api.FanOutTransformer;
+import org.sparkliang.textutil.api.Fingerprintable;
+import org.sparkliang.textutil.api.MetricsAware;
+import org.sparkliang.textutil.api.SelectiveTransformer;
+import org.sparkliang.textutil.api.Transformer;
 import org.sparkliang.textutil.exception.TextTransformUtilException;
+import org.sparkliang.textutil.metrics.RunMetrics;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLEventFactory;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.StartDocument;
+import javax.xml.stream.events.StartElement;
+import javax.xml.stream.events.XMLEvent;
 import javax.xml.transform.OutputKeys;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -28,6 +57,19 @@ import java.util.concurrent.ConcurrentHashMap;
  *         <li>transformer.parameter.*: All the property that start with "transformer.parameter." means this property is to config the value that will apply on the parameter with the given name.
  *         For example, "transformer.parameter.PARAM_1=VALUE_2" means the value "VALUE_2" will be set to parameter named "PARAM_1".
  *         </li>
+ *         <li>transformer.conf.mode: How the file is processed. The supported values are:
+ *         <ul>
+ *             <li>dom: (default) Load the whole document into a DOM tree, apply the values and serialize the tree with indentation.</li>
+ *             <li>stax: Rewrite the document event by event with StAX. The document is never held in memory as a whole,
+ *             and the content outside the parameters keeps its original layout.</li>
+ *             <li>splice: Copy the bytes of the document and only splice the configured values into the matched parameters.
+ *             The output is byte-identical to the input outside the replaced values. The document is not validated.
+ *             The documents with a DOCTYPE or not encoded in UTF-8 or ASCII are processed in the stax mode instead.</li>
+ *         </ul>
+ *         </li>
+ *         <li>transformer.conf.prescan: If it is true, the pipe scans the bytes of each file before transforming it.
+ *         The files that do not refer to any configured parameter are copied into the target as they are, without being parsed.
+ *         Set it to false to always parse the files. The default value is true.</li>
  *     </ul>
  * </p>
  *
@@ -36,7 +78,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * @since 1.0
  */
 @SuppressWarnings("AlibabaClassNamingShouldBeCamel")
-public class DefaultXMLParameterFileTransformer extends AbstractStreamBasedTransformer {
+public class DefaultXMLParameterFileTransformer extends AbstractStreamBasedTransformer implements Fingerprintable, SelectiveTransformer, CacheableTransformer, MetricsAware, FanOutTransformer {
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultXMLParameterFileTransformer.class);
 
 
@@ -45,42 +87,380 @@ public class DefaultXMLParameterFileTransformer extends AbstractStreamBasedTrans
 
     public final static String PARAM_VAL_PROP_NAME_PREFIX = "transformer.parameter.";
 
+    public final static String MODE_CONF_NAME = "transformer.conf.mode";
+    public final static String MODE_DOM = "dom";
+    public final static String MODE_STAX = "stax";
+    public final static String MODE_SPLICE = "splice";
+
+    public final static String PRESCAN_CONF_NAME = "transformer.conf.prescan";
+
+    private static final QName PARAM_NAME_ATTR_QNAME = new QName(PARAM_NAME_ATTR_NAME);
+    private static final int SPLICE_BUFFER_SIZE = 64 * 1024;
+
     private Map<String, String> parameterNameValueMap = new ConcurrentHashMap<>();
-    private DocumentBuilderFactory bdf = DocumentBuilderFactory.newInstance();
-    private TransformerFactory tf = TransformerFactory.newInstance();
+    private volatile String mode = MODE_DOM;
+    private volatile boolean prescan = true;
+    private volatile int minParamNameLength = 0;
+    private volatile int maxParamNameLength = 0;
+    private final ThreadLocal<SubstitutionStatistics> lastStatistics = new ThreadLocal<>();
+    private volatile RunMetrics metrics = RunMetrics.DISABLED;
+    private final DocumentBuilderFactory bdf = DocumentBuilderFactory.newInstance();
+    private final TransformerFactory tf = TransformerFactory.newInstance();
+    /**
+     * The builders and serializers are not thread safe, and creating them costs more than transforming a small file.
+     * So each thread keeps its own instances and resets them after every file.
+     */
+    private final ThreadLocal<DocumentBuilder> documentBuilders = ThreadLocal.withInitial(this::newDocumentBuilder);
+    private final ThreadLocal<javax.xml.transform.Transformer> serializers = ThreadLocal.withInitial(this::newSerializer);
+    private final ThreadLocal<XMLInputFactory> xmlInputFactories = ThreadLocal.withInitial(XMLInputFactory::newInstance);
+    private final ThreadLocal<XMLOutputFactory> xmlOutputFactories = ThreadLocal.withInitial(XMLOutputFactory::newInstance);
+    private final XMLEventFactory xef = XMLEventFactory.newInstance();
 
 
     @Override
     public void apply(InputStream input, OutputStream output) {
+        if (MODE_STAX.equals(mode)) {
+            applyByStAX(input, output);
+        } else if (MODE_SPLICE.equals(mode)) {
+            applyBySplice(input, output);
+        } else {
+            applyByDOM(input, output);
+        }
+    }
+
+    private void applyByDOM(InputStream input, OutputStream output) {
+        DocumentBuilder docBuilder = documentBuilders.get();
+        javax.xml.transform.Transformer serializer = serializers.get();
         try {
-            DocumentBuilder docBuilder = bdf.newDocumentBuilder();
+            long parseStart = metrics.startStage();
             Document doc = docBuilder.parse(input);
+            metrics.endStage(RunMetrics.Stage.PARSE, parseStart);
 
-            for (String paramName : parameterNameValueMap.keySet()) {
-                String paramValue = parameterNameValueMap.get(paramName);
-                NodeList nodeList = doc.getElementsByTagName(PARAMETER_TAG_NAME);
-                for (int i = 0, maxI = nodeList.getLength(); i < maxI; i++) {
-                    Node node = nodeList.item(i);
-                    Node nameAttributeNode = node.getAttributes().getNamedItem(PARAM_NAME_ATTR_NAME);
-                    if (null != nameAttributeNode && paramName.equals(nameAttributeNode.getNodeValue())) {
-                        node.setTextContent(paramValue);
-                    }
+            long substituteStart = metrics.startStage();
+            SubstitutionStatistics statistics = new SubstitutionStatistics(parameterNameValueMap.size());
+            NodeList nodeList = doc.getElementsByTagName(PARAMETER_TAG_NAME);
+            for (int i = 0, maxI = nodeList.getLength(); i < maxI; i++) {
+                Node node = nodeList.item(i);
+                Node nameAttributeNode = node.getAttributes().getNamedItem(PARAM_NAME_ATTR_NAME);
+                if (null == nameAttributeNode) {
+                    continue;
+                }
+                String paramName = nameAttributeNode.getNodeValue(), paramValue = parameterNameValueMap.get(paramName);
+                if (null != paramValue) {
+                    node.setTextContent(paramValue);
+                    statistics.recordReplacement(paramName);
                 }
             }
+            recordStatistics(statistics);
+            metrics.endStage(RunMetrics.Stage.SUBSTITUTE, substituteStart);
+
+            long serializeStart = metrics.startStage();
             DOMSource domSource = new DOMSource(doc);
             StreamResult result = new StreamResult(output);
-            javax.xml.transform.Transformer transformer = tf.newTransformer();
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.transform(domSource, result);
+            serializer.transform(domSource, result);
+            metrics.endStage(RunMetrics.Stage.SERIALIZE, serializeStart);
 
 
         } catch (Exception e) {
             throw new TextTransformUtilException(e);
+        } finally {
+            docBuilder.reset();
+            serializer.reset();
+            serializer.setOutputProperty(OutputKeys.INDENT, "yes");
         }
     }
 
+    /**
+     * In the dom mode, the document is parsed once, and then the values of each transformer are applied and the tree is serialized for it.
+     * The parameters that are not configured by a transformer keep their original content.
+     * The other modes never build a tree, so the content is transformed for each transformer instead.
+     */
+    @Override
+    public void apply(InputStream input, List<? extends Transformer> transformers, List<? extends OutputStream> outputs) {
+        boolean domForAll = transformers.stream().allMatch(transformer -> transformer instanceof DefaultXMLParameterFileTransformer
+                && MODE_DOM.equals(((DefaultXMLParameterFileTransformer) transformer).mode));
+        if (!domForAll) {
+            byte[] content;
+            try {
+                content = IOUtils.toByteArray(input);
+            } catch (IOException e) {
+                throw new TextTransformUtilException(e);
+            }
+            for (int i = 0; i < transformers.size(); i++) {
+                transformers.get(i).apply(new ByteArrayInputStream(content), outputs.get(i));
+            }
+            return;
+        }
+
+        DocumentBuilder docBuilder = documentBuilders.get();
+        javax.xml.transform.Transformer serializer = serializers.get();
+        try {
+            long parseStart = metrics.startStage();
+            Document doc = docBuilder.parse(input);
+            metrics.endStage(RunMetrics.Stage.PARSE, parseStart);
+            List<ParameterNode> parameterNodes = new ArrayList<>();
+            NodeList nodeList = doc.getElementsByTagName(PARAMETER_TAG_NAME);
+            for (int i = 0, maxI = nodeList.getLength(); i < maxI; i++) {
+                Node node = nodeList.item(i);
+                Node nameAttributeNode = node.getAttributes().getNamedItem(PARAM_NAME_ATTR_NAME);
+                if (null != nameAttributeNode) {
+                    parameterNodes.add(new ParameterNode(node, nameAttributeNode.getNodeValue()));
+                }
+            }
+
+            for (int i = 0; i < transformers.size(); i++) {
+                DefaultXMLParameterFileTransformer transformer = (DefaultXMLParameterFileTransformer) transformers.get(i);
+                long substituteStart = metrics.startStage();
+                SubstitutionStatistics statistics = new SubstitutionStatistics(transformer.parameterNameValueMap.size());
+                for (ParameterNode parameterNode : parameterNodes) {
+                    String paramValue = transformer.parameterNameValueMap.get(parameterNode.name);
+                    if (null != paramValue) {
+                        parameterNode.replace(paramValue);
+                        statistics.recordReplacement(parameterNode.name);
+                    } else {
+                        parameterNode.restore();
+                    }
+                }
+                transformer.recordStatistics(statistics);
+                metrics.endStage(RunMetrics.Stage.SUBSTITUTE, substituteStart);
+
+                long serializeStart = metrics.startStage();
+                serializer.transform(new DOMSource(doc), new StreamResult(outputs.get(i)));
+                metrics.endStage(RunMetrics.Stage.SERIALIZE, serializeStart);
+            }
+        } catch (Exception e) {
+            throw new TextTransformUtilException(e);
+        } finally {
+            docBuilder.reset();
+            serializer.reset();
+            serializer.setOutputProperty(OutputKeys.INDENT, "yes");
+        }
+    }
+
+    private DocumentBuilder newDocumentBuilder() {
+        synchronized (bdf) {
+            try {
+                return bdf.newDocumentBuilder();
+            } catch (ParserConfigurationException e) {
+                throw new TextTransformUtilException(e);
+            }
+        }
+    }
+
+    /**
+     * The serializer is the identity transformer of the factory. It writes the DOM tree directly,
+     * which is faster than running an identity stylesheet compiled into {@link javax.xml.transform.Templates}.
+     */
+    private javax.xml.transform.Transformer newSerializer() {
+        synchronized (tf) {
+            try {
+                javax.xml.transform.Transformer serializer = tf.newTransformer();
+                serializer.setOutputProperty(OutputKeys.INDENT, "yes");
+                return serializer;
+            } catch (TransformerConfigurationException e) {
+                throw new TextTransformUtilException(e);
+            }
+        }
+    }
+
+    private void applyBySplice(InputStream input, OutputStream output) {
+        SubstitutionStatistics statistics = new SubstitutionStatistics(parameterNameValueMap.size());
+        try {
+            BufferedOutputStream bufferedOutput = new BufferedOutputStream(output, SPLICE_BUFFER_SIZE);
+            InputStream replay = new ParameterSplicer(parameterNameValueMap, statistics).splice(input, bufferedOutput);
+            if (null != replay) {
+                LOGGER.debug("unable to splice the document, process it in mode \"{}\" instead.", MODE_STAX);
+                applyByStAX(replay, output);
+                return;
+            }
+            bufferedOutput.flush();
+        } catch (IOException e) {
+            throw new TextTransformUtilException(e);
+        }
+        recordStatistics(statistics);
+    }
+
+    /**
+     * Copy the events from the input to the output one by one.
+     * The content of the parameter that has a configured value is dropped and replaced by the configured value,
+     * so only the events of the current parameter are held in memory.
+     */
+    private void applyByStAX(InputStream input, OutputStream output) {
+        XMLEventReader reader = null;
+        XMLEventWriter writer = null;
+        SubstitutionStatistics statistics = new SubstitutionStatistics(parameterNameValueMap.size());
+        try {
+            reader = xmlInputFactories.get().createXMLEventReader(input);
+            while (reader.hasNext()) {
+                XMLEvent event = reader.nextEvent();
+                if (null == writer) {
+                    writer = createEventWriter(event, output);
+                }
+                writer.add(event);
+
+                if (event.isStartElement()) {
+                    String paramName = getParameterName(event.asStartElement());
+                    String paramValue = null == paramName ? null : parameterNameValueMap.get(paramName);
+                    if (null != paramValue) {
+                        skipElementContent(reader);
+                        writer.add(xef.createCharacters(paramValue));
+                        writer.add(reader.nextEvent());
+                        statistics.recordReplacement(paramName);
+                    }
+                }
+            }
+            if (null != writer) {
+                writer.flush();
+            }
+            recordStatistics(statistics);
+        } catch (XMLStreamException e) {
+            throw new TextTransformUtilException(e);
+        } finally {
+            closeQuietly(reader, writer);
+        }
+    }
+
+    /**
+     * The output should keep the encoding declared by the source, otherwise the declaration will not match the content.
+     */
+    private XMLEventWriter createEventWriter(XMLEvent firstEvent, OutputStream output) throws XMLStreamException {
+        String encoding = StandardCharsets.UTF_8.name();
+        if (firstEvent.isStartDocument()) {
+            StartDocument startDocument = (StartDocument) firstEvent;
+            if (startDocument.encodingSet()) {
+                encoding = startDocument.getCharacterEncodingScheme();
+            }
+        }
+        return xmlOutputFactories.get().createXMLEventWriter(output, encoding);
+    }
+
+    private static String getParameterName(StartElement element) {
+        QName elementName = element.getName();
+        if (!elementName.getPrefix().isEmpty() || !PARAMETER_TAG_NAME.equals(elementName.getLocalPart())) {
+            return null;
+        }
+        Attribute nameAttribute = element.getAttributeByName(PARAM_NAME_ATTR_QNAME);
+        return null == nameAttribute ? null : nameAttribute.getValue();
+    }
+
+    /**
+     * Consume all the events inside the current element and stop right before its end element.
+     */
+    private static void skipElementContent(XMLEventReader reader) throws XMLStreamException {
+        int depth = 0;
+        while (true) {
+            XMLEvent next = reader.peek();
+            if (next.isEndElement() && 0 == depth) {
+                return;
+            }
+            if (next.isStartElement()) {
+                depth++;
+            } else if (next.isEndElement()) {
+                depth--;
+            }
+            reader.nextEvent();
+        }
+    }
+
+    private void recordStatistics(SubstitutionStatistics statistics) {
+        lastStatistics.set(statistics);
+        LOGGER.debug("applied the parameters on file: {}.", statistics);
+    }
+
+    /**
+     * Get the statistics of the last file that transformed by the current thread.
+     *
+     * @return The statistics or null if there is no file transformed by the current thread.
+     */
+    public SubstitutionStatistics getLastStatistics() {
+        return lastStatistics.get();
+    }
+
+    private static void closeQuietly(XMLEventReader reader, XMLEventWriter writer) {
+        try {
+            if (null != writer) {
+                writer.close();
+            }
+            if (null != reader) {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            LOGGER.warn("An error occur during closing the StAX reader or writer.", e);
+        }
+    }
+
+    @Override
+    public boolean isTransformRequired(InputStream input) {
+        if (!prescan) {
+            return true;
+        }
+        try {
+            if (new ParameterPreScanner(parameterNameValueMap.keySet(), minParamNameLength, maxParamNameLength).scan(input)) {
+                return true;
+            }
+        } catch (IOException e) {
+            throw new TextTransformUtilException(e);
+        }
+        recordStatistics(new SubstitutionStatistics(parameterNameValueMap.size()));
+        return false;
+    }
+
+    /**
+     * The key only has the mode and the values of the configured parameters that appear in the content,
+     * which are found by scanning the bytes as the prescan does, so the content is not parsed.
+     */
+    @Override
+    public String getCacheKey(InputStream input) {
+        Set<String> names;
+        try {
+            names = new ParameterPreScanner(parameterNameValueMap.keySet(), minParamNameLength, maxParamNameLength).collect(input);
+        } catch (IOException e) {
+            throw new TextTransformUtilException(e);
+        }
+        if (null == names) {
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        values.add(mode);
+        for (String name : names) {
+            values.add(name);
+            values.add(parameterNameValueMap.get(name));
+        }
+        return Hashes.hashStrings(values);
+    }
+
+    /**
+     * Only the dom mode records the time of parse, substitute and serialize.
+     * The other modes do all of them in one pass, so their time is only recorded as a whole by the pipe.
+     */
+    @Override
+    public void setMetrics(RunMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String getFingerprint() {
+        List<String> values = new ArrayList<>();
+        values.add(mode);
+        values.add(String.valueOf(prescan));
+        for (Map.Entry<String, String> entry : new TreeMap<>(parameterNameValueMap).entrySet()) {
+            values.add(entry.getKey());
+            values.add(entry.getValue());
+        }
+        return Hashes.hashStrings(values);
+    }
+
     @Override
     public void set(Properties conf) {
+        if (conf.containsKey(MODE_CONF_NAME)) {
+            String modeConf = conf.getProperty(MODE_CONF_NAME).trim().toLowerCase();
+            if (!MODE_DOM.equals(modeConf) && !MODE_STAX.equals(modeConf) && !MODE_SPLICE.equals(modeConf)) {
+                throw new TextTransformUtilException(String.format("Unsupported mode \"%s\" in \"%s\".", modeConf, MODE_CONF_NAME));
+            }
+            LOGGER.debug("will process the files in mode \"{}\".", modeConf);
+            this.mode = modeConf;
+        }
+
         conf.stringPropertyNames().stream()
                 .filter(name -> name.startsWith(PARAM_VAL_PROP_NAME_PREFIX))
                 .forEach(name -> {
@@ -89,7 +469,54 @@ public class DefaultXMLParameterFileTransformer extends AbstractStreamBasedTrans
                             parameterNameValueMap.put(parameterName, paramemterValue);
                         }
                 );
+
+        if (conf.containsKey(PRESCAN_CONF_NAME)) {
+            this.prescan = Boolean.parseBoolean(conf.getProperty(PRESCAN_CONF_NAME).trim());
+            LOGGER.debug("prescan the files before transforming: {}.", prescan);
+        }
+        int minLength = Integer.MAX_VALUE, maxLength = 0;
+        for (String parameterName : parameterNameValueMap.keySet()) {
+            int length = parameterName.getBytes(StandardCharsets.UTF_8).length;
+            minLength = Math.min(minLength, length);
+            maxLength = Math.max(maxLength, length);
+        }
+        this.minParamNameLength = minLength;
+        this.maxParamNameLength = maxLength;
     }
 
+    /**
+     * A parameter of the parsed document, which keeps its original children so they can be put back after its content is replaced.
+     */
+    private static class ParameterNode {
+        private final Node node;
+        private final String name;
+        private final List<Node> originalChildren = new ArrayList<>();
+        private boolean replaced = false;
+
+        private ParameterNode(Node node, String name) {
+            this.node = node;
+            this.name = name;
+            for (Node child = node.getFirstChild(); null != child; child = child.getNextSibling()) {
+                originalChildren.add(child);
+            }
+        }
+
+        private void replace(String value) {
+            node.setTextContent(value);
+            replaced = true;
+        }
 
+        private void restore() {
+            if (!replaced) {
+                return;
+            }
+            while (null != node.getFirstChild()) {
+                node.removeChild(node.getFirstChild());
+            }
+            for (Node child : originalChildren) {
+                node.appendChild(child);
+            }
+            replaced = false;
+        }
+    }
 }
@@ -0,0 +1,46 @@
+package org.sparkliang.textutil.impl;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The pool of the direct buffers of the same size. A direct buffer is expensive to allocate and it is only freed by the GC,
+ * so the buffers are reused by the files instead. At most the given number of buffers are kept, and the others are left to the GC.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class DirectBufferPool {
+    private final int bufferSize;
+    private final int maxPooledBuffers;
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+    DirectBufferPool(int bufferSize, int maxPooledBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxPooledBuffers = maxPooledBuffers;
+    }
+
+    /**
+     * @return A cleared buffer, which should be released once it is not used any more.
+     */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = buffers.poll();
+        if (null == buffer) {
+            return ByteBuffer.allocateDirect(bufferSize);
+        }
+        pooledBuffers.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    void release(ByteBuffer buffer) {
+        if (pooledBuffers.incrementAndGet() <= maxPooledBuffers) {
+            buffers.offer(buffer);
+        } else {
+            pooledBuffers.decrementAndGet();
+        }
+    }
+}
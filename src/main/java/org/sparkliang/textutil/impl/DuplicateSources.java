@@ -0,0 +1,81 @@
+package org.sparkliang.textutil.impl;
+
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The source files of one run by their content hash, so each content is only transformed once.<br>
+ * The first file of a content is the original, which is transformed as usual and then completed with its target files.
+ * The other files of the same content wait for the original, and reuse its target files of the same profile.
+ * If the original failed, it is completed with no target file, and the other files are transformed as usual.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class DuplicateSources {
+    private final Map<String, Original> originals = new ConcurrentHashMap<>();
+    private final AtomicLong filesDeduplicated = new AtomicLong();
+    private final AtomicLong bytesDeduplicated = new AtomicLong();
+
+    /**
+     * @param contentHash The hash of the source content.
+     * @return null if the source is the first of the content, which should be completed by {@link #complete(String, Map)} whether or not it succeeds.
+     * Otherwise, the original of the content.
+     */
+    Original register(String contentHash) {
+        return originals.putIfAbsent(contentHash, new Original());
+    }
+
+    /**
+     * @param targetFiles The target files committed for the original, by the index of their profile. It is empty if the original failed.
+     */
+    void complete(String contentHash, Map<Integer, File> targetFiles) {
+        Original original = originals.get(contentHash);
+        original.targetFiles = targetFiles;
+        original.completed.countDown();
+    }
+
+    void recordDeduplicated(long sourceSize) {
+        filesDeduplicated.incrementAndGet();
+        bytesDeduplicated.addAndGet(sourceSize);
+    }
+
+    long getFilesDeduplicated() {
+        return filesDeduplicated.get();
+    }
+
+    long getBytesDeduplicated() {
+        return bytesDeduplicated.get();
+    }
+
+    int getContentCount() {
+        return originals.size();
+    }
+
+    static class Original {
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Map<Integer, File> targetFiles = Collections.emptyMap();
+
+        /**
+         * Wait for the original to be transformed.
+         *
+         * @return The target files of the original by the index of their profile.
+         */
+        Map<Integer, File> awaitTargetFiles() {
+            try {
+                completed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TextTransformUtilException("Interrupted while waiting for the file of the same content.", e);
+            }
+            return targetFiles;
+        }
+    }
+}
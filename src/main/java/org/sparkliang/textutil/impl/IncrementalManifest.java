@@ -0,0 +1,136 @@
+package org.sparkliang.textutil.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The record of the files transformed into a target directory.<br>
+ * For each file, it keeps the hash of the source content and the fingerprint of the configuration applied on it.
+ * A file can be skipped if both of them are the same as the last run and the target file still exists.
+ * Only the files seen by the current run are kept when the manifest is saved, so the entries of the deleted source files are dropped.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class IncrementalManifest {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalManifest.class);
+
+    static final String MANIFEST_FILE_NAME = ".text-util-manifest";
+    private static final String ENTRY_SEPARATOR = ":";
+
+    private final Path manifestFile;
+    private final String configurationFingerprint;
+    private final Map<String, String> previousEntries = new ConcurrentHashMap<>();
+    private final Map<String, String> currentEntries = new ConcurrentHashMap<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    private IncrementalManifest(Path manifestFile, String configurationFingerprint) {
+        this.manifestFile = manifestFile;
+        this.configurationFingerprint = configurationFingerprint;
+    }
+
+    /**
+     * Load the manifest in the target directory. An empty manifest is returned if the directory does not have one.
+     */
+    static IncrementalManifest load(File targetDirectory, String configurationFingerprint) {
+        IncrementalManifest manifest = new IncrementalManifest(
+                new File(targetDirectory, MANIFEST_FILE_NAME).toPath(), configurationFingerprint
+        );
+        if (Files.isRegularFile(manifest.manifestFile)) {
+            Properties entries = new Properties();
+            try (InputStream in = Files.newInputStream(manifest.manifestFile)) {
+                entries.load(in);
+            } catch (IOException e) {
+                throw new TextTransformUtilException(String.format("Unable to read the manifest \"%s\".", manifest.manifestFile), e);
+            }
+            for (String relativePath : entries.stringPropertyNames()) {
+                manifest.previousEntries.put(relativePath, entries.getProperty(relativePath));
+            }
+        }
+        LOGGER.debug("loaded {} entries from the manifest \"{}\".", manifest.previousEntries.size(), manifest.manifestFile);
+        return manifest;
+    }
+
+    /**
+     * Check whether the file needs to be transformed. The file is recorded as seen by the current run.
+     *
+     * @return The entry that should be committed by {@link #commit(String, String)} after the file is transformed,
+     * or null if the target file is up to date.
+     */
+    String checkOutdated(String relativePath, Path sourceFile, File targetFile) throws IOException {
+        return checkOutdated(relativePath, Hashes.hashFile(sourceFile), targetFile);
+    }
+
+    /**
+     * The same as {@link #checkOutdated(String, Path, File)}, with the hash of the source file computed by {@link Hashes#hashFile(Path)},
+     * so the source file is hashed once for the manifests of all the profiles.
+     */
+    String checkOutdated(String relativePath, String sourceHash, File targetFile) {
+        String key = toKey(relativePath);
+        String entry = sourceHash + ENTRY_SEPARATOR + configurationFingerprint;
+        String previousEntry = previousEntries.get(key);
+        if (entry.equals(previousEntry) && targetFile.isFile()) {
+            currentEntries.put(key, entry);
+            hitCount.incrementAndGet();
+            return null;
+        }
+        missCount.incrementAndGet();
+        return entry;
+    }
+
+    void commit(String relativePath, String entry) {
+        currentEntries.put(toKey(relativePath), entry);
+    }
+
+    long getHitCount() {
+        return hitCount.get();
+    }
+
+    long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Replace the manifest file with the entries of the current run.
+     */
+    void save() {
+        Properties entries = new Properties();
+        entries.putAll(currentEntries);
+        Path tempFile = manifestFile.resolveSibling(MANIFEST_FILE_NAME + ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tempFile)) {
+                entries.store(out, "Generated by text-util. Do not edit.");
+            }
+            try {
+                Files.move(tempFile, manifestFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new TextTransformUtilException(String.format("Unable to write the manifest \"%s\".", manifestFile), e);
+        }
+    }
+
+    /**
+     * The manifest can be shared between platforms, so the path is always separated by "/".
+     */
+    private static String toKey(String relativePath) {
+        return relativePath.replace(File.separatorChar, '/');
+    }
+}
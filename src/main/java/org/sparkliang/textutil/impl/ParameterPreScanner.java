@@ -0,0 +1,246 @@
+package org.sparkliang.textutil.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Scan the bytes of the xml file to find out whether any of the given parameter names appears as an attribute value.<br>
+ * It only tracks the tags, comments, CDATA sections and processing instructions, which is much cheaper than parsing the document.
+ * The scanner is conservative. It reports a match whenever it is unable to tell, for example:
+ * <ul>
+ *     <li>The document has a DOCTYPE, whose entities might expand into parameters.</li>
+ *     <li>An attribute value has an entity or character reference.</li>
+ *     <li>The document is not encoded in UTF-8 or ASCII.</li>
+ * </ul>
+ * It either stops at the first name found by {@link #scan(InputStream)}, or finds all the names by {@link #collect(InputStream)}.
+ * One instance scans one document.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class ParameterPreScanner {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_DECLARATION_LENGTH = 256;
+    private static final byte[] CDATA_START = "CDATA[".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int TEXT = 0;
+    private static final int TAG_START = 1;
+    private static final int DECLARATION_START = 2;
+    private static final int COMMENT_START = 3;
+    private static final int COMMENT = 4;
+    private static final int CDATA_SECTION_START = 5;
+    private static final int CDATA_SECTION = 6;
+    private static final int PROCESSING_INSTRUCTION = 7;
+    private static final int TAG = 8;
+    private static final int ATTRIBUTE_VALUE = 9;
+
+    private final Set<String> names;
+    private final int minNameLength;
+    private final int maxNameLength;
+
+    private int state = TEXT;
+    /**
+     * The number of bytes matched of the expected sequence, or the number of the trailing '-', ']' or '?'.
+     */
+    private int progress = 0;
+    private byte quote;
+    private boolean hasReference;
+    private final byte[] value;
+    private int valueLength;
+    private final byte[] declaration = new byte[MAX_DECLARATION_LENGTH];
+    private int declarationLength;
+    private long position = 0;
+    /**
+     * The names found by {@link #collect(InputStream)}, or null if the scan stops at the first name.
+     */
+    private Set<String> foundNames = null;
+
+    /**
+     * @param names         The names of the parameters.
+     * @param minNameLength The minimum length of the names in UTF-8 bytes.
+     * @param maxNameLength The maximum length of the names in UTF-8 bytes.
+     */
+    ParameterPreScanner(Set<String> names, int minNameLength, int maxNameLength) {
+        this.names = names;
+        this.minNameLength = minNameLength;
+        this.maxNameLength = maxNameLength;
+        this.value = new byte[maxNameLength];
+    }
+
+    /**
+     * @return true if any name is found or the scanner is unable to tell.
+     */
+    boolean scan(InputStream input) throws IOException {
+        if (names.isEmpty()) {
+            return false;
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+            for (int i = 0; i < read; i++) {
+                if (accept(buffer[i])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scan the whole document for all the names that appear.
+     *
+     * @return The names found in their natural order, or null if the scanner is unable to tell.
+     */
+    Set<String> collect(InputStream input) throws IOException {
+        foundNames = new TreeSet<>();
+        if (names.isEmpty()) {
+            return foundNames;
+        }
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+            for (int i = 0; i < read; i++) {
+                if (accept(buffer[i])) {
+                    return null;
+                }
+            }
+        }
+        return foundNames;
+    }
+
+    /**
+     * @return true if the scan can stop because a name is found or the scanner is unable to tell.
+     * A name found does not stop {@link #collect(InputStream)}.
+     */
+    private boolean accept(byte b) {
+        if (position++ < 2 && (b == (byte) 0xFE || b == (byte) 0xFF || b == 0)) {
+            // the byte order mark or the leading zero of UTF-16 and UTF-32
+            return true;
+        }
+        switch (state) {
+            case TEXT:
+                if (b == '<') {
+                    state = TAG_START;
+                }
+                return false;
+            case TAG_START:
+                if (b == '!') {
+                    state = DECLARATION_START;
+                } else if (b == '?') {
+                    state = PROCESSING_INSTRUCTION;
+                    progress = 0;
+                    declarationLength = 0;
+                } else {
+                    state = TAG;
+                    return acceptInTag(b);
+                }
+                return false;
+            case DECLARATION_START:
+                if (b == '-') {
+                    state = COMMENT_START;
+                    return false;
+                } else if (b == '[') {
+                    state = CDATA_SECTION_START;
+                    progress = 0;
+                    return false;
+                }
+                // DOCTYPE or other declarations
+                return true;
+            case COMMENT_START:
+                if (b != '-') {
+                    return true;
+                }
+                state = COMMENT;
+                progress = 0;
+                return false;
+            case COMMENT:
+                if (b == '>' && progress >= 2) {
+                    state = TEXT;
+                }
+                progress = b == '-' ? progress + 1 : 0;
+                return false;
+            case CDATA_SECTION_START:
+                if (b != CDATA_START[progress]) {
+                    return true;
+                }
+                if (++progress == CDATA_START.length) {
+                    state = CDATA_SECTION;
+                    progress = 0;
+                }
+                return false;
+            case CDATA_SECTION:
+                if (b == '>' && progress >= 2) {
+                    state = TEXT;
+                }
+                progress = b == ']' ? progress + 1 : 0;
+                return false;
+            case PROCESSING_INSTRUCTION:
+                if (b == '>' && progress > 0) {
+                    state = TEXT;
+                    return !isSupportedDeclaration();
+                }
+                progress = b == '?' ? 1 : 0;
+                if (declarationLength < MAX_DECLARATION_LENGTH) {
+                    declaration[declarationLength++] = b;
+                }
+                return false;
+            case TAG:
+                return acceptInTag(b);
+            case ATTRIBUTE_VALUE:
+                if (b == quote) {
+                    state = TAG;
+                    return isName();
+                }
+                if (b == '&') {
+                    hasReference = true;
+                }
+                if (valueLength < maxNameLength) {
+                    value[valueLength] = b;
+                }
+                valueLength++;
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    private boolean acceptInTag(byte b) {
+        if (b == '>') {
+            state = TEXT;
+        } else if (b == '"' || b == '\'') {
+            state = ATTRIBUTE_VALUE;
+            quote = b;
+            hasReference = false;
+            valueLength = 0;
+        }
+        return false;
+    }
+
+    private boolean isName() {
+        if (hasReference) {
+            return true;
+        }
+        if (valueLength < minNameLength || valueLength > maxNameLength) {
+            return false;
+        }
+        String name = new String(value, 0, valueLength, StandardCharsets.UTF_8);
+        if (!names.contains(name)) {
+            return false;
+        }
+        if (null == foundNames) {
+            return true;
+        }
+        foundNames.add(name);
+        return false;
+    }
+
+    /**
+     * The bytes can be compared directly if the encoding is UTF-8 or ASCII.
+     */
+    private boolean isSupportedDeclaration() {
+        return XmlDeclarations.Encoding.UNSUPPORTED != XmlDeclarations.getEncoding(declaration, declarationLength);
+    }
+}
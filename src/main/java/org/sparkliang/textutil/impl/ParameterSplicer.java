@@ -0,0 +1,453 @@
+package org.sparkliang.textutil.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Rewrite the xml file by splicing the configured values into the bytes of the file.<br>
+ * Only the content of the matched parameter elements is replaced. All the other bytes are copied as they are,
+ * so the output is identical to the input outside the replaced values.
+ * The splicer only follows the tags, comments, CDATA sections and processing instructions. It does not validate the document.
+ * <p>
+ * The splicer gives up before writing anything if the prolog of the document has a DOCTYPE,
+ * or the document is not encoded in UTF-8 or ASCII. In that case {@link #splice(InputStream, OutputStream)} returns
+ * the stream to read the whole document again, so it can be processed in another way.
+ * </p>
+ * One instance processes one document.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class ParameterSplicer {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_DECLARATION_LENGTH = 256;
+    private static final byte[] PARAMETER_TAG = DefaultXMLParameterFileTransformer.PARAMETER_TAG_NAME.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PARAMETER_END_TAG = ("</" + DefaultXMLParameterFileTransformer.PARAMETER_TAG_NAME + ">").getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NAME_ATTR = DefaultXMLParameterFileTransformer.PARAM_NAME_ATTR_NAME.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CDATA_START = "CDATA[".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int TEXT = 0;
+    private static final int MARKUP_START = 1;
+    private static final int START_TAG = 2;
+    private static final int END_TAG = 3;
+    private static final int DECLARATION_START = 4;
+    private static final int DECLARATION = 5;
+    private static final int COMMENT_START = 6;
+    private static final int COMMENT = 7;
+    private static final int CDATA_SECTION_START = 8;
+    private static final int CDATA_SECTION = 9;
+    private static final int PROCESSING_INSTRUCTION = 10;
+
+    private final Map<String, String> values;
+    private final SubstitutionStatistics statistics;
+
+    private OutputStream out;
+    private OutputStream target;
+    /**
+     * The raw input and the output of the prolog are kept until the first element, in case the splicer gives up.
+     */
+    private ByteArrayOutputStream prologInput = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream prologOutput = new ByteArrayOutputStream();
+    private boolean unsupported = false;
+    private boolean asciiOnly = false;
+
+    private int state = TEXT;
+    private int progress = 0;
+    private byte quote = 0;
+    private final ByteArrayOutputStream tag = new ByteArrayOutputStream();
+    private final byte[] declaration = new byte[MAX_DECLARATION_LENGTH];
+    private int declarationLength = 0;
+    /**
+     * Whether the current bytes are the old content of a matched parameter, which should be dropped.
+     */
+    private boolean dropping = false;
+    private int droppingDepth = 0;
+    private int copyFrom = 0;
+    private long position = 0;
+
+    ParameterSplicer(Map<String, String> values, SubstitutionStatistics statistics) {
+        this.values = values;
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return null if the document is spliced into the output,
+     * or the stream to read the whole document again if the splicer gives up. Nothing is written into the output in that case.
+     */
+    InputStream splice(InputStream input, OutputStream output) throws IOException {
+        this.target = output;
+        this.out = prologOutput;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        for (int read = input.read(buffer); read >= 0; read = input.read(buffer)) {
+            if (null != prologInput) {
+                prologInput.write(buffer, 0, read);
+            }
+            copyFrom = 0;
+            for (int i = 0; i < read; i++) {
+                accept(buffer, i);
+                if (unsupported) {
+                    return new SequenceInputStream(new ByteArrayInputStream(prologInput.toByteArray()), input);
+                }
+            }
+            if (state != MARKUP_START && state != START_TAG) {
+                copy(buffer, read);
+            }
+        }
+        endProlog();
+        out.flush();
+        return null;
+    }
+
+    private void accept(byte[] buffer, int i) throws IOException {
+        byte b = buffer[i];
+        if (position++ < 2 && (b == (byte) 0xFE || b == (byte) 0xFF || b == 0)) {
+            // the byte order mark or the leading zero of UTF-16 and UTF-32
+            unsupported = true;
+            return;
+        }
+        switch (state) {
+            case TEXT:
+                if (b == '<') {
+                    copy(buffer, i);
+                    tag.reset();
+                    tag.write(b);
+                    state = MARKUP_START;
+                }
+                return;
+            case MARKUP_START:
+                tag.write(b);
+                copyFrom = i + 1;
+                if (b == '/') {
+                    if (dropping && 0 == droppingDepth) {
+                        // the end tag of the matched parameter
+                        dropping = false;
+                    } else if (dropping) {
+                        droppingDepth--;
+                    }
+                    writeTag();
+                    state = END_TAG;
+                } else if (b == '!') {
+                    writeTag();
+                    state = DECLARATION_START;
+                } else if (b == '?') {
+                    writeTag();
+                    state = PROCESSING_INSTRUCTION;
+                    progress = 0;
+                    declarationLength = 0;
+                } else {
+                    endProlog();
+                    state = START_TAG;
+                    quote = 0;
+                }
+                return;
+            case START_TAG:
+                tag.write(b);
+                copyFrom = i + 1;
+                if (0 != quote) {
+                    if (b == quote) {
+                        quote = 0;
+                    }
+                } else if (b == '"' || b == '\'') {
+                    quote = b;
+                } else if (b == '>') {
+                    processStartTag();
+                    state = TEXT;
+                }
+                return;
+            case END_TAG:
+            case DECLARATION:
+                if (b == '>') {
+                    state = TEXT;
+                }
+                return;
+            case DECLARATION_START:
+                if (b == '-') {
+                    state = COMMENT_START;
+                } else if (b == '[') {
+                    state = CDATA_SECTION_START;
+                    progress = 0;
+                } else if (null != prologInput) {
+                    // the DOCTYPE might declare the entities that need to be expanded
+                    unsupported = true;
+                } else {
+                    state = DECLARATION;
+                }
+                return;
+            case COMMENT_START:
+                state = COMMENT;
+                progress = 0;
+                return;
+            case COMMENT:
+                if (b == '>' && progress >= 2) {
+                    state = TEXT;
+                }
+                progress = b == '-' ? progress + 1 : 0;
+                return;
+            case CDATA_SECTION_START:
+                if (b != CDATA_START[progress]) {
+                    state = DECLARATION;
+                } else if (++progress == CDATA_START.length) {
+                    state = CDATA_SECTION;
+                    progress = 0;
+                }
+                return;
+            case CDATA_SECTION:
+                if (b == '>' && progress >= 2) {
+                    state = TEXT;
+                }
+                progress = b == ']' ? progress + 1 : 0;
+                return;
+            case PROCESSING_INSTRUCTION:
+                if (b == '>' && progress > 0) {
+                    state = TEXT;
+                    if (null != prologInput) {
+                        checkDeclaration();
+                    }
+                    return;
+                }
+                progress = b == '?' ? 1 : 0;
+                if (declarationLength < MAX_DECLARATION_LENGTH) {
+                    declaration[declarationLength++] = b;
+                }
+                return;
+            default:
+        }
+    }
+
+    /**
+     * Write the bytes that have not been written before the given index, unless they are the old content of a matched parameter.
+     */
+    private void copy(byte[] buffer, int end) throws IOException {
+        if (!dropping && end > copyFrom) {
+            out.write(buffer, copyFrom, end - copyFrom);
+        }
+        copyFrom = end;
+    }
+
+    private void writeTag() throws IOException {
+        if (!dropping) {
+            tag.writeTo(out);
+        }
+    }
+
+    /**
+     * The first element is found, so the document is able to be spliced.
+     */
+    private void endProlog() throws IOException {
+        if (null == prologInput) {
+            return;
+        }
+        prologInput = null;
+        prologOutput.writeTo(target);
+        out = target;
+    }
+
+    private void processStartTag() throws IOException {
+        byte[] tagBytes = tag.toByteArray();
+        int length = tagBytes.length;
+        boolean selfClosing = length >= 2 && tagBytes[length - 2] == '/';
+        if (dropping) {
+            if (!selfClosing) {
+                droppingDepth++;
+            }
+            return;
+        }
+        String paramName = getParameterName(tagBytes);
+        String paramValue = null == paramName ? null : values.get(paramName);
+        if (null == paramValue) {
+            out.write(tagBytes);
+            return;
+        }
+
+        if (selfClosing) {
+            out.write(tagBytes, 0, length - 2);
+            out.write('>');
+        } else {
+            out.write(tagBytes);
+        }
+        writeEscaped(paramValue);
+        if (selfClosing) {
+            out.write(PARAMETER_END_TAG);
+        } else {
+            dropping = true;
+            droppingDepth = 0;
+        }
+        statistics.recordReplacement(paramName);
+    }
+
+    /**
+     * @return The value of the name attribute if the tag is a parameter, or null.
+     */
+    private static String getParameterName(byte[] tagBytes) {
+        int idx = 1, length = tagBytes.length;
+        int nameEnd = skipName(tagBytes, idx);
+        if (!regionEquals(tagBytes, idx, nameEnd, PARAMETER_TAG)) {
+            return null;
+        }
+        idx = nameEnd;
+        while (idx < length) {
+            idx = skipWhitespace(tagBytes, idx);
+            if (idx >= length || tagBytes[idx] == '/' || tagBytes[idx] == '>') {
+                return null;
+            }
+            int attrNameStart = idx, attrNameEnd = skipName(tagBytes, idx);
+            idx = skipWhitespace(tagBytes, attrNameEnd);
+            if (idx >= length || tagBytes[idx] != '=') {
+                return null;
+            }
+            idx = skipWhitespace(tagBytes, idx + 1);
+            if (idx >= length || (tagBytes[idx] != '"' && tagBytes[idx] != '\'')) {
+                return null;
+            }
+            byte attrQuote = tagBytes[idx];
+            int valueStart = idx + 1, valueEnd = valueStart;
+            while (valueEnd < length && tagBytes[valueEnd] != attrQuote) {
+                valueEnd++;
+            }
+            if (regionEquals(tagBytes, attrNameStart, attrNameEnd, NAME_ATTR)) {
+                return decodeAttributeValue(new String(tagBytes, valueStart, valueEnd - valueStart, StandardCharsets.UTF_8));
+            }
+            idx = valueEnd + 1;
+        }
+        return null;
+    }
+
+    private static int skipName(byte[] bytes, int idx) {
+        while (idx < bytes.length && !isWhitespace(bytes[idx]) && bytes[idx] != '/' && bytes[idx] != '>' && bytes[idx] != '=') {
+            idx++;
+        }
+        return idx;
+    }
+
+    private static int skipWhitespace(byte[] bytes, int idx) {
+        while (idx < bytes.length && isWhitespace(bytes[idx])) {
+            idx++;
+        }
+        return idx;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static boolean regionEquals(byte[] bytes, int from, int to, byte[] expected) {
+        if (to - from != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (bytes[from + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode the value in the same way as the parser does. The unknown entity is kept as it is, so it will not match any parameter.
+     */
+    private static String decodeAttributeValue(String raw) {
+        StringBuilder decoded = new StringBuilder(raw.length());
+        for (int i = 0, length = raw.length(); i < length; i++) {
+            char c = raw.charAt(i);
+            if (c == '\r') {
+                decoded.append(' ');
+                if (i + 1 < length && raw.charAt(i + 1) == '\n') {
+                    i++;
+                }
+            } else if (c == '\n' || c == '\t') {
+                decoded.append(' ');
+            } else if (c == '&') {
+                int end = raw.indexOf(';', i);
+                String replacement = end < 0 ? null : decodeReference(raw.substring(i + 1, end));
+                if (null == replacement) {
+                    decoded.append(c);
+                } else {
+                    decoded.append(replacement);
+                    i = end;
+                }
+            } else {
+                decoded.append(c);
+            }
+        }
+        return decoded.toString();
+    }
+
+    private static String decodeReference(String reference) {
+        switch (reference) {
+            case "amp":
+                return "&";
+            case "lt":
+                return "<";
+            case "gt":
+                return ">";
+            case "quot":
+                return "\"";
+            case "apos":
+                return "'";
+            default:
+        }
+        try {
+            if (reference.startsWith("#x")) {
+                return new String(Character.toChars(Integer.parseInt(reference.substring(2), 16)));
+            } else if (reference.startsWith("#")) {
+                return new String(Character.toChars(Integer.parseInt(reference.substring(1))));
+            }
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * Escape the value in the same way as the serializer of the DOM mode.
+     */
+    private void writeEscaped(String value) throws IOException {
+        StringBuilder escaped = new StringBuilder(value.length() + 16);
+        for (int i = 0, length = value.length(); i < length; i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    escaped.append("&amp;");
+                    break;
+                case '<':
+                    escaped.append("&lt;");
+                    break;
+                case '>':
+                    escaped.append("&gt;");
+                    break;
+                case '\r':
+                    escaped.append("&#13;");
+                    break;
+                default:
+                    if (asciiOnly && c > 0x7F) {
+                        int codePoint = value.codePointAt(i);
+                        escaped.append("&#").append(codePoint).append(';');
+                        i += Character.charCount(codePoint) - 1;
+                    } else {
+                        escaped.append(c);
+                    }
+            }
+        }
+        out.write(escaped.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Only the documents encoded in UTF-8 or ASCII are supported, so the bytes can be compared and spliced directly.
+     */
+    private void checkDeclaration() {
+        XmlDeclarations.Encoding encoding = XmlDeclarations.getEncoding(declaration, declarationLength);
+        if (XmlDeclarations.Encoding.ASCII == encoding) {
+            asciiOnly = true;
+        } else if (XmlDeclarations.Encoding.UNSUPPORTED == encoding) {
+            unsupported = true;
+        }
+    }
+}
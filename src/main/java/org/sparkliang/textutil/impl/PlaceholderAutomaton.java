@@ -0,0 +1,163 @@
+package org.sparkliang.textutil.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The Aho-Corasick automaton that finds all the placeholders in one pass over the bytes.<br>
+ * The time spent on each byte does not depend on the number of placeholders. The state 0 is the initial state,
+ * and the depth of a state is the number of the last bytes that might still be the beginning of a placeholder.
+ * The automaton is immutable once it is built, so it can be shared by all the threads.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class PlaceholderAutomaton {
+    static final int NO_MATCH = -1;
+
+    /**
+     * The edges of the state {@code s} are at [edgeStart[s], edgeStart[s + 1]) of edgeLabels and edgeTargets, sorted by the label.
+     */
+    private final int[] edgeStart;
+    private final byte[] edgeLabels;
+    private final int[] edgeTargets;
+    private final int[] failure;
+    private final int[] depth;
+    /**
+     * The longest placeholder that ends at each state, or {@link #NO_MATCH}.
+     */
+    private final int[] match;
+    private final int[] placeholderLengths;
+    private final int maxPlaceholderLength;
+
+    /**
+     * @param placeholders The bytes of the placeholders. The index in the list is the id of the placeholder reported by {@link #getMatch(int)}.
+     */
+    PlaceholderAutomaton(List<byte[]> placeholders) {
+        List<Map<Byte, Integer>> children = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        List<Integer> matches = new ArrayList<>();
+        children.add(new TreeMap<>(PlaceholderAutomaton::compareUnsigned));
+        depths.add(0);
+        matches.add(NO_MATCH);
+        placeholderLengths = new int[placeholders.size()];
+        int maxLength = 0;
+        for (int id = 0; id < placeholders.size(); id++) {
+            byte[] placeholder = placeholders.get(id);
+            int state = 0;
+            for (byte b : placeholder) {
+                Integer next = children.get(state).get(b);
+                if (null == next) {
+                    next = children.size();
+                    children.get(state).put(b, next);
+                    children.add(new TreeMap<>(PlaceholderAutomaton::compareUnsigned));
+                    depths.add(depths.get(state) + 1);
+                    matches.add(NO_MATCH);
+                }
+                state = next;
+            }
+            if (NO_MATCH == matches.get(state)) {
+                matches.set(state, id);
+            }
+            placeholderLengths[id] = placeholder.length;
+            maxLength = Math.max(maxLength, placeholder.length);
+        }
+        maxPlaceholderLength = maxLength;
+
+        int stateCount = children.size(), edgeCount = stateCount - 1;
+        edgeStart = new int[stateCount + 1];
+        edgeLabels = new byte[edgeCount];
+        edgeTargets = new int[edgeCount];
+        depth = new int[stateCount];
+        match = new int[stateCount];
+        for (int state = 0, edge = 0; state < stateCount; state++) {
+            edgeStart[state] = edge;
+            for (Map.Entry<Byte, Integer> child : children.get(state).entrySet()) {
+                edgeLabels[edge] = child.getKey();
+                edgeTargets[edge] = child.getValue();
+                edge++;
+            }
+            depth[state] = depths.get(state);
+            match[state] = matches.get(state);
+        }
+        edgeStart[stateCount] = edgeCount;
+
+        // breadth first, so the failure of a state is always computed before the state itself
+        failure = new int[stateCount];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int edge = edgeStart[0]; edge < edgeStart[1]; edge++) {
+            queue.add(edgeTargets[edge]);
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int edge = edgeStart[state]; edge < edgeStart[state + 1]; edge++) {
+                int child = edgeTargets[edge];
+                failure[child] = next(failure[state], edgeLabels[edge]);
+                if (NO_MATCH == match[child]) {
+                    match[child] = match[failure[child]];
+                }
+                queue.add(child);
+            }
+        }
+    }
+
+    /**
+     * @return The state after reading the given byte in the given state.
+     */
+    int next(int state, byte b) {
+        while (true) {
+            int target = findEdge(state, b);
+            if (target >= 0) {
+                return target;
+            }
+            if (0 == state) {
+                return 0;
+            }
+            state = failure[state];
+        }
+    }
+
+    private int findEdge(int state, byte b) {
+        int low = edgeStart[state], high = edgeStart[state + 1] - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compared = compareUnsigned(edgeLabels[middle], b);
+            if (compared < 0) {
+                low = middle + 1;
+            } else if (compared > 0) {
+                high = middle - 1;
+            } else {
+                return edgeTargets[middle];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The id of the longest placeholder that ends at the given state, or {@link #NO_MATCH}.
+     */
+    int getMatch(int state) {
+        return match[state];
+    }
+
+    int getDepth(int state) {
+        return depth[state];
+    }
+
+    int getPlaceholderLength(int id) {
+        return placeholderLengths[id];
+    }
+
+    int getMaxPlaceholderLength() {
+        return maxPlaceholderLength;
+    }
+
+    private static int compareUnsigned(byte left, byte right) {
+        return (left & 0xFF) - (right & 0xFF);
+    }
+}
@@ -0,0 +1,287 @@
+package org.sparkliang.textutil.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sparkliang.textutil.api.AbstractStreamBasedTransformer;
+import org.sparkliang.textutil.api.ChannelTransformer;
+import org.sparkliang.textutil.api.Fingerprintable;
+import org.sparkliang.textutil.api.SelectiveTransformer;
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * The transformer that replaces the placeholders, such as "${NAME}" or "@NAME@", in any text file, such as the SQL, shell or properties templates.<br>
+ * All the placeholders are found by one {@link PlaceholderAutomaton} in one pass over the bytes,
+ * so the time does not depend on the number of the configured parameters.
+ * Only the last bytes that might be the beginning of a placeholder are held between two reads.
+ * The placeholders of the parameters that are not configured are kept as they are.
+ * Configurations:
+ * <p>
+ *     <ul>
+ *         <li>transformer.parameter.*: The same as {@link DefaultXMLParameterFileTransformer}.
+ *         For example, "transformer.parameter.PARAM_1=VALUE_2" replaces the placeholders of "PARAM_1" by "VALUE_2".</li>
+ *         <li>transformer.conf.placeholder-styles: The styles of the placeholders to replace, separated by comma ",". The supported values are:
+ *         <ul>
+ *             <li>dollar: "${NAME}".</li>
+ *             <li>at: "@NAME@".</li>
+ *         </ul>
+ *         The default value is "dollar,at".
+ *         </li>
+ *         <li>transformer.conf.charset: The charset of the files. The placeholders and the values are encoded in it.
+ *         It should be a charset where the characters of a placeholder are never part of another character, such as UTF-8.
+ *         The default value is UTF-8.</li>
+ *     </ul>
+ * </p>
+ * As a {@link ChannelTransformer}, the content in a buffer is written into the output as the slices between the placeholders,
+ * so a memory-mapped source is not copied into the java heap.
+ * When a placeholder overlaps another one, the one that ends first is replaced. For example, "@A@B@" becomes the value of "A" followed by "B@".
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public class PlaceholderTransformer extends AbstractStreamBasedTransformer implements ChannelTransformer, Fingerprintable, SelectiveTransformer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PlaceholderTransformer.class);
+
+    public static final String PLACEHOLDER_STYLES_CONF_NAME = "transformer.conf.placeholder-styles";
+    public static final String PLACEHOLDER_STYLES_SEPARATOR = ",";
+    public static final String STYLE_DOLLAR = "dollar";
+    public static final String STYLE_AT = "at";
+    public static final String CHARSET_CONF_NAME = "transformer.conf.charset";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Map<String, String> parameterNameValueMap = new TreeMap<>();
+    private List<String> styles = Arrays.asList(STYLE_DOLLAR, STYLE_AT);
+    private Charset charset = StandardCharsets.UTF_8;
+    private volatile Placeholders placeholders = null;
+    private final ThreadLocal<SubstitutionStatistics> lastStatistics = new ThreadLocal<>();
+
+    @Override
+    public void apply(InputStream input, OutputStream output) {
+        Placeholders placeholders = getPlaceholders();
+        PlaceholderAutomaton automaton = placeholders.automaton;
+        SubstitutionStatistics statistics = new SubstitutionStatistics(placeholders.parameterCount);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        // the bytes of the previous reads that might be the beginning of a placeholder
+        byte[] carry = new byte[automaton.getMaxPlaceholderLength()], nextCarry = new byte[carry.length];
+        int carryLength = 0;
+        try {
+            OutputStream out = new BufferedOutputStream(output, BUFFER_SIZE);
+            int state = 0;
+            for (int length = input.read(buffer); length >= 0; length = input.read(buffer)) {
+                // the bytes of the buffer before "start" are written
+                int start = 0;
+                for (int i = 0; i < length; i++) {
+                    state = automaton.next(state, buffer[i]);
+                    int id = automaton.getMatch(state);
+                    if (PlaceholderAutomaton.NO_MATCH == id) {
+                        continue;
+                    }
+                    int prefixLength = carryLength + (i + 1 - start) - automaton.getPlaceholderLength(id);
+                    int carryWritten = Math.min(prefixLength, carryLength);
+                    out.write(carry, 0, carryWritten);
+                    out.write(buffer, start, prefixLength - carryWritten);
+                    out.write(placeholders.values[id]);
+                    statistics.recordReplacement(placeholders.names[id]);
+                    carryLength = 0;
+                    start = i + 1;
+                    state = 0;
+                }
+
+                // keep the bytes that might be the beginning of a placeholder, and write the others
+                int pendingLength = carryLength + (length - start), keep = automaton.getDepth(state);
+                int writeLength = pendingLength - keep;
+                int carryWritten = Math.min(writeLength, carryLength);
+                out.write(carry, 0, carryWritten);
+                out.write(buffer, start, writeLength - carryWritten);
+                int keepFromCarry = carryLength - carryWritten;
+                System.arraycopy(carry, carryWritten, nextCarry, 0, keepFromCarry);
+                System.arraycopy(buffer, length - (keep - keepFromCarry), nextCarry, keepFromCarry, keep - keepFromCarry);
+                byte[] swap = carry;
+                carry = nextCarry;
+                nextCarry = swap;
+                carryLength = keep;
+            }
+            out.write(carry, 0, carryLength);
+            out.flush();
+        } catch (IOException e) {
+            throw new TextTransformUtilException(e);
+        }
+        lastStatistics.set(statistics);
+        LOGGER.debug("applied the parameters on file: {}.", statistics);
+    }
+
+    @Override
+    public void apply(ByteBuffer input, WritableByteChannel output) {
+        Placeholders placeholders = getPlaceholders();
+        PlaceholderAutomaton automaton = placeholders.automaton;
+        SubstitutionStatistics statistics = new SubstitutionStatistics(placeholders.parameterCount);
+        try {
+            // the bytes of the input before "start" are written
+            int start = input.position(), limit = input.limit();
+            int state = 0;
+            for (int i = start; i < limit; i++) {
+                state = automaton.next(state, input.get(i));
+                int id = automaton.getMatch(state);
+                if (PlaceholderAutomaton.NO_MATCH == id) {
+                    continue;
+                }
+                writeFully(output, slice(input, start, i + 1 - automaton.getPlaceholderLength(id)));
+                writeFully(output, ByteBuffer.wrap(placeholders.values[id]));
+                statistics.recordReplacement(placeholders.names[id]);
+                start = i + 1;
+                state = 0;
+            }
+            writeFully(output, slice(input, start, limit));
+        } catch (IOException e) {
+            throw new TextTransformUtilException(e);
+        }
+        lastStatistics.set(statistics);
+        LOGGER.debug("applied the parameters on buffer: {}.", statistics);
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int start, int end) {
+        ByteBuffer slice = buffer.duplicate();
+        slice.limit(end);
+        slice.position(start);
+        return slice;
+    }
+
+    private static void writeFully(WritableByteChannel output, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            output.write(buffer);
+        }
+    }
+
+    /**
+     * Get the statistics of the last file that transformed by the current thread.
+     *
+     * @return The statistics or null if there is no file transformed by the current thread.
+     */
+    public SubstitutionStatistics getLastStatistics() {
+        return lastStatistics.get();
+    }
+
+    @Override
+    public boolean isTransformRequired(InputStream input) {
+        Placeholders placeholders = getPlaceholders();
+        PlaceholderAutomaton automaton = placeholders.automaton;
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try {
+            int state = 0;
+            for (int length = input.read(buffer); length >= 0; length = input.read(buffer)) {
+                for (int i = 0; i < length; i++) {
+                    state = automaton.next(state, buffer[i]);
+                    if (PlaceholderAutomaton.NO_MATCH != automaton.getMatch(state)) {
+                        return true;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new TextTransformUtilException(e);
+        }
+        lastStatistics.set(new SubstitutionStatistics(placeholders.parameterCount));
+        return false;
+    }
+
+    /**
+     * The automaton is built on the first file after the configuration changed, since the configuration might be set several times.
+     */
+    private Placeholders getPlaceholders() {
+        Placeholders result = placeholders;
+        if (null == result) {
+            synchronized (this) {
+                if (null == placeholders) {
+                    placeholders = new Placeholders(parameterNameValueMap, styles, charset);
+                }
+                result = placeholders;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized String getFingerprint() {
+        List<String> values = new ArrayList<>(styles);
+        values.add(charset.name());
+        for (Map.Entry<String, String> entry : parameterNameValueMap.entrySet()) {
+            values.add(entry.getKey());
+            values.add(entry.getValue());
+        }
+        return Hashes.hashStrings(values);
+    }
+
+    @Override
+    public synchronized void set(Properties conf) {
+        if (conf.containsKey(PLACEHOLDER_STYLES_CONF_NAME)) {
+            List<String> stylesConf = new ArrayList<>();
+            for (String style : conf.getProperty(PLACEHOLDER_STYLES_CONF_NAME).split(PLACEHOLDER_STYLES_SEPARATOR)) {
+                style = style.trim().toLowerCase();
+                if (!STYLE_DOLLAR.equals(style) && !STYLE_AT.equals(style)) {
+                    throw new TextTransformUtilException(String.format("Unsupported placeholder style \"%s\" in \"%s\".", style, PLACEHOLDER_STYLES_CONF_NAME));
+                }
+                stylesConf.add(style);
+            }
+            this.styles = stylesConf;
+        }
+        if (conf.containsKey(CHARSET_CONF_NAME)) {
+            String charsetConf = conf.getProperty(CHARSET_CONF_NAME).trim();
+            try {
+                this.charset = Charset.forName(charsetConf);
+            } catch (IllegalArgumentException e) {
+                throw new TextTransformUtilException(String.format("Unsupported charset \"%s\" in \"%s\".", charsetConf, CHARSET_CONF_NAME), e);
+            }
+        }
+        conf.stringPropertyNames().stream()
+                .filter(name -> name.startsWith(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX))
+                .forEach(name -> parameterNameValueMap.put(
+                        name.substring(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX.length()), conf.getProperty(name)
+                ));
+        LOGGER.debug("will replace the placeholders in styles {} of the parameters: {}.", styles, parameterNameValueMap.keySet());
+        this.placeholders = null;
+    }
+
+    /**
+     * The placeholders of all the configured parameters in all the configured styles. The id of each placeholder is its index in the arrays.
+     */
+    private static class Placeholders {
+        private final PlaceholderAutomaton automaton;
+        private final int parameterCount;
+        private final String[] names;
+        private final byte[][] values;
+
+        private Placeholders(Map<String, String> parameterNameValueMap, List<String> styles, Charset charset) {
+            List<byte[]> placeholderBytes = new ArrayList<>();
+            List<String> nameList = new ArrayList<>();
+            List<byte[]> valueList = new ArrayList<>();
+            for (Map.Entry<String, String> entry : parameterNameValueMap.entrySet()) {
+                byte[] value = entry.getValue().getBytes(charset);
+                for (String style : styles) {
+                    String placeholder = STYLE_DOLLAR.equals(style) ? "${" + entry.getKey() + "}" : "@" + entry.getKey() + "@";
+                    placeholderBytes.add(placeholder.getBytes(charset));
+                    nameList.add(entry.getKey());
+                    valueList.add(value);
+                }
+            }
+            this.automaton = new PlaceholderAutomaton(placeholderBytes);
+            this.parameterCount = parameterNameValueMap.size();
+            this.names = nameList.toArray(new String[0]);
+            this.values = valueList.toArray(new byte[0][]);
+        }
+    }
+}
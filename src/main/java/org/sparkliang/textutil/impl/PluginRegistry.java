@@ -0,0 +1,131 @@
+package org.sparkliang.textutil.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sparkliang.textutil.api.Configurable;
+import org.sparkliang.textutil.api.PluginLibrary;
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.function.Supplier;
+
+/**
+ * Resolve the plugins by their aliases or class names, and create their instances.<br>
+ * The plugins registered by the {@link PluginLibrary} found on the class path are created by their factories.
+ * The other classes are still supported by their class names, and they are loaded and created by reflection.
+ * The libraries are only loaded on the first use.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public final class PluginRegistry {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PluginRegistry.class);
+
+    private PluginRegistry() {
+    }
+
+    /**
+     * @param name            The alias or the class name of the plugin.
+     * @param implementsClass The interface that the plugin should implement.
+     * @return The class of the plugin, which has a factory or a default constructor.
+     * @throws TextTransformUtilException If there is no such plugin.
+     */
+    public static Class<?> resolve(String name, Class<?> implementsClass) {
+        Class<?> clazz = Plugins.INSTANCE.aliases.get(name);
+        if (null == clazz) {
+            clazz = Plugins.INSTANCE.classesByName.get(name);
+        }
+        if (null == clazz) {
+            try {
+                clazz = Class.forName(name);
+            } catch (ClassNotFoundException e) {
+                throw new TextTransformUtilException(String.format("The given class \"%s\" is not exists.", name));
+            }
+        }
+        if (!implementsClass.isAssignableFrom(clazz)) {
+            throw new TextTransformUtilException(String.format("The given class \"%s\" is not implements \"%s\".", name, implementsClass.getName()));
+        }
+        if (!Plugins.INSTANCE.factories.containsKey(clazz)) {
+            try {
+                clazz.getConstructor();
+            } catch (NoSuchMethodException e) {
+                throw new TextTransformUtilException(String.format("The given class \"%s\" does not have the default constructor.", name));
+            }
+        }
+        return clazz;
+    }
+
+    /**
+     * @param clazz           The class returned by {@link #resolve(String, Class)}.
+     * @param implementsClass The interface of the instance.
+     * @return A new instance of the class.
+     * @throws TextTransformUtilException If the instance is unable to create.
+     */
+    public static <T> T create(Class<?> clazz, Class<T> implementsClass) {
+        Supplier<?> factory = Plugins.INSTANCE.factories.get(clazz);
+        if (null != factory) {
+            return implementsClass.cast(factory.get());
+        }
+        String className = clazz.getName();
+        try {
+            return implementsClass.cast(clazz.getConstructor().newInstance());
+        } catch (NoSuchMethodException e) {
+            throw new TextTransformUtilException(String.format("The given class \"%s\" does not have the default constructor.", className));
+        } catch (IllegalAccessException e) {
+            throw new TextTransformUtilException(String.format("The default constructor of \"%s\" is unable to access.", className));
+        } catch (InstantiationException | InvocationTargetException e) {
+            throw new TextTransformUtilException(String.format("The class \"%s\" is unable to create instance. Reason is: %s", className, e.getMessage()), e);
+        }
+    }
+
+    /**
+     * @param implementsClass The interface of the plugins.
+     * @return The aliases of the plugins that implement the given interface, in the order they are registered.
+     */
+    public static List<String> getAliases(Class<?> implementsClass) {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, Class<?>> entry : Plugins.INSTANCE.aliases.entrySet()) {
+            if (implementsClass.isAssignableFrom(entry.getValue())) {
+                result.add(entry.getKey());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The plugins of all the libraries, which are loaded when this class is initialized.
+     */
+    private static class Plugins implements PluginLibrary.Registrar {
+        private static final Plugins INSTANCE = new Plugins();
+
+        private final Map<String, Class<?>> aliases = new LinkedHashMap<>();
+        private final Map<String, Class<?>> classesByName = new HashMap<>();
+        private final Map<Class<?>, Supplier<?>> factories = new HashMap<>();
+
+        private Plugins() {
+            for (PluginLibrary library : ServiceLoader.load(PluginLibrary.class, PluginRegistry.class.getClassLoader())) {
+                library.register(this);
+            }
+            LOGGER.debug("the aliases of the plugins: {}.", aliases.keySet());
+        }
+
+        @Override
+        public <T extends Configurable> void register(String alias, Class<T> pluginClass, Supplier<? extends T> factory) {
+            Class<?> registered = aliases.get(alias);
+            if (null != registered && registered != pluginClass) {
+                LOGGER.warn("The alias \"{}\" of \"{}\" is already used by \"{}\".", alias, pluginClass.getName(), registered.getName());
+                return;
+            }
+            aliases.put(alias, pluginClass);
+            classesByName.putIfAbsent(pluginClass.getName(), pluginClass);
+            factories.putIfAbsent(pluginClass, factory);
+        }
+    }
+}
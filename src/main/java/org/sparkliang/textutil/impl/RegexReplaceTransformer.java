@@ -0,0 +1,365 @@
+package org.sparkliang.textutil.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sparkliang.textutil.api.AbstractStreamBasedTransformer;
+import org.sparkliang.textutil.api.Fingerprintable;
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The transformer that finds and replaces the text by regular expressions.<br>
+ * The patterns are compiled once when they are configured. The content is decoded into a window of characters that slides over the file,
+ * so a file of any size is processed without being loaded as a whole.
+ * All the rules are applied in one pass: at each position, the match that starts first is replaced,
+ * and the rule with the smaller number wins if two matches start at the same position. The replaced text is never matched again.
+ * Configurations:
+ * <p>
+ *     <ul>
+ *         <li>transformer.regex.&lt;n&gt;.pattern: The pattern of the rule number n, in the syntax of {@link Pattern}.
+ *         The flags can be embedded in the pattern, such as "(?i)" or "(?m)".</li>
+ *         <li>transformer.regex.&lt;n&gt;.replacement: The replacement of the rule number n, in the syntax of {@link Matcher#appendReplacement(StringBuffer, String)},
+ *         which refers to the groups by "$1" or "${name}". The default value is empty, which removes the matched text.</li>
+ *         <li>transformer.conf.max-match-length: The maximum length of a match in characters. The default value is 4096.
+ *         A match is only guaranteed to be the same as the one found in the whole file if it is not longer than this,
+ *         and the look-behind and look-ahead of a pattern can only see this number of characters around the match.</li>
+ *         <li>transformer.conf.window-size: The number of characters decoded at a time. It should be more than twice the maximum match length.
+ *         The default value is 262144.</li>
+ *         <li>transformer.conf.charset: The charset of the files. The default value is UTF-8.</li>
+ *     </ul>
+ * </p>
+ * The memory used by each file is the window, whatever the size of the file is.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public class RegexReplaceTransformer extends AbstractStreamBasedTransformer implements Fingerprintable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RegexReplaceTransformer.class);
+
+    public static final String RULE_CONF_PREFIX = "transformer.regex.";
+    public static final String PATTERN_CONF_SUFFIX = ".pattern";
+    public static final String REPLACEMENT_CONF_SUFFIX = ".replacement";
+    public static final String MAX_MATCH_LENGTH_CONF_NAME = "transformer.conf.max-match-length";
+    public static final String WINDOW_SIZE_CONF_NAME = "transformer.conf.window-size";
+    public static final String CHARSET_CONF_NAME = PlaceholderTransformer.CHARSET_CONF_NAME;
+
+    private static final Pattern RULE_CONF_PATTERN = Pattern.compile(
+            Pattern.quote(RULE_CONF_PREFIX) + "(\\d+)(" + Pattern.quote(PATTERN_CONF_SUFFIX) + "|" + Pattern.quote(REPLACEMENT_CONF_SUFFIX) + ")"
+    );
+
+    private final Properties configuration = new Properties();
+    private volatile List<Rule> rules = Collections.emptyList();
+    private volatile int maxMatchLength = 4096;
+    private volatile int windowSize = 256 * 1024;
+    private volatile Charset charset = StandardCharsets.UTF_8;
+
+    @Override
+    public void apply(InputStream input, OutputStream output) {
+        List<Rule> rules = this.rules;
+        int maxMatchLength = this.maxMatchLength;
+        Reader reader = new InputStreamReader(input, charset);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, charset));
+        char[] window = new char[windowSize];
+        Matcher[] matchers = new Matcher[rules.size()];
+        for (int i = 0; i < matchers.length; i++) {
+            matchers[i] = rules.get(i).pattern.matcher("");
+        }
+        // the matches found by each rule in the current window, or -1 if it is not found yet
+        int[] matchStarts = new int[matchers.length];
+        boolean[] noMatches = new boolean[matchers.length];
+        StringBuilder replacement = new StringBuilder();
+        long replacedCount = 0;
+        try {
+            // [0, position) is the text written but kept for the look-behind, and [position, end) is the text to be processed
+            int position = 0, end = 0;
+            boolean endOfInput = false;
+            while (true) {
+                while (end < window.length && !endOfInput) {
+                    int count = reader.read(window, end, window.length - end);
+                    if (count < 0) {
+                        endOfInput = true;
+                    } else {
+                        end += count;
+                    }
+                }
+                // the matches that start before the limit can not be changed by the text after the window
+                int limit = endOfInput ? end : end - maxMatchLength;
+                CharSequence windowContent = CharBuffer.wrap(window, 0, end);
+                for (int i = 0; i < matchers.length; i++) {
+                    matchers[i].reset(windowContent);
+                    matchStarts[i] = -1;
+                    noMatches[i] = false;
+                }
+
+                while (position < limit || (endOfInput && position == end)) {
+                    int rule = findFirstMatch(matchers, matchStarts, noMatches, position);
+                    if (rule < 0 || matchStarts[rule] >= limit && !(endOfInput && matchStarts[rule] == end)) {
+                        break;
+                    }
+                    Matcher matcher = matchers[rule];
+                    int matchStart = matcher.start(), matchEnd = matcher.end();
+                    writer.write(window, position, matchStart - position);
+                    replacement.setLength(0);
+                    rules.get(rule).replacement.appendTo(matcher, replacement);
+                    writer.append(replacement);
+                    replacedCount++;
+                    position = matchEnd;
+                    if (matchStart == matchEnd) {
+                        // an empty match, move on to avoid matching at the same position again
+                        if (position == end) {
+                            break;
+                        }
+                        writer.write(window[position]);
+                        position++;
+                    }
+                    for (int i = 0; i < matchers.length; i++) {
+                        if (matchStarts[i] >= 0 && matchStarts[i] < position || i == rule) {
+                            matchStarts[i] = -1;
+                        }
+                    }
+                }
+
+                if (endOfInput) {
+                    writer.write(window, position, end - position);
+                    break;
+                }
+                if (position < limit) {
+                    writer.write(window, position, limit - position);
+                    position = limit;
+                }
+                // keep the text for the look-behind and the text to be processed
+                int keepFrom = Math.max(0, position - maxMatchLength);
+                System.arraycopy(window, keepFrom, window, 0, end - keepFrom);
+                position -= keepFrom;
+                end -= keepFrom;
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new TextTransformUtilException(e);
+        }
+        LOGGER.debug("replaced {} matches.", replacedCount);
+    }
+
+    /**
+     * @return The rule whose next match starts first from the given position, or -1 if there is no more match in the window.
+     */
+    private static int findFirstMatch(Matcher[] matchers, int[] matchStarts, boolean[] noMatches, int position) {
+        int first = -1;
+        for (int i = 0; i < matchers.length; i++) {
+            if (noMatches[i]) {
+                continue;
+            }
+            if (matchStarts[i] < 0) {
+                if (matchers[i].find(position)) {
+                    matchStarts[i] = matchers[i].start();
+                } else {
+                    noMatches[i] = true;
+                    continue;
+                }
+            }
+            if (first < 0 || matchStarts[i] < matchStarts[first]) {
+                first = i;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * All the values are parsed and validated before any of them is kept, so a rejected configuration leaves the transformer as it was.
+     */
+    @Override
+    public synchronized void set(Properties conf) {
+        Properties merged = new Properties();
+        merged.putAll(configuration);
+        merged.putAll(conf);
+        // the window never moves on if it is not larger than the matches
+        int maxMatchLength = conf.containsKey(MAX_MATCH_LENGTH_CONF_NAME)
+                ? ConfigurationValues.getPositiveInt(merged, MAX_MATCH_LENGTH_CONF_NAME) : this.maxMatchLength;
+        int windowSize = conf.containsKey(WINDOW_SIZE_CONF_NAME) ? ConfigurationValues.getPositiveInt(merged, WINDOW_SIZE_CONF_NAME) : this.windowSize;
+        if (windowSize <= 2 * maxMatchLength) {
+            throw new TextTransformUtilException(String.format("The value of \"%s\" should be more than twice the value of \"%s\".",
+                    WINDOW_SIZE_CONF_NAME, MAX_MATCH_LENGTH_CONF_NAME));
+        }
+        Charset charset = this.charset;
+        if (conf.containsKey(CHARSET_CONF_NAME)) {
+            String charsetConf = conf.getProperty(CHARSET_CONF_NAME).trim();
+            try {
+                charset = Charset.forName(charsetConf);
+            } catch (IllegalArgumentException e) {
+                throw new TextTransformUtilException(String.format("Unsupported charset \"%s\" in \"%s\".", charsetConf, CHARSET_CONF_NAME), e);
+            }
+        }
+        List<Rule> rules = parseRules(merged);
+
+        configuration.putAll(conf);
+        this.maxMatchLength = maxMatchLength;
+        this.windowSize = windowSize;
+        this.charset = charset;
+        LOGGER.debug("will replace by {} rules.", rules.size());
+        this.rules = Collections.unmodifiableList(rules);
+    }
+
+    private static List<Rule> parseRules(Properties conf) {
+        Map<Integer, String> patterns = new TreeMap<>(), replacements = new TreeMap<>();
+        for (String name : conf.stringPropertyNames()) {
+            Matcher matcher = RULE_CONF_PATTERN.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            int number = Integer.parseInt(matcher.group(1));
+            (PATTERN_CONF_SUFFIX.equals(matcher.group(2)) ? patterns : replacements).put(number, conf.getProperty(name));
+        }
+        for (Integer number : replacements.keySet()) {
+            if (!patterns.containsKey(number)) {
+                throw new TextTransformUtilException(String.format("The pattern of the replacement \"%s%d%s\" is not configured.",
+                        RULE_CONF_PREFIX, number, REPLACEMENT_CONF_SUFFIX));
+            }
+        }
+        List<Rule> rules = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : patterns.entrySet()) {
+            rules.add(new Rule(entry.getKey(), entry.getValue(), replacements.getOrDefault(entry.getKey(), "")));
+        }
+        return rules;
+    }
+
+    @Override
+    public String getFingerprint() {
+        List<String> values = new ArrayList<>();
+        values.add(String.valueOf(maxMatchLength));
+        values.add(String.valueOf(windowSize));
+        values.add(charset.name());
+        for (Rule rule : rules) {
+            values.add(rule.pattern.pattern());
+            values.add(rule.replacementConf);
+        }
+        return Hashes.hashStrings(values);
+    }
+
+    private static class Rule {
+        private final Pattern pattern;
+        private final String replacementConf;
+        private final ReplacementTemplate replacement;
+
+        private Rule(int number, String patternConf, String replacementConf) {
+            try {
+                this.pattern = Pattern.compile(patternConf);
+                this.replacement = new ReplacementTemplate(replacementConf, pattern.matcher("").groupCount());
+            } catch (IllegalArgumentException e) {
+                throw new TextTransformUtilException(String.format("Invalid rule %d: %s", number, e.getMessage()), e);
+            }
+            this.replacementConf = replacementConf;
+        }
+    }
+
+    /**
+     * The replacement parsed once, in the same syntax as {@link Matcher#appendReplacement(StringBuffer, String)}.
+     * It is used instead of {@link Matcher#appendReplacement(StringBuffer, String)},
+     * which also appends all the text since the last replacement of the same matcher.
+     */
+    private static class ReplacementTemplate {
+        /**
+         * Each part is a {@link String} of the literal text, an {@link Integer} of the group number or a {@link GroupName}.
+         */
+        private final List<Object> parts = new ArrayList<>();
+
+        private ReplacementTemplate(String replacement, int groupCount) {
+            StringBuilder literal = new StringBuilder();
+            for (int i = 0; i < replacement.length(); ) {
+                char c = replacement.charAt(i++);
+                if ('\\' == c) {
+                    if (i == replacement.length()) {
+                        throw new IllegalArgumentException("character to be escaped is missing");
+                    }
+                    literal.append(replacement.charAt(i++));
+                } else if ('$' == c) {
+                    if (i == replacement.length()) {
+                        throw new IllegalArgumentException("Illegal group reference: group index is missing");
+                    }
+                    if (literal.length() > 0) {
+                        parts.add(literal.toString());
+                        literal.setLength(0);
+                    }
+                    if ('{' == replacement.charAt(i)) {
+                        int close = replacement.indexOf('}', i);
+                        if (close < 0) {
+                            throw new IllegalArgumentException("named capturing group is missing trailing '}'");
+                        }
+                        parts.add(new GroupName(replacement.substring(i + 1, close)));
+                        i = close + 1;
+                    } else {
+                        // the same as the matcher, take the digits as long as the group number exists
+                        int group = replacement.charAt(i++) - '0';
+                        if (group < 0 || group > 9) {
+                            throw new IllegalArgumentException("Illegal group reference");
+                        }
+                        while (i < replacement.length()) {
+                            int digit = replacement.charAt(i) - '0';
+                            if (digit < 0 || digit > 9 || group * 10 + digit > groupCount) {
+                                break;
+                            }
+                            group = group * 10 + digit;
+                            i++;
+                        }
+                        if (group > groupCount) {
+                            throw new IllegalArgumentException("No group " + group);
+                        }
+                        parts.add(group);
+                    }
+                } else {
+                    literal.append(c);
+                }
+            }
+            if (literal.length() > 0) {
+                parts.add(literal.toString());
+            }
+        }
+
+        void appendTo(Matcher matcher, StringBuilder result) {
+            for (Object part : parts) {
+                String value;
+                if (part instanceof String) {
+                    value = (String) part;
+                } else if (part instanceof Integer) {
+                    value = matcher.group((Integer) part);
+                } else {
+                    try {
+                        value = matcher.group(((GroupName) part).name);
+                    } catch (IllegalArgumentException e) {
+                        throw new TextTransformUtilException(e.getMessage(), e);
+                    }
+                }
+                if (null != value) {
+                    result.append(value);
+                }
+            }
+        }
+    }
+
+    private static class GroupName {
+        private final String name;
+
+        private GroupName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.sparkliang.textutil.impl;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The bounded queue of the source files between the walker and the workers, which also decides when a file may start.<br>
+ * In the largest-first order, the largest file of the queue is taken first, so a large file found late does not become the last one running
+ * while the other workers are idle. Since the walk goes on while the files are transformed, the order only applies within the files in the queue.<br>
+ * Each file taken holds its estimated heap cost, which is its size multiplied by the cost factor, until it is released.
+ * A file is only taken when its cost fits in what is left of the heap budget, so the files running at the same time never exceed the budget,
+ * except that a file larger than the whole budget is taken alone. The files are always taken in the queue order,
+ * so a large file waits for the budget instead of being overtaken by the smaller ones forever.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class SourceFileQueue {
+
+    private final int capacity;
+    private final long heapBudget;
+    private final long heapCostFactor;
+    private final Queue<SourceFile> files;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition admissible = lock.newCondition();
+    private boolean ended = false;
+    private long heapInUse = 0;
+    private int filesRunning = 0;
+
+    /**
+     * @param capacity       The maximum number of files in the queue.
+     * @param largestFirst   Whether the largest file is taken first, otherwise the files are taken in the order they are put.
+     * @param heapBudget     The total estimated heap cost of the files running at the same time, in bytes.
+     * @param heapCostFactor The estimated heap cost of a file is its size multiplied by this factor.
+     */
+    SourceFileQueue(int capacity, boolean largestFirst, long heapBudget, long heapCostFactor) {
+        this.capacity = capacity;
+        this.heapBudget = heapBudget;
+        this.heapCostFactor = heapCostFactor;
+        this.files = largestFirst ? new PriorityQueue<>(Comparator.comparingLong((SourceFile file) -> file.size).reversed()) : new ArrayDeque<>();
+    }
+
+    /**
+     * Put a file, and wait for the space of the queue for at most the given time.
+     *
+     * @return false if the queue is still full.
+     */
+    boolean offer(Path path, long size, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (files.size() >= capacity) {
+                if (nanos <= 0) {
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            files.add(new SourceFile(path, size, Math.min(multiplyExactOrMax(size, heapCostFactor), heapBudget)));
+            admissible.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(Path path, long size) throws InterruptedException {
+        while (!offer(path, size, Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+            // wait until there is space
+        }
+    }
+
+    /**
+     * Tell the workers that there are no more files once the queue is empty.
+     */
+    void end() {
+        lock.lock();
+        try {
+            ended = true;
+            admissible.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Wait until the next file fits in the heap budget, and take it. It should be released once it is transformed.
+     *
+     * @return The file, or null if all the files have been taken.
+     */
+    SourceFile take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                SourceFile next = files.peek();
+                if (null == next) {
+                    if (ended) {
+                        return null;
+                    }
+                } else if (0 == filesRunning || heapInUse + next.heapCost <= heapBudget) {
+                    files.poll();
+                    heapInUse += next.heapCost;
+                    filesRunning++;
+                    notFull.signal();
+                    return next;
+                }
+                admissible.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void release(SourceFile file) {
+        lock.lock();
+        try {
+            heapInUse -= file.heapCost;
+            filesRunning--;
+            admissible.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long multiplyExactOrMax(long size, long factor) {
+        try {
+            return Math.multiplyExact(size, factor);
+        } catch (ArithmeticException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    static class SourceFile {
+        private final Path path;
+        private final long size;
+        private final long heapCost;
+
+        private SourceFile(Path path, long size, long heapCost) {
+            this.path = path;
+            this.size = size;
+            this.heapCost = heapCost;
+        }
+
+        Path getPath() {
+            return path;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package org.sparkliang.textutil.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+
+import java.io.IOException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.EnumSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Walk the source directory and hand the files over to the workers through a bounded queue.<br>
+ * The files are produced while the workers are transforming the files found before,
+ * so the memory used does not grow with the size of the directory tree.
+ * The walker blocks when the queue is full and the queue is ended after the last file.
+ * If the walk fails, the queue is not ended and the caller should stop the workers.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class SourceFileWalker extends SimpleFileVisitor<Path> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SourceFileWalker.class);
+
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final Path sourceRoot;
+    private final String[] fileSuffixes;
+    private final SourceFileQueue queue;
+    private final TransformErrors errors;
+
+    /**
+     * @param sourceRoot     The directory to walk.
+     * @param fileExtensions Only the files with these extensions are produced. All the files are produced if it is null.
+     * @param queue          The queue that the files are put into.
+     * @param errors         The files that unable to visit are recorded here. The walk stops once it tells to stop.
+     */
+    SourceFileWalker(Path sourceRoot, String[] fileExtensions, SourceFileQueue queue, TransformErrors errors) {
+        this.sourceRoot = sourceRoot;
+        this.queue = queue;
+        this.errors = errors;
+        this.fileSuffixes = toFileSuffixes(fileExtensions);
+    }
+
+    /**
+     * @return The suffixes of the file names with the given extensions, or null if all the files are accepted.
+     */
+    static String[] toFileSuffixes(String[] fileExtensions) {
+        if (null == fileExtensions) {
+            return null;
+        }
+        String[] fileSuffixes = new String[fileExtensions.length];
+        for (int i = 0; i < fileExtensions.length; i++) {
+            fileSuffixes[i] = "." + fileExtensions[i];
+        }
+        return fileSuffixes;
+    }
+
+    /**
+     * Walk the whole directory tree and end the queue.
+     */
+    void walk() {
+        try {
+            Files.walkFileTree(sourceRoot, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, this);
+        } catch (IOException e) {
+            throw new TextTransformUtilException(e);
+        }
+        queue.end();
+    }
+
+    boolean accepts(Path file) {
+        return accepts(file, fileSuffixes);
+    }
+
+    /**
+     * @param fileSuffixes The suffixes returned by {@link #toFileSuffixes(String[])}.
+     */
+    static boolean accepts(Path file, String[] fileSuffixes) {
+        return accepts(file.getFileName().toString(), fileSuffixes);
+    }
+
+    static boolean accepts(String fileName, String[] fileSuffixes) {
+        if (null == fileSuffixes) {
+            return true;
+        }
+        for (String suffix : fileSuffixes) {
+            if (fileName.endsWith(suffix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        if (!attrs.isRegularFile() || !accepts(file)) {
+            return FileVisitResult.CONTINUE;
+        }
+        return put(file, attrs.size()) && !errors.shouldStop() ? FileVisitResult.CONTINUE : FileVisitResult.TERMINATE;
+    }
+
+    /**
+     * Wait until there is space in the queue, unless the errors tell to stop.
+     *
+     * @return false if the file is not put into the queue because of stopping.
+     */
+    private boolean put(Path file, long size) {
+        try {
+            while (!queue.offer(file, size, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (errors.shouldStop()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TextTransformUtilException("Interrupted while walking the source directory.", e);
+        }
+    }
+
+    @Override
+    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+        LOGGER.warn("Unable to visit \"{}\".", file, exc);
+        errors.record(sourceRoot.relativize(file).toString(), exc);
+        return errors.shouldStop() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+    }
+}
@@ -0,0 +1,191 @@
+package org.sparkliang.textutil.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watch the source directory tree by a {@link WatchService} and report the changes in bursts.<br>
+ * A {@link WatchService} only watches one directory, so each directory of the tree is registered,
+ * including the ones created while watching. The events are collected until there is no event for a while,
+ * and then each path is reported by its state at that time, so a file saved by several writes or by a rename is reported once.
+ * The excluded directories, such as a target inside the source, are never watched.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class SourceTreeWatcher implements Closeable {
+    private static final Logger LOGGER = LoggerFactory.getLogger(SourceTreeWatcher.class);
+
+    private final Path sourceRoot;
+    private final List<Path> excludedDirectories;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+
+    /**
+     * @param sourceRoot          The absolute path of the source directory.
+     * @param excludedDirectories The absolute paths of the directories not to watch.
+     */
+    SourceTreeWatcher(Path sourceRoot, List<Path> excludedDirectories) throws IOException {
+        this.sourceRoot = sourceRoot;
+        this.excludedDirectories = excludedDirectories;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        register(sourceRoot, null);
+        LOGGER.debug("watching {} directories under \"{}\".", watchedDirectories.size(), sourceRoot);
+    }
+
+    /**
+     * Wait until the source is changed, and then until there is no more change for the given time.
+     *
+     * @param quietMillis The time without any change that ends a burst of changes.
+     * @return The changes of the burst.
+     */
+    Changes awaitChanges(long quietMillis) throws InterruptedException, IOException {
+        Set<Path> changedPaths = new LinkedHashSet<>();
+        boolean overflowed = false;
+        WatchKey key = watchService.take();
+        while (null != key) {
+            Path directory = watchedDirectories.get(key);
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (StandardWatchEventKinds.OVERFLOW == event.kind()) {
+                    overflowed = true;
+                } else if (null != directory) {
+                    changedPaths.add(directory.resolve((Path) event.context()));
+                }
+            }
+            if (!key.reset()) {
+                // the directory is deleted
+                watchedDirectories.remove(key);
+            }
+            key = watchService.poll(quietMillis, TimeUnit.MILLISECONDS);
+        }
+
+        Changes changes = new Changes(overflowed);
+        if (overflowed) {
+            // some directories created might be missed
+            register(sourceRoot, null);
+        }
+        for (Path path : changedPaths) {
+            if (isExcluded(path)) {
+                continue;
+            }
+            if (Files.isDirectory(path)) {
+                if (!watchedDirectories.containsValue(path)) {
+                    // the files might be created before the directory is registered
+                    register(path, changes);
+                }
+            } else if (Files.isRegularFile(path)) {
+                changes.changedFiles.add(path);
+            } else if (!Files.exists(path, LinkOption.NOFOLLOW_LINKS)) {
+                changes.deletedPaths.add(path);
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Register the directory and all the directories under it.
+     *
+     * @param changes The files under the directory are reported as changed into it, unless it is null.
+     */
+    private void register(Path directory, Changes changes) throws IOException {
+        Files.walkFileTree(directory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (isExcluded(dir)) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                WatchKey key = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+                watchedDirectories.put(key, dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (null != changes && attrs.isRegularFile()) {
+                    changes.changedFiles.add(file);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                LOGGER.warn("Unable to watch \"{}\".", file, exc);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private boolean isExcluded(Path path) {
+        for (Path excludedDirectory : excludedDirectories) {
+            if (path.startsWith(excludedDirectory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * The changes of a burst, in the order of their paths.
+     */
+    static class Changes {
+        private final boolean overflowed;
+        private final Set<Path> changedFiles = new TreeSet<>();
+        private final Set<Path> deletedPaths = new TreeSet<>();
+
+        private Changes(boolean overflowed) {
+            this.overflowed = overflowed;
+        }
+
+        /**
+         * @return true if some events are lost, so the whole source should be transformed again.
+         */
+        boolean isOverflowed() {
+            return overflowed;
+        }
+
+        /**
+         * @return The files that are created or modified.
+         */
+        Set<Path> getChangedFiles() {
+            return Collections.unmodifiableSet(changedFiles);
+        }
+
+        /**
+         * @return The files or the directories that are deleted. They might be created and deleted in the same burst.
+         */
+        Set<Path> getDeletedPaths() {
+            return Collections.unmodifiableSet(deletedPaths);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package org.sparkliang.textutil.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hand the bytes written by one thread over to another thread that reads them.<br>
+ * The bytes are passed in buffers through a bounded queue, and the buffers read are recycled for writing,
+ * so at most {@code bufferCount} buffers are allocated whatever the size of the content is.
+ * <ul>
+ *     <li>The writer closes {@link #getOutputStream()} to tell the reader the end of the content,
+ *     or calls {@link #fail(Throwable)} to make the reader fail.</li>
+ *     <li>The reader closes {@link #getInputStream()} when it does not need the rest of the content, and the rest is discarded,
+ *     or calls {@link #abort()} to make the writer fail.</li>
+ * </ul>
+ * Unlike {@link java.io.PipedInputStream}, neither side depends on whether the thread of the other side is alive.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class StreamHandoff {
+    private static final ByteBuffer END_OF_CONTENT = ByteBuffer.allocate(0);
+    private static final long OFFER_TIMEOUT_MILLIS = 100;
+
+    private final int bufferSize;
+    private final BlockingQueue<ByteBuffer> filledBuffers;
+    private final BlockingQueue<ByteBuffer> freeBuffers;
+    private volatile Throwable writerFailure = null;
+    private volatile boolean readerClosed = false;
+    private volatile boolean readerAborted = false;
+    private final OutputStream output = new HandoffOutputStream();
+    private final InputStream input = new HandoffInputStream();
+
+    StreamHandoff(int bufferSize, int bufferCount) {
+        this.bufferSize = bufferSize;
+        // one more slot for the end marker
+        this.filledBuffers = new ArrayBlockingQueue<>(bufferCount + 1);
+        this.freeBuffers = new ArrayBlockingQueue<>(bufferCount);
+        for (int i = 0; i < bufferCount; i++) {
+            freeBuffers.add(ByteBuffer.allocate(bufferSize));
+        }
+    }
+
+    OutputStream getOutputStream() {
+        return output;
+    }
+
+    InputStream getInputStream() {
+        return input;
+    }
+
+    /**
+     * Called by the writer. The reader gets an {@link IOException} caused by the given failure once it reads all the content written.
+     */
+    void fail(Throwable failure) {
+        writerFailure = failure;
+        try {
+            putFilled(END_OF_CONTENT);
+        } catch (IOException e) {
+            // the reader is gone, nobody needs to know the failure
+        }
+    }
+
+    /**
+     * Called by the reader. The writer gets an {@link AbortedException} on its next write.
+     */
+    void abort() {
+        readerAborted = true;
+        closeReader();
+    }
+
+    private void closeReader() {
+        readerClosed = true;
+        filledBuffers.clear();
+    }
+
+    private void putFilled(ByteBuffer buffer) throws IOException {
+        try {
+            while (!readerClosed) {
+                if (filledBuffers.offer(buffer, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while handing over the content.");
+        }
+        checkReader();
+    }
+
+    private void checkReader() throws IOException {
+        if (readerAborted) {
+            throw new AbortedException();
+        }
+    }
+
+    /**
+     * @return Whether the failure is caused by a reader that aborted, rather than by the writer itself.
+     */
+    static boolean isCausedByAbort(Throwable failure) {
+        for (Throwable cause = failure; null != cause; cause = cause.getCause()) {
+            if (cause instanceof AbortedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The failure of the writer after the reader aborted, which is only a consequence of the failure of the reader.
+     */
+    static class AbortedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private AbortedException() {
+            super("The reader of the content is aborted.");
+        }
+    }
+
+    private class HandoffOutputStream extends OutputStream {
+        private ByteBuffer current = null;
+        private boolean closed = false;
+
+        @Override
+        public void write(int b) throws IOException {
+            prepare().put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                ByteBuffer buffer = prepare();
+                int count = Math.min(len, buffer.remaining());
+                buffer.put(b, off, count);
+                off += count;
+                len -= count;
+            }
+        }
+
+        /**
+         * @return The buffer that has room for at least one byte.
+         */
+        private ByteBuffer prepare() throws IOException {
+            if (closed) {
+                throw new IOException("The stream is closed.");
+            }
+            checkReader();
+            if (null != current && !current.hasRemaining()) {
+                flush();
+            }
+            if (null == current) {
+                current = freeBuffers.poll();
+                if (null == current) {
+                    // all the buffers are being read or discarded by the reader
+                    current = ByteBuffer.allocate(bufferSize);
+                }
+            }
+            return current;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (null == current || 0 == current.position()) {
+                return;
+            }
+            if (readerClosed) {
+                // the rest of the content is discarded, so the buffer can be reused
+                checkReader();
+                current.clear();
+                return;
+            }
+            current.flip();
+            ByteBuffer filled = current;
+            current = null;
+            putFilled(filled);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            flush();
+            closed = true;
+            putFilled(END_OF_CONTENT);
+        }
+    }
+
+    private class HandoffInputStream extends InputStream {
+        private ByteBuffer current = null;
+        private boolean ended = false;
+
+        @Override
+        public int read() throws IOException {
+            ByteBuffer buffer = next();
+            return null == buffer ? -1 : buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (0 == len) {
+                return 0;
+            }
+            ByteBuffer buffer = next();
+            if (null == buffer) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return null == current ? 0 : current.remaining();
+        }
+
+        /**
+         * @return The buffer that has at least one byte to read, or null at the end of the content.
+         */
+        private ByteBuffer next() throws IOException {
+            if (null != current && current.hasRemaining()) {
+                return current;
+            }
+            if (ended || readerClosed) {
+                return null;
+            }
+            if (null != current) {
+                current.clear();
+                freeBuffers.offer(current);
+                current = null;
+            }
+            ByteBuffer buffer;
+            try {
+                buffer = filledBuffers.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the content.");
+            }
+            if (END_OF_CONTENT == buffer) {
+                ended = true;
+                if (null != writerFailure) {
+                    throw new IOException("The writer of the content failed.", writerFailure);
+                }
+                return null;
+            }
+            current = buffer;
+            return current;
+        }
+
+        @Override
+        public void close() {
+            closeReader();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.sparkliang.textutil.impl;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The statistics of applying the configured parameters on one file.<br>
+ * It tells which configured parameters are found in the file, how many of them are not found and how many parameter elements are replaced.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public class SubstitutionStatistics {
+
+    private final int configuredCount;
+    private final Set<String> matchedParameters = new HashSet<>();
+    private int replacedCount = 0;
+
+    SubstitutionStatistics(int configuredCount) {
+        this.configuredCount = configuredCount;
+    }
+
+    void recordReplacement(String paramName) {
+        matchedParameters.add(paramName);
+        replacedCount++;
+    }
+
+    /**
+     * @return The names of the configured parameters that appear in the file.
+     */
+    public Set<String> getMatchedParameters() {
+        return Collections.unmodifiableSet(matchedParameters);
+    }
+
+    public int getMatchedCount() {
+        return matchedParameters.size();
+    }
+
+    public int getUnmatchedCount() {
+        return configuredCount - matchedParameters.size();
+    }
+
+    /**
+     * @return The number of parameter elements whose value has been replaced. One parameter can appear more than once in the file.
+     */
+    public int getReplacedCount() {
+        return replacedCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("matched=%d, unmatched=%d, replaced=%d", getMatchedCount(), getUnmatchedCount(), replacedCount);
+    }
+}
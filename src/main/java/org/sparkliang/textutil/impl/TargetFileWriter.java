@@ -0,0 +1,260 @@
+package org.sparkliang.textutil.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Write the target files of one run.<br>
+ * Each file is written into a temporary file in the same directory first, and then renamed to the target file,
+ * so a crash never leaves a half-written target file. The durability is controlled by the fsync policy:
+ * <ul>
+ *     <li>none: Never call fsync. The files might be lost or empty after a power failure.</li>
+ *     <li>per-file: Call fsync on each file before renaming it, and on its directory after renaming it.</li>
+ *     <li>batch: Keep the complete temporary files until the end of the run, and then call fsync on all of them, rename them
+ *     and call fsync on their directories. The target files are only replaced at the end of the run, and never by a file not synced.</li>
+ * </ul>
+ * A target file of the same content as another target file can also be linked or copied from it, which is committed in the same way.
+ * The directories created are remembered, so the parent directories of each file are only checked once in a run.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class TargetFileWriter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TargetFileWriter.class);
+
+    static final String FSYNC_NONE = "none";
+    static final String FSYNC_PER_FILE = "per-file";
+    static final String FSYNC_BATCH = "batch";
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    private final String fsyncPolicy;
+    private final Set<Path> createdDirectories = ConcurrentHashMap.newKeySet();
+    /**
+     * The temporary files of the target files committed, which are renamed at the end of the run if the policy is batch.
+     */
+    private final Map<Path, Path> pendingRenames = new ConcurrentHashMap<>();
+
+    TargetFileWriter(String fsyncPolicy) {
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    /**
+     * Open the temporary file of the given target file. The parent directories are created if they are not exist.
+     */
+    PendingFile open(File targetFile) throws IOException {
+        Path target = targetFile.toPath().toAbsolutePath();
+        // Files.createTempFile is not used, because it creates the file that only readable by the owner.
+        Path temp = createParentDirectories(target).resolve(getTempFileName(target));
+        Files.createFile(temp);
+        return new PendingFile(temp, target);
+    }
+
+    /**
+     * Make the target file the same as a file already committed, by a hard link if it is required and supported,
+     * otherwise by a copy. It is safe to link the target files, since a target file is always replaced by a rename instead of being written in place.
+     *
+     * @param committedFile The file to link or copy.
+     * @param hardLink      Whether to link the file. It falls back to a copy if the file system is unable to link it, such as across devices.
+     * @return The size of the target file.
+     */
+    long linkOrCopy(File committedFile, File targetFile, boolean hardLink) throws IOException {
+        Path committedPath = committedFile.toPath().toAbsolutePath();
+        // the committed file is still the temporary file until the end of the run if the policy is batch
+        Path source = pendingRenames.getOrDefault(committedPath, committedPath);
+        Path target = targetFile.toPath().toAbsolutePath();
+        Path temp = createParentDirectories(target).resolve(getTempFileName(target));
+        boolean linked = false;
+        long size;
+        if (hardLink) {
+            try {
+                Files.createLink(temp, source);
+                linked = true;
+            } catch (UnsupportedOperationException | IOException e) {
+                LOGGER.debug("unable to link \"{}\" to \"{}\", copy it instead.", target, source, e);
+            }
+        }
+        try {
+            if (!linked) {
+                Files.copy(source, temp);
+                if (FSYNC_PER_FILE.equals(fsyncPolicy)) {
+                    sync(temp);
+                }
+            }
+            size = Files.size(temp);
+            replaceTarget(temp, target);
+        } finally {
+            if (!pendingRenames.containsKey(target)) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        return size;
+    }
+
+    private Path createParentDirectories(Path target) throws IOException {
+        Path directory = target.getParent();
+        if (!createdDirectories.contains(directory)) {
+            Files.createDirectories(directory);
+            createdDirectories.add(directory);
+        }
+        return directory;
+    }
+
+    private static String getTempFileName(Path target) {
+        return "." + target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + TEMP_FILE_SUFFIX;
+    }
+
+    /**
+     * Rename the complete temporary file to the target file, and sync it as the policy requires.
+     * The rename is deferred to {@link #finish()} if the policy is batch.
+     */
+    private void replaceTarget(Path temp, Path target) throws IOException {
+        if (FSYNC_BATCH.equals(fsyncPolicy)) {
+            pendingRenames.put(target, temp);
+            return;
+        }
+        rename(temp, target);
+        if (FSYNC_PER_FILE.equals(fsyncPolicy)) {
+            syncDirectory(target.getParent());
+        }
+    }
+
+    private static void rename(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * If the policy is batch, call fsync on all the temporary files committed by this run, then rename them to the target files,
+     * and call fsync on their directories. If any of them is unable to be synced, none of the target files is replaced.
+     * Nothing is done for the other policies.
+     */
+    void finish() {
+        if (!FSYNC_BATCH.equals(fsyncPolicy)) {
+            return;
+        }
+        Set<Path> directories = ConcurrentHashMap.newKeySet();
+        try {
+            for (Path temp : pendingRenames.values()) {
+                try {
+                    sync(temp);
+                } catch (IOException e) {
+                    throw new TextTransformUtilException(String.format("Unable to sync \"%s\".", temp), e);
+                }
+            }
+            for (Map.Entry<Path, Path> pendingRename : pendingRenames.entrySet()) {
+                try {
+                    rename(pendingRename.getValue(), pendingRename.getKey());
+                } catch (IOException e) {
+                    throw new TextTransformUtilException(String.format("Unable to replace \"%s\".", pendingRename.getKey()), e);
+                }
+                directories.add(pendingRename.getKey().getParent());
+            }
+        } finally {
+            for (Path temp : pendingRenames.values()) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    LOGGER.debug("unable to delete \"{}\".", temp, e);
+                }
+            }
+            pendingRenames.clear();
+        }
+        for (Path directory : directories) {
+            syncDirectory(directory);
+        }
+        LOGGER.debug("synced the files in {} directories.", directories.size());
+    }
+
+    private static void sync(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Make the rename durable. Some platforms, such as Windows, are unable to open a directory, and it is ignored on them.
+     */
+    private static void syncDirectory(Path directory) {
+        try {
+            sync(directory);
+        } catch (IOException e) {
+            LOGGER.debug("unable to sync the directory \"{}\".", directory, e);
+        }
+    }
+
+    /**
+     * The temporary file of a target file. It should be closed whether or not it is committed.
+     */
+    class PendingFile implements Closeable {
+        private final Path temp;
+        private final Path target;
+        private final FileOutputStream out;
+        private boolean committed = false;
+
+        private PendingFile(Path temp, Path target) throws IOException {
+            this.temp = temp;
+            this.target = target;
+            this.out = new FileOutputStream(temp.toFile());
+        }
+
+        FileOutputStream getOutputStream() {
+            return out;
+        }
+
+        /**
+         * @return The path of the temporary file, which holds the content written until it is committed.
+         */
+        Path getTempPath() {
+            return temp;
+        }
+
+        /**
+         * Replace the target file with the content written, or at the end of the run if the policy is batch.
+         *
+         * @return The size of the target file.
+         */
+        long commit() throws IOException {
+            long size = out.getChannel().size();
+            if (FSYNC_PER_FILE.equals(fsyncPolicy)) {
+                out.getChannel().force(true);
+            }
+            out.close();
+            replaceTarget(temp, target);
+            committed = true;
+            return size;
+        }
+
+        /**
+         * Remove the temporary file if it is not committed.
+         */
+        @Override
+        public void close() throws IOException {
+            if (committed) {
+                return;
+            }
+            out.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package org.sparkliang.textutil.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The cache of the transformed contents on the local disk, which is shared by all the runs and the processes using the same directory.<br>
+ * Each entry is a file named by its key, which holds the transformed content followed by its length, so a truncated entry is never served.
+ * An entry is written into a temporary file first and then renamed, so the other processes either see the whole entry or nothing.
+ * The last modified time of an entry is its last use, and the least recently used entries are evicted
+ * once the size of the cache exceeds the limit, until it is under 90% of the limit.<br>
+ * The size is counted by each process from the last eviction, so the entries added by the other processes are only counted
+ * by the next eviction. The evictions of the processes are serialized by the lock of the file ".lock" in the directory.
+ * An entry deleted while it is being read is still read completely on the systems that allow it, and it is a miss on the others.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class TransformCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransformCache.class);
+
+    /**
+     * It is a part of the keys, so the entries of another format are never read.
+     */
+    static final String FORMAT_VERSION = "1";
+
+    private static final String LOCK_FILE_NAME = ".lock";
+    private static final String TEMP_DIRECTORY_NAME = "tmp";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final int LENGTH_SIZE = Long.BYTES;
+    private static final long STALE_TEMP_FILE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final Path directory;
+    private final Path tempDirectory;
+    private final long maxSize;
+    private final AtomicLong size = new AtomicLong();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Open the cache in the directory, which is created if it is not exist.
+     *
+     * @param maxSize The maximum size of the cache in bytes.
+     */
+    TransformCache(Path directory, long maxSize) throws IOException {
+        this.directory = directory.toAbsolutePath();
+        this.tempDirectory = this.directory.resolve(TEMP_DIRECTORY_NAME);
+        this.maxSize = maxSize;
+        Files.createDirectories(tempDirectory);
+        // the size is unknown until the entries are counted by an eviction, so the cache counts as full until then
+        size.set(maxSize + 1);
+        evictIfFull();
+    }
+
+    /**
+     * Write the content of the entry into the channel, from its position.
+     *
+     * @return false if there is no such entry, and nothing is written.
+     */
+    boolean load(String key, FileChannel target) throws IOException {
+        Path entry = getEntryPath(key);
+        long targetPosition = target.position();
+        try (FileChannel in = FileChannel.open(entry, StandardOpenOption.READ)) {
+            long entrySize = in.size();
+            if (entrySize < LENGTH_SIZE || readLength(in, entrySize - LENGTH_SIZE) != entrySize - LENGTH_SIZE) {
+                LOGGER.warn("The cache entry \"{}\" is broken, delete it.", entry);
+                Files.deleteIfExists(entry);
+                missCount.incrementAndGet();
+                return false;
+            }
+            long contentSize = entrySize - LENGTH_SIZE;
+            for (long position = 0; position < contentSize; ) {
+                position += in.transferTo(position, contentSize - position, target);
+            }
+        } catch (NoSuchFileException e) {
+            missCount.incrementAndGet();
+            return false;
+        } catch (IOException e) {
+            target.truncate(targetPosition);
+            target.position(targetPosition);
+            LOGGER.warn("Unable to read the cache entry \"{}\".", entry, e);
+            missCount.incrementAndGet();
+            return false;
+        }
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            LOGGER.debug("unable to touch the cache entry \"{}\".", entry, e);
+        }
+        hitCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Put the content of the file as the entry. The cache is only a shortcut, so any failure is logged instead of thrown.
+     */
+    void store(String key, Path file) {
+        Path entry = getEntryPath(key);
+        Path temp = tempDirectory.resolve(Long.toHexString(ThreadLocalRandom.current().nextLong()) + TEMP_FILE_SUFFIX);
+        try {
+            long contentSize;
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                contentSize = in.size();
+                for (long position = 0; position < contentSize; ) {
+                    position += in.transferTo(position, contentSize - position, out);
+                }
+                ByteBuffer length = ByteBuffer.allocate(LENGTH_SIZE).putLong(0, contentSize);
+                while (length.hasRemaining()) {
+                    out.write(length, contentSize + length.position());
+                }
+            }
+            Files.createDirectories(entry.getParent());
+            Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            size.addAndGet(contentSize + LENGTH_SIZE);
+        } catch (AtomicMoveNotSupportedException e) {
+            LOGGER.warn("Unable to cache the content, since the file system of \"{}\" is unable to rename the files atomically.", directory);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to cache the content of \"{}\".", file, e);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException e) {
+                LOGGER.debug("unable to delete \"{}\".", temp, e);
+            }
+        }
+        evictIfFull();
+    }
+
+    private static long readLength(FileChannel in, long position) throws IOException {
+        ByteBuffer length = ByteBuffer.allocate(LENGTH_SIZE);
+        while (length.hasRemaining()) {
+            if (in.read(length, position + length.position()) < 0) {
+                return -1;
+            }
+        }
+        return length.getLong(0);
+    }
+
+    long getHitCount() {
+        return hitCount.get();
+    }
+
+    long getMissCount() {
+        return missCount.get();
+    }
+
+    private Path getEntryPath(String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    /**
+     * Evict the least recently used entries if the cache is full. It is skipped if another thread or process is evicting.
+     */
+    private void evictIfFull() {
+        if (size.get() <= maxSize || !evictionLock.tryLock()) {
+            return;
+        }
+        try (FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE_NAME), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = lockChannel.tryLock()) {
+            if (null == lock) {
+                return;
+            }
+            evict();
+        } catch (OverlappingFileLockException e) {
+            LOGGER.debug("another cache of the same directory is evicting.");
+        } catch (IOException e) {
+            LOGGER.warn("Unable to evict the cache \"{}\".", directory, e);
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void evict() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (file.getParent().equals(tempDirectory)) {
+                    // left by a process that crashed
+                    if (now - attrs.lastModifiedTime().toMillis() > STALE_TEMP_FILE_MILLIS) {
+                        Files.deleteIfExists(file);
+                    }
+                } else if (!file.getParent().equals(directory)) {
+                    entries.add(new Entry(file, attrs.size(), attrs.lastModifiedTime().toMillis()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                // deleted by another process
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        long totalSize = entries.stream().mapToLong(entry -> entry.size).sum();
+        int evictedCount = 0;
+        if (totalSize > maxSize) {
+            entries.sort(Comparator.comparingLong(entry -> entry.lastUsedMillis));
+            long targetSize = maxSize / 10 * 9;
+            for (Entry entry : entries) {
+                if (totalSize <= targetSize) {
+                    break;
+                }
+                try {
+                    Files.deleteIfExists(entry.path);
+                    totalSize -= entry.size;
+                    evictedCount++;
+                } catch (IOException e) {
+                    LOGGER.debug("unable to evict \"{}\", which might be in use.", entry.path, e);
+                }
+            }
+        }
+        size.set(totalSize);
+        LOGGER.debug("the cache \"{}\" has {} bytes after evicting {} entries.", directory, totalSize, evictedCount);
+    }
+
+    private static class Entry {
+        private final Path path;
+        private final long size;
+        private final long lastUsedMillis;
+
+        private Entry(Path path, long size, long lastUsedMillis) {
+            this.path = path;
+            this.size = size;
+            this.lastUsedMillis = lastUsedMillis;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.sparkliang.textutil.impl;
+
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Collect the errors of the files that are transformed concurrently.<br>
+ * The errors are sorted by the relative path of the file, so the reported error does not depend on the order that the workers finish.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class TransformErrors {
+
+    static final String FAIL_FAST = "fail-fast";
+    static final String COLLECT_ALL = "collect-all";
+
+    private final boolean failFast;
+    private final SortedMap<String, Throwable> errors = new TreeMap<>();
+    private volatile boolean stopped = false;
+
+    TransformErrors(String errorPolicy) {
+        this.failFast = FAIL_FAST.equals(errorPolicy);
+    }
+
+    synchronized void record(String relativePath, Throwable error) {
+        errors.put(relativePath, error);
+        if (failFast) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * @return true if the remaining files should not be transformed any more.
+     */
+    boolean shouldStop() {
+        return stopped;
+    }
+
+    /**
+     * Throw the error of the first file in path order for fail-fast policy, or all the errors for collect-all policy.
+     */
+    synchronized void throwIfAny() {
+        if (errors.isEmpty()) {
+            return;
+        }
+        String firstPath = errors.firstKey();
+        Throwable firstError = errors.get(firstPath);
+        if (failFast) {
+            throw new TextTransformUtilException(String.format("Failed to transform \"%s\".", firstPath), firstError);
+        }
+
+        StringBuilder message = new StringBuilder(String.format("Failed to transform %d file(s):", errors.size()));
+        for (String path : errors.keySet()) {
+            message.append(System.lineSeparator()).append("    ").append(path);
+        }
+        TextTransformUtilException exception = new TextTransformUtilException(message.toString(), firstError);
+        for (Map.Entry<String, Throwable> entry : errors.entrySet()) {
+            if (entry.getValue() != firstError) {
+                exception.addSuppressed(entry.getValue());
+            }
+        }
+        throw exception;
+    }
+}
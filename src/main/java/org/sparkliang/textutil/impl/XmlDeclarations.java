@@ -0,0 +1,61 @@
+package org.sparkliang.textutil.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * The helper to read the encoding of the xml declaration, shared by the pre-scan and the splice of the parameter files,
+ * so both of them accept the same documents.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+final class XmlDeclarations {
+
+    /**
+     * The encodings that the bytes of the document can be compared and spliced directly.
+     */
+    enum Encoding {
+        UTF_8,
+        ASCII,
+        UNSUPPORTED
+    }
+
+    private XmlDeclarations() {
+    }
+
+    /**
+     * Only the xml declaration is checked. The other processing instructions and the xml declaration without encoding are treated as UTF-8.
+     *
+     * @param declaration The bytes between "&lt;?" and "?&gt;".
+     * @param length      The number of the bytes in the declaration.
+     * @return The encoding of the document declared.
+     */
+    static Encoding getEncoding(byte[] declaration, int length) {
+        String content = new String(declaration, 0, length, StandardCharsets.US_ASCII);
+        if (!content.startsWith("xml") || content.length() > 3 && !Character.isWhitespace(content.charAt(3))) {
+            return Encoding.UTF_8;
+        }
+        int encodingIdx = content.indexOf("encoding");
+        if (encodingIdx < 0) {
+            return Encoding.UTF_8;
+        }
+        int quoteIdx = encodingIdx + "encoding".length();
+        while (quoteIdx < content.length() && content.charAt(quoteIdx) != '"' && content.charAt(quoteIdx) != '\'') {
+            quoteIdx++;
+        }
+        int endIdx = quoteIdx + 1 < content.length() ? content.indexOf(content.charAt(quoteIdx), quoteIdx + 1) : -1;
+        if (endIdx < 0) {
+            return Encoding.UNSUPPORTED;
+        }
+        String encoding = content.substring(quoteIdx + 1, endIdx).toUpperCase(Locale.ROOT);
+        if ("UTF-8".equals(encoding) || "UTF8".equals(encoding)) {
+            return Encoding.UTF_8;
+        }
+        if ("US-ASCII".equals(encoding) || "ASCII".equals(encoding)) {
+            return Encoding.ASCII;
+        }
+        return Encoding.UNSUPPORTED;
+    }
+}
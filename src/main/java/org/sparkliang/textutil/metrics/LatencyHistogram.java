@@ -0,0 +1,82 @@
+package org.sparkliang.textutil.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock free histogram of latencies. The bucket {@code i} counts the latencies in [2^(i-1), 2^i) microseconds,
+ * so the percentiles it reports are only accurate to a factor of two, which is enough to tell where the time goes.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+class LatencyHistogram {
+    /**
+     * The last bucket holds all the latencies longer than about 9 minutes.
+     */
+    private static final int BUCKET_COUNT = 30;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+    void record(long nanos) {
+        long micros = nanos / 1000;
+        int bucket = 64 - Long.numberOfLeadingZeros(micros);
+        buckets.incrementAndGet(Math.min(bucket, BUCKET_COUNT - 1));
+    }
+
+    long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return The upper bound in microseconds of the bucket that contains the given percentile, or 0 if nothing is recorded.
+     */
+    long getPercentileMicros(double percentile) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (0 == total) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return getUpperBoundMicros(i);
+            }
+        }
+        return getUpperBoundMicros(BUCKET_COUNT - 1);
+    }
+
+    /**
+     * @return The count of each non-empty bucket, keyed by the upper bound of the bucket in microseconds.
+     */
+    long[][] getBuckets() {
+        int nonEmpty = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (buckets.get(i) > 0) {
+                nonEmpty++;
+            }
+        }
+        long[][] result = new long[nonEmpty][];
+        for (int i = 0, j = 0; i < BUCKET_COUNT && j < nonEmpty; i++) {
+            long count = buckets.get(i);
+            if (count > 0) {
+                result[j++] = new long[]{getUpperBoundMicros(i), count};
+            }
+        }
+        return result;
+    }
+
+    private static long getUpperBoundMicros(int bucket) {
+        return 1L << bucket;
+    }
+}
@@ -0,0 +1,419 @@
+package org.sparkliang.textutil.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics of one run. It is shared by the pipe, the transformer and all the worker threads, so all the methods are thread safe.<br>
+ * The time is recorded per stage:
+ * <ul>
+ *     <li>list: Walking the source directory.</li>
+ *     <li>scan: Scanning the files for the configured parameters before transforming them.</li>
+ *     <li>transform: Transforming the files that need to be transformed, from reading the source to writing the temporary target file.
+ *     It includes the time of parse, substitute and serialize.</li>
+ *     <li>parse, substitute, serialize: The part of transform spent in each step. They are only recorded by the transformers
+ *     that process a file in separate steps, such as the dom mode of {@link org.sparkliang.textutil.impl.DefaultXMLParameterFileTransformer}.</li>
+ *     <li>copy: Copying the files that do not need to be transformed.</li>
+ *     <li>write: Committing the target files, and syncing them if it is configured.</li>
+ * </ul>
+ * The time to the first file processed is recorded both from the start of the run and from the start of the JVM,
+ * and the latter includes the startup of the program.<br>
+ * {@link #DISABLED} ignores everything recorded, so the code does not need to check whether the metrics are required.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public class RunMetrics implements RunMetricsMXBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RunMetrics.class);
+
+    public static final String OBJECT_NAME = "org.sparkliang.textutil:type=RunMetrics";
+    public static final RunMetrics DISABLED = new RunMetrics(false);
+
+    private static final int SLOWEST_FILES_LIMIT = 10;
+
+    public enum Stage {
+        LIST, SCAN, TRANSFORM, PARSE, SUBSTITUTE, SERIALIZE, COPY, WRITE;
+
+        String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum Outcome {
+        /**
+         * The file is transformed by the transformer.
+         */
+        TRANSFORMED,
+        /**
+         * The file does not need to be transformed and it is copied as it is.
+         */
+        COPIED,
+        /**
+         * The file is not changed since the last run and it is skipped.
+         */
+        SKIPPED,
+        /**
+         * The file has the same content as another file of the run, and its target files are linked or copied from the target files of that file.
+         */
+        DEDUPLICATED,
+        /**
+         * The target file is loaded from the transform cache, which is written by a previous transform of the same content.
+         */
+        CACHED,
+        FAILED
+    }
+
+    private final boolean enabled;
+    private final long startNanos = System.nanoTime();
+    private volatile long finishNanos = 0;
+    private final AtomicLong firstFileNanos = new AtomicLong();
+    private volatile long firstFileUptimeMillis = -1;
+    private final LongAdder[] stageNanos = new LongAdder[Stage.values().length];
+    private final LongAdder[] outcomeCounts = new LongAdder[Outcome.values().length];
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAdder bytesDeduplicated = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LatencyHistogram fileLatencies = new LatencyHistogram();
+    private final PriorityQueue<FileLatency> slowestFiles = new PriorityQueue<>(Comparator.comparingLong(latency -> latency.nanos));
+    private volatile long slowestFilesThreshold = 0;
+    private ObjectName registeredName = null;
+
+    public RunMetrics() {
+        this(true);
+    }
+
+    private RunMetrics(boolean enabled) {
+        this.enabled = enabled;
+        for (int i = 0; i < stageNanos.length; i++) {
+            stageNanos[i] = new LongAdder();
+        }
+        for (int i = 0; i < outcomeCounts.length; i++) {
+            outcomeCounts[i] = new LongAdder();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return The start time to pass to {@link #endStage(Stage, long)}.
+     */
+    public long startStage() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void endStage(Stage stage, long startNanos) {
+        if (enabled) {
+            stageNanos[stage.ordinal()].add(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Record a file that is processed.
+     *
+     * @param path    The path of the file relative to the source.
+     * @param nanos   The time spent on the file.
+     * @param outcome How the file is processed.
+     */
+    public void recordFile(String path, long nanos, Outcome outcome) {
+        if (!enabled) {
+            return;
+        }
+        if (0 == firstFileNanos.get() && firstFileNanos.compareAndSet(0, System.nanoTime())) {
+            firstFileUptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        }
+        outcomeCounts[outcome.ordinal()].increment();
+        fileLatencies.record(nanos);
+        if (nanos > slowestFilesThreshold) {
+            synchronized (slowestFiles) {
+                slowestFiles.add(new FileLatency(path, nanos));
+                if (slowestFiles.size() > SLOWEST_FILES_LIMIT) {
+                    slowestFiles.poll();
+                    slowestFilesThreshold = slowestFiles.peek().nanos;
+                }
+            }
+        }
+    }
+
+    /**
+     * Record the size of a source file that is transformed or copied and the size of its target file.
+     */
+    public void recordBytes(long bytesRead, long bytesWritten) {
+        if (enabled) {
+            this.bytesRead.add(bytesRead);
+            this.bytesWritten.add(bytesWritten);
+        }
+    }
+
+    /**
+     * Record the size of a source file that is not transformed, since its target files are linked or copied from a file of the same content.
+     */
+    public void recordDeduplicatedBytes(long bytes) {
+        if (enabled) {
+            bytesDeduplicated.add(bytes);
+        }
+    }
+
+    /**
+     * Record a lookup of the transform cache for a target file.
+     */
+    public void recordCacheLookup(boolean hit) {
+        if (enabled) {
+            (hit ? cacheHits : cacheMisses).increment();
+        }
+    }
+
+    /**
+     * Stop the clock of the run.
+     */
+    public void finish() {
+        if (0 == finishNanos) {
+            finishNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Register this instance to the platform MBean server as {@link #OBJECT_NAME}. Only one run can be registered at the same time.
+     */
+    public void registerMBean() {
+        registerMBean(OBJECT_NAME);
+    }
+
+    /**
+     * Register this instance to the platform MBean server by the given name, so several runs in the same JVM can be registered at the same time.
+     *
+     * @param objectName The object name, such as {@link #OBJECT_NAME} with an additional key.
+     */
+    public synchronized void registerMBean(String objectName) {
+        try {
+            ObjectName name = new ObjectName(objectName);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, name);
+            registeredName = name;
+        } catch (JMException e) {
+            throw new TextTransformUtilException("Unable to register the metrics to JMX.", e);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (null == registeredName) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+        } catch (JMException e) {
+            LOGGER.warn("Unable to unregister the metrics from JMX.", e);
+        }
+        registeredName = null;
+    }
+
+    @Override
+    public long getElapsedMillis() {
+        long end = 0 == finishNanos ? System.nanoTime() : finishNanos;
+        return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+    }
+
+    @Override
+    public long getFirstFileMillis() {
+        long first = firstFileNanos.get();
+        return 0 == first ? -1 : TimeUnit.NANOSECONDS.toMillis(first - startNanos);
+    }
+
+    @Override
+    public long getFirstFileUptimeMillis() {
+        return firstFileUptimeMillis;
+    }
+
+    @Override
+    public long getFilesTransformed() {
+        return outcomeCounts[Outcome.TRANSFORMED.ordinal()].sum();
+    }
+
+    @Override
+    public long getFilesCopied() {
+        return outcomeCounts[Outcome.COPIED.ordinal()].sum();
+    }
+
+    @Override
+    public long getFilesSkipped() {
+        return outcomeCounts[Outcome.SKIPPED.ordinal()].sum();
+    }
+
+    @Override
+    public long getFilesDeduplicated() {
+        return outcomeCounts[Outcome.DEDUPLICATED.ordinal()].sum();
+    }
+
+    @Override
+    public long getFilesCached() {
+        return outcomeCounts[Outcome.CACHED.ordinal()].sum();
+    }
+
+    @Override
+    public long getFilesFailed() {
+        return outcomeCounts[Outcome.FAILED.ordinal()].sum();
+    }
+
+    @Override
+    public long getBytesRead() {
+        return bytesRead.sum();
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    @Override
+    public long getBytesDeduplicated() {
+        return bytesDeduplicated.sum();
+    }
+
+    @Override
+    public long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    @Override
+    public long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    @Override
+    public Map<String, Long> getStageMillis() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Stage stage : Stage.values()) {
+            result.put(stage.getName(), TimeUnit.NANOSECONDS.toMillis(stageNanos[stage.ordinal()].sum()));
+        }
+        return result;
+    }
+
+    @Override
+    public long getFileLatencyP50Micros() {
+        return fileLatencies.getPercentileMicros(50);
+    }
+
+    @Override
+    public long getFileLatencyP99Micros() {
+        return fileLatencies.getPercentileMicros(99);
+    }
+
+    @Override
+    public List<String> getSlowestFiles() {
+        List<String> result = new ArrayList<>();
+        for (FileLatency latency : getSortedSlowestFiles()) {
+            result.add(latency.path + ": " + TimeUnit.NANOSECONDS.toMillis(latency.nanos));
+        }
+        return result;
+    }
+
+    private List<FileLatency> getSortedSlowestFiles() {
+        List<FileLatency> result;
+        synchronized (slowestFiles) {
+            result = new ArrayList<>(slowestFiles);
+        }
+        result.sort(Comparator.comparingLong((FileLatency latency) -> latency.nanos).reversed());
+        return result;
+    }
+
+    /**
+     * Write the summary of the run as a JSON object.
+     */
+    public void writeJson(Writer writer) throws IOException {
+        StringBuilder json = new StringBuilder(1024);
+        json.append("{\n");
+        json.append("  \"elapsedMillis\": ").append(getElapsedMillis()).append(",\n");
+        json.append("  \"firstFileMillis\": ").append(getFirstFileMillis())
+                .append(", \"firstFileUptimeMillis\": ").append(getFirstFileUptimeMillis()).append(",\n");
+        json.append("  \"files\": {\"transformed\": ").append(getFilesTransformed())
+                .append(", \"copied\": ").append(getFilesCopied())
+                .append(", \"skipped\": ").append(getFilesSkipped())
+                .append(", \"failed\": ").append(getFilesFailed()).append("},\n");
+        json.append("  \"bytes\": {\"read\": ").append(getBytesRead())
+                .append(", \"written\": ").append(getBytesWritten()).append("},\n");
+        json.append("  \"deduplicated\": {\"files\": ").append(getFilesDeduplicated())
+                .append(", \"bytes\": ").append(getBytesDeduplicated()).append("},\n");
+        json.append("  \"cache\": {\"files\": ").append(getFilesCached())
+                .append(", \"hits\": ").append(getCacheHits())
+                .append(", \"misses\": ").append(getCacheMisses()).append("},\n");
+
+        json.append("  \"stageMillis\": {");
+        String separator = "";
+        for (Map.Entry<String, Long> entry : getStageMillis().entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\": ").append(entry.getValue());
+            separator = ", ";
+        }
+        json.append("},\n");
+
+        json.append("  \"fileLatencyMicros\": {\"count\": ").append(fileLatencies.getCount())
+                .append(", \"p50\": ").append(fileLatencies.getPercentileMicros(50))
+                .append(", \"p90\": ").append(fileLatencies.getPercentileMicros(90))
+                .append(", \"p99\": ").append(fileLatencies.getPercentileMicros(99))
+                .append(", \"max\": ").append(fileLatencies.getPercentileMicros(100))
+                .append(", \"buckets\": [");
+        separator = "";
+        for (long[] bucket : fileLatencies.getBuckets()) {
+            json.append(separator).append("{\"le\": ").append(bucket[0]).append(", \"count\": ").append(bucket[1]).append('}');
+            separator = ", ";
+        }
+        json.append("]},\n");
+
+        json.append("  \"slowestFiles\": [");
+        separator = "\n";
+        for (FileLatency latency : getSortedSlowestFiles()) {
+            json.append(separator).append("    {\"path\": ");
+            appendJsonString(json, latency.path);
+            json.append(", \"micros\": ").append(TimeUnit.NANOSECONDS.toMicros(latency.nanos)).append('}');
+            separator = ",\n";
+        }
+        json.append("\n  ]\n}\n");
+        writer.write(json.toString());
+    }
+
+    private static void appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if ('"' == c || '\\' == c) {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private static class FileLatency {
+        private final String path;
+        private final long nanos;
+
+        private FileLatency(String path, long nanos) {
+            this.path = path;
+            this.nanos = nanos;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.sparkliang.textutil.metrics;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The management interface of {@link RunMetrics}. It is registered as "org.sparkliang.textutil:type=RunMetrics",
+ * so the progress of a run can be watched with jconsole or any other JMX client while the run is in progress.
+ *
+ * @author spark
+ * @date 2026-10-18
+ * @since 1.0
+ */
+public interface RunMetricsMXBean {
+
+    long getElapsedMillis();
+
+    /**
+     * @return The time from the start of the run to the first file processed, or -1 if there is no file processed yet.
+     */
+    long getFirstFileMillis();
+
+    /**
+     * @return The uptime of the JVM when the first file is processed, or -1 if there is no file processed yet.
+     * For a single run of the program, it is the time to the first file including the startup.
+     */
+    long getFirstFileUptimeMillis();
+
+    long getFilesTransformed();
+
+    long getFilesCopied();
+
+    long getFilesSkipped();
+
+    /**
+     * @return The files whose target files are linked or copied from a file of the same content, instead of being transformed again.
+     */
+    long getFilesDeduplicated();
+
+    /**
+     * @return The files whose target files are all loaded from the transform cache.
+     */
+    long getFilesCached();
+
+    long getFilesFailed();
+
+    long getBytesRead();
+
+    long getBytesWritten();
+
+    /**
+     * @return The size of the source files that are not transformed, since their target files are linked or copied from a file of the same content.
+     */
+    long getBytesDeduplicated();
+
+    /**
+     * @return The target files loaded from the transform cache.
+     */
+    long getCacheHits();
+
+    /**
+     * @return The target files looked up in the transform cache but not found, which are transformed and put into the cache.
+     */
+    long getCacheMisses();
+
+    /**
+     * @return The time spent in each stage in milliseconds, summed over all the worker threads.
+     */
+    Map<String, Long> getStageMillis();
+
+    long getFileLatencyP50Micros();
+
+    long getFileLatencyP99Micros();
+
+    /**
+     * @return The slowest files so far, from the slowest one. Each entry is formatted as "path: milliseconds".
+     */
+    List<String> getSlowestFiles();
+}
@@ -5,16 +5,23 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.sparkliang.textutil.metrics.RunMetrics;
 import org.sparkliang.textutil.test.util.TestCasesWithExternalData;
 import org.xmlunit.assertj.XmlAssert;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
+import javax.management.ObjectName;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sparkliang.textutil.test.util.XMLTestUtil.getTextContentMatcher;
 
@@ -40,7 +47,7 @@ public class CLITest extends TestCasesWithExternalData {
         CLI.main(args);
 
         // then
-        assertThat(outContent.toString()).contains(CLI.HELP_STRING);
+        assertThat(outContent.toString()).contains(CLI.getHelpString());
         outContent.toString();
     }
 
@@ -104,4 +111,128 @@ public class CLITest extends TestCasesWithExternalData {
         });
 
     }
+
+    @Test
+    public void canWriteTheMetricsOfTheRun() throws Exception {
+        // given
+        String configFileName = "transform.properties";
+        String source = getTestDataRootPath(), target = TEMP_FOLDER.newFolder().getPath();
+        File metricsFile = new File(TEMP_FOLDER.getRoot(), "metrics.json");
+        String[] command = new String[]{
+                "--default-conf-dir", source + File.separator + configFileName, "--conf", "transformer.parameter.TEST_PARAM=CLI_TEST_VALUE",
+                "--metrics", metricsFile.getPath(), source, target
+        };
+
+        // when
+        CLI.main(command);
+
+        // then
+        String metrics = FileUtils.readFileToString(metricsFile, StandardCharsets.UTF_8);
+        assertThat(metrics)
+                .contains("\"files\": {\"transformed\": 2, \"copied\": 0, \"skipped\": 0, \"failed\": 0}")
+                .containsPattern("\"firstFileMillis\": \\d+, \"firstFileUptimeMillis\": \\d+")
+                .contains("\"stageMillis\": {\"list\": ")
+                .contains("\"parse\": ")
+                .contains("\"fileLatencyMicros\": {\"count\": 2,")
+                .contains("{\"path\": \"param1.xml\"")
+                .contains("{\"path\": \"param2.xml\"");
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(RunMetrics.OBJECT_NAME))).isFalse();
+    }
+
+    @Test
+    public void canUseTheAliasesOfThePlugins() {
+        // given
+        String source = getTestDataRootPath(), target = TEMP_FOLDER.getRoot().getPath();
+        String[] command = new String[]{
+                "-p", "default", "-t", "chain", "--conf", "transformer.chain.stages=xml,placeholder",
+                "--conf", "transformer.parameter.TEST_PARAM=ALIAS_VALUE", source, target
+        };
+        ByteArrayOutputStream errContent = new ByteArrayOutputStream();
+
+        // when
+        int exitCode = CLI.run(command, null, System.out, System.err, PluginProvider.NEW_INSTANCE);
+        int unknownExitCode = CLI.run(new String[]{"-t", "unknown", source, target}, null, System.out, new PrintStream(errContent, true), PluginProvider.NEW_INSTANCE);
+        int unparsableExitCode = CLI.run(new String[]{"--unknown-option", source, target}, null, System.out, new PrintStream(errContent, true), PluginProvider.NEW_INSTANCE);
+
+        // then
+        assertThat(exitCode).isEqualTo(0);
+        XmlAssert.assertThat(new File(target, "param1.xml"))
+                .nodesByXPath("/root/project/workflow/parameter[@name='TEST_PARAM']")
+                .are(getTextContentMatcher("ALIAS_VALUE"));
+        assertThat(unknownExitCode).isEqualTo(-1);
+        assertThat(errContent.toString()).contains("The given class \"unknown\" is not exists.");
+        assertThat(unparsableExitCode).isEqualTo(-2);
+    }
+
+    @Test
+    public void canRunTheJobsByTheDaemon() throws Exception {
+        // given
+        File daemonFile = new File(TEMP_FOLDER.getRoot(), "daemon.properties");
+        FutureTask<Integer> daemon = new FutureTask<>(() -> new DaemonServer(daemonFile, 0).serve());
+        new Thread(daemon, "daemon-under-test").start();
+        for (int i = 0; i < 100 && !daemonFile.exists(); i++) {
+            Thread.sleep(100);
+        }
+        String source = getTestDataRootPath(), target = TEMP_FOLDER.newFolder().getPath();
+        // the relative paths are relative to the directory of the client
+        String[] command = new String[]{
+                "--default-conf-dir", "transform.properties", "--conf", "transformer.parameter.TEST_PARAM=CLI_TEST_VALUE", ".", target
+        };
+        ByteArrayOutputStream errContent = new ByteArrayOutputStream();
+
+        // when
+        int exitCode = DaemonClient.submit(daemonFile, command, new File(source), System.out, System.err);
+        int invalidExitCode = DaemonClient.submit(daemonFile, new String[]{source}, new File(source), System.out, new PrintStream(errContent, true));
+        int stopExitCode = DaemonClient.stop(daemonFile, System.err);
+
+        // then
+        assertThat(exitCode).isEqualTo(0);
+        for (String fileName : new String[]{"param1.xml", "param2.xml"}) {
+            XmlAssert.assertThat(new File(target, fileName))
+                    .nodesByXPath("/root/project/workflow/parameter[@name='TEST_PARAM']")
+                    .are(getTextContentMatcher("CLI_TEST_VALUE"));
+        }
+        assertThat(invalidExitCode).isEqualTo(-1);
+        assertThat(errContent.toString()).contains("Invalid arguments.");
+        assertThat(stopExitCode).isEqualTo(0);
+        assertThat(daemon.get(10, TimeUnit.SECONDS)).isEqualTo(0);
+        assertThat(daemonFile).doesNotExist();
+    }
+
+    @Test
+    public void canTransformForSeveralProfilesInOneRun() throws Exception {
+        // given
+        String source = getTestDataRootPath(), target = TEMP_FOLDER.newFolder().getPath();
+        File uatTarget = TEMP_FOLDER.newFolder();
+        String[] command = new String[]{
+                "--default-conf-dir", source + File.separator + "transform.properties",
+                "--profile-conf", "DEV=" + source + File.separator + "dev.properties",
+                "--profile-conf", "SIT=" + source + File.separator + "sit.properties",
+                "--profile-conf", "UAT=" + source + File.separator + "sit.properties",
+                "--profile-target", "UAT=" + uatTarget.getPath(),
+                "--conf", "transformer.parameter.TEST_PARAM_OTHER=CLI_TEST_VALUE",
+                source, target
+        };
+
+        // when
+        CLI.main(command);
+
+        // then
+        String[][] expectedValues = {{"DEV", "DEV_VALUE"}, {"SIT", "SIT_VALUE"}};
+        for (String[] expected : expectedValues) {
+            File profileTarget = new File(target, expected[0]);
+            for (String fileName : new String[]{"param1.xml", "param2.xml"}) {
+                XmlAssert.assertThat(new File(profileTarget, fileName))
+                        .nodesByXPath("/root/project/workflow/parameter[@name='TEST_PARAM']")
+                        .are(getTextContentMatcher(expected[1]));
+                XmlAssert.assertThat(new File(profileTarget, fileName))
+                        .nodesByXPath("/root/project/workflow/parameter[@name='TEST_PARAM_OTHER']")
+                        .are(getTextContentMatcher("CLI_TEST_VALUE"));
+            }
+        }
+        XmlAssert.assertThat(new File(uatTarget, "param1.xml"))
+                .nodesByXPath("/root/project/workflow/parameter[@name='TEST_PARAM']")
+                .are(getTextContentMatcher("SIT_VALUE"));
+        assertThat(new File(target, "param1.xml")).doesNotExist();
+    }
 }
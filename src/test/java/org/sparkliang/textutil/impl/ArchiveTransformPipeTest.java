@@ -0,0 +1,148 @@
+package org.sparkliang.textutil.impl;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sparkliang.textutil.api.Transformer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class ArchiveTransformPipeTest {
+
+    @ClassRule
+    public final static TemporaryFolder TEMPORARY_FOLDER = new TemporaryFolder();
+
+    @Test
+    public void canTransformTheZipEntriesAndCopyTheOthersRaw() throws IOException {
+        // given
+        File source = new File(TEMPORARY_FOLDER.newFolder(), "app.jar"), target = TEMPORARY_FOLDER.newFolder();
+        try (ZipArchiveOutputStream zipOut = new ZipArchiveOutputStream(source)) {
+            putZipEntry(zipOut, "sql/", null, ZipEntry.STORED);
+            putZipEntry(zipOut, "sql/init.sql", "CREATE SCHEMA ${SCHEMA};", ZipEntry.STORED);
+            putZipEntry(zipOut, "sql/plain.sql", "SELECT 1;", ZipEntry.DEFLATED);
+            putZipEntry(zipOut, "lib/notes.txt", "${SCHEMA} is kept in the other files.", ZipEntry.DEFLATED);
+        }
+        ArchiveTransformPipe pipeToBeTested = new ArchiveTransformPipe();
+        pipeToBeTested.set(createPipeConfiguration());
+
+        // when
+        pipeToBeTested.transform(source.getPath(), target.getPath(), createTransformer());
+
+        // then
+        try (ZipFile sourceZip = ZipFile.builder().setFile(source).get(); ZipFile targetZip = ZipFile.builder().setFile(new File(target, "app.jar")).get()) {
+            assertThat(readZipEntries(targetZip)).containsExactly(
+                    entry("sql/", ""),
+                    entry("sql/init.sql", "CREATE SCHEMA ODS;"),
+                    entry("sql/plain.sql", "SELECT 1;"),
+                    entry("lib/notes.txt", "${SCHEMA} is kept in the other files."));
+            assertThat(targetZip.getEntry("sql/init.sql").getMethod()).isEqualTo(ZipEntry.DEFLATED);
+            assertThat(targetZip.getEntry("sql/init.sql").getTime()).isEqualTo(sourceZip.getEntry("sql/init.sql").getTime());
+            for (String copiedName : new String[]{"sql/plain.sql", "lib/notes.txt"}) {
+                ZipArchiveEntry sourceEntry = sourceZip.getEntry(copiedName), targetEntry = targetZip.getEntry(copiedName);
+                assertThat(targetEntry.getMethod()).isEqualTo(sourceEntry.getMethod());
+                assertThat(targetEntry.getCompressedSize()).isEqualTo(sourceEntry.getCompressedSize());
+                assertThat(targetEntry.getCrc()).isEqualTo(sourceEntry.getCrc());
+            }
+        }
+    }
+
+    @Test
+    public void canTransformTheTarGzEntries() throws IOException {
+        // given
+        File source = new File(TEMPORARY_FOLDER.newFolder(), "app.tar.gz"), target = TEMPORARY_FOLDER.newFolder();
+        String longName = "sql/" + new String(new char[120]).replace('\0', 'x') + "/init.sql";
+        try (TarArchiveOutputStream tarOut = new TarArchiveOutputStream(new GzipCompressorOutputStream(new FileOutputStream(source)))) {
+            tarOut.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            putTarEntry(tarOut, longName, "CREATE SCHEMA ${SCHEMA};");
+            putTarEntry(tarOut, "bin/run.sh", "echo ${SCHEMA}");
+        }
+        ArchiveTransformPipe pipeToBeTested = new ArchiveTransformPipe();
+        pipeToBeTested.set(createPipeConfiguration());
+
+        // when
+        pipeToBeTested.transform(source.getPath(), target.getPath(), createTransformer());
+
+        // then
+        Map<String, String> entries = new LinkedHashMap<>();
+        try (TarArchiveInputStream tarIn = new TarArchiveInputStream(new GzipCompressorInputStream(new FileInputStream(new File(target, "app.tar.gz"))))) {
+            for (TarArchiveEntry entry = tarIn.getNextEntry(); null != entry; entry = tarIn.getNextEntry()) {
+                assertThat(entry.getMode()).isEqualTo(0755);
+                entries.put(entry.getName(), IOUtils.toString(tarIn, StandardCharsets.UTF_8));
+            }
+        }
+        assertThat(entries).containsExactly(entry(longName, "CREATE SCHEMA ODS;"), entry("bin/run.sh", "echo ${SCHEMA}"));
+    }
+
+    private static Properties createPipeConfiguration() {
+        Properties conf = new Properties();
+        conf.setProperty(DefaultTransformPipe.EXTENSIONS_CONF_NAME, "sql");
+        return conf;
+    }
+
+    private static Transformer createTransformer() {
+        Properties conf = new Properties();
+        conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "SCHEMA", "ODS");
+        Transformer transformer = new PlaceholderTransformer();
+        transformer.set(conf);
+        return transformer;
+    }
+
+    private static void putZipEntry(ZipArchiveOutputStream zipOut, String name, String content, int method) throws IOException {
+        ZipArchiveEntry entry = new ZipArchiveEntry(name);
+        entry.setMethod(method);
+        entry.setTime(1_700_000_000_000L);
+        byte[] bytes = null == content ? new byte[0] : content.getBytes(StandardCharsets.UTF_8);
+        if (ZipEntry.STORED == method) {
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            entry.setSize(bytes.length);
+            entry.setCrc(crc.getValue());
+        }
+        zipOut.putArchiveEntry(entry);
+        zipOut.write(bytes);
+        zipOut.closeArchiveEntry();
+    }
+
+    private static void putTarEntry(TarArchiveOutputStream tarOut, String name, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(bytes.length);
+        entry.setMode(0755);
+        tarOut.putArchiveEntry(entry);
+        tarOut.write(bytes);
+        tarOut.closeArchiveEntry();
+    }
+
+    private static Map<String, String> readZipEntries(ZipFile zipFile) throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        for (ZipArchiveEntry entry : Collections.list(zipFile.getEntriesInPhysicalOrder())) {
+            try (InputStream in = zipFile.getInputStream(entry)) {
+                entries.put(entry.getName(), IOUtils.toString(in, StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,93 @@
+package org.sparkliang.textutil.impl;
+
+import org.junit.Test;
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class CompositeTransformerTest {
+
+    private static final String STAGE_CLASS_NAME = DefaultXMLParameterFileTransformer.class.getName();
+
+    @Test
+    public void canStreamTheOutputOfEachStageIntoTheNextStage() {
+        // given
+        StringBuilder xmlBeforeApply = new StringBuilder("<root xmlns=\"http://www.informatica.com/Parameterization/1.0\">\n");
+        for (int i = 0; i < 20000; i++) {
+            xmlBeforeApply.append("  <parameter name=\"TEST_PARAM_").append(i % 2).append("\">100</parameter>\n");
+        }
+        xmlBeforeApply.append("</root>\n");
+        Properties conf = new Properties();
+        conf.setProperty(CompositeTransformer.STAGES_CONF_NAME, STAGE_CLASS_NAME + ", " + STAGE_CLASS_NAME);
+        conf.setProperty(CompositeTransformer.BUFFER_SIZE_CONF_NAME, "1024");
+        conf.setProperty(DefaultXMLParameterFileTransformer.MODE_CONF_NAME, DefaultXMLParameterFileTransformer.MODE_SPLICE);
+        conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "TEST_PARAM_0", "FIRST");
+        conf.setProperty("transformer.chain.1." + DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "TEST_PARAM_0", "SECOND");
+        conf.setProperty("transformer.chain.1." + DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "TEST_PARAM_1", "OTHER");
+        CompositeTransformer transformerToBeTested = new CompositeTransformer();
+        transformerToBeTested.set(conf);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // when
+        transformerToBeTested.apply(new ByteArrayInputStream(xmlBeforeApply.toString().getBytes(StandardCharsets.UTF_8)), output);
+
+        // then
+        String expected = xmlBeforeApply.toString()
+                .replace("\"TEST_PARAM_0\">100<", "\"TEST_PARAM_0\">SECOND<")
+                .replace("\"TEST_PARAM_1\">100<", "\"TEST_PARAM_1\">OTHER<");
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(expected);
+    }
+
+    @Test
+    public void canReportTheFailureOfTheEarliestFailedStage() {
+        // given
+        Properties conf = new Properties();
+        conf.setProperty(CompositeTransformer.STAGES_CONF_NAME,
+                String.join(CompositeTransformer.STAGES_SEPARATOR, STAGE_CLASS_NAME, STAGE_CLASS_NAME, STAGE_CLASS_NAME));
+        conf.setProperty(DefaultXMLParameterFileTransformer.MODE_CONF_NAME, DefaultXMLParameterFileTransformer.MODE_STAX);
+        CompositeTransformer transformerToBeTested = new CompositeTransformer();
+        transformerToBeTested.set(conf);
+        InputStream brokenInput = new ByteArrayInputStream("<root><parameter name=\"TEST_PARAM\">".getBytes(StandardCharsets.UTF_8));
+        OutputStream output = new ByteArrayOutputStream();
+
+        // when
+        Throwable failure = catchThrowable(() -> transformerToBeTested.apply(brokenInput, output));
+
+        // then
+        assertThat(failure).isInstanceOf(TextTransformUtilException.class).hasMessageContaining("stage 0");
+    }
+
+    @Test
+    public void canReportTheFailureOfTheStageThatAbortedTheStagesBeforeIt() {
+        // given
+        StringBuilder brokenXml = new StringBuilder("<root><parameter name=\"TEST_PARAM\">100</broken>\n");
+        for (int i = 0; i < 20000; i++) {
+            brokenXml.append("  <parameter name=\"TEST_PARAM\">100</parameter>\n");
+        }
+        brokenXml.append("</root>\n");
+        Properties conf = new Properties();
+        conf.setProperty(CompositeTransformer.STAGES_CONF_NAME, STAGE_CLASS_NAME + ", " + STAGE_CLASS_NAME);
+        conf.setProperty(CompositeTransformer.BUFFER_SIZE_CONF_NAME, "1024");
+        conf.setProperty("transformer.chain.0." + DefaultXMLParameterFileTransformer.MODE_CONF_NAME, DefaultXMLParameterFileTransformer.MODE_SPLICE);
+        conf.setProperty("transformer.chain.1." + DefaultXMLParameterFileTransformer.MODE_CONF_NAME, DefaultXMLParameterFileTransformer.MODE_STAX);
+        CompositeTransformer transformerToBeTested = new CompositeTransformer();
+        transformerToBeTested.set(conf);
+        InputStream brokenInput = new ByteArrayInputStream(brokenXml.toString().getBytes(StandardCharsets.UTF_8));
+        OutputStream output = new ByteArrayOutputStream();
+
+        // when
+        Throwable failure = catchThrowable(() -> transformerToBeTested.apply(brokenInput, output));
+
+        // then
+        assertThat(failure).isInstanceOf(TextTransformUtilException.class).hasMessageContaining("stage 1");
+        assertThat(StreamHandoff.isCausedByAbort(failure.getCause())).isFalse();
+    }
+}
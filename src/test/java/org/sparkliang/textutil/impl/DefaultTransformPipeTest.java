@@ -1,23 +1,40 @@
 package org.sparkliang.textutil.impl;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
+import org.sparkliang.textutil.api.AbstractStreamBasedTransformer;
 import org.sparkliang.textutil.api.TransformPipe;
+import org.sparkliang.textutil.api.TransformProfile;
 import org.sparkliang.textutil.api.Transformer;
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+import org.sparkliang.textutil.metrics.RunMetrics;
 import org.sparkliang.textutil.test.util.TestCasesWithExternalData;
 import org.xmlunit.assertj.XmlAssert;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.sparkliang.textutil.test.util.XMLTestUtil.getTextContentMatcher;
 
 public class DefaultTransformPipeTest extends TestCasesWithExternalData {
@@ -182,4 +199,427 @@ public class DefaultTransformPipeTest extends TestCasesWithExternalData {
                     .are(getTextContentMatcher(paramValue));
         });
     }
+
+    @Test
+    public void canTransformAllTheFilesInTheFolderInParallel() throws Exception {
+        // given
+        // create the source files
+        File sourceDirectory = TEMPORARY_FOLDER.newFolder(), targetDirectory = TEMPORARY_FOLDER.newFolder();
+        int fileCount = 32;
+        for (int i = 0; i < fileCount; i++) {
+            FileUtils.writeStringToFile(new File(sourceDirectory, "folder" + (i % 4) + File.separator + "param" + i + ".xml"),
+                    "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                            "<root version=\"2.0\" xmlns=\"http://www.informatica.com/Parameterization/1.0\">\n" +
+                            "    <workflow name=\"Customer_Workflow_" + i + "\">\n" +
+                            "        <parameter name=\"TEST_PARAM\">" + i + "</parameter>\n" +
+                            "    </workflow>\n" +
+                            "</root>", StandardCharsets.UTF_8);
+        }
+        // create TextUtil
+        Properties conf = new Properties();
+        String paramName = "TEST_PARAM", paramValue = "VALUE";
+        conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + paramName, paramValue);
+        Transformer transformer = new DefaultXMLParameterFileTransformer();
+        transformer.set(conf);
+        // create the ProcessPipe need to be tested
+        Properties pipeConf = new Properties();
+        pipeConf.setProperty(DefaultTransformPipe.PARALLELISM_CONF_NAME, "4");
+        pipeConf.setProperty(DefaultTransformPipe.QUEUE_CAPACITY_CONF_NAME, "2");
+        TransformPipe pipToBeTested = new DefaultTransformPipe();
+        pipToBeTested.set(pipeConf);
+
+        // when
+        pipToBeTested.transform(sourceDirectory.getPath(), targetDirectory.getPath(), transformer);
+
+        // then
+        for (int i = 0; i < fileCount; i++) {
+            File targetFile = new File(targetDirectory, "folder" + (i % 4) + File.separator + "param" + i + ".xml");
+            assertThat(targetFile).exists();
+            assertThat(FileUtils.readFileToString(targetFile, StandardCharsets.UTF_8))
+                    .contains("Customer_Workflow_" + i + "\"")
+                    .contains("<parameter name=\"" + paramName + "\">" + paramValue + "</parameter>");
+        }
+    }
+
+    @Test
+    public void canReportAllTheFailedFilesInPathOrder() throws Exception {
+        // given
+        // create TextUtil
+        Properties conf = new Properties();
+        String paramName = "TEST_PARAM", paramValue = "VALUE";
+        conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + paramName, paramValue);
+        Transformer transformer = new DefaultXMLParameterFileTransformer();
+        transformer.set(conf);
+        // create the ProcessPipe need to be tested
+        Properties pipeConf = new Properties();
+        pipeConf.setProperty(DefaultTransformPipe.PARALLELISM_CONF_NAME, "2");
+        pipeConf.setProperty(DefaultTransformPipe.ERROR_POLICY_CONF_NAME, DefaultTransformPipe.ERROR_POLICY_COLLECT_ALL);
+        TransformPipe pipToBeTested = new DefaultTransformPipe();
+        pipToBeTested.set(pipeConf);
+        // method parameter
+        String sourceDir = getTestDataRootPath(), targetDir = TEMPORARY_FOLDER.newFolder().getPath();
+
+        // when
+        Throwable error = catchThrowable(() -> pipToBeTested.transform(sourceDir, targetDir, transformer));
+
+        // then
+        assertThat(error).isInstanceOf(TextTransformUtilException.class);
+        String brokenFile1 = "broken2.xml", brokenFile2 = "sub" + File.separator + "broken1.xml";
+        assertThat(error.getMessage()).contains(brokenFile1, brokenFile2);
+        assertThat(error.getMessage().indexOf(brokenFile1)).isLessThan(error.getMessage().indexOf(brokenFile2));
+        assertThat(error.getSuppressed()).hasSize(1);
+        assertThat(FileUtils.readFileToString(new File(targetDir, "param1.xml"), StandardCharsets.UTF_8))
+                .contains("<parameter name=\"" + paramName + "\">" + paramValue + "</parameter>");
+    }
+
+    @Test
+    public void canSkipTheUnchangedFilesInIncrementalMode() throws Exception {
+        // given
+        // create the source files
+        File sourceDirectory = TEMPORARY_FOLDER.newFolder(), targetDirectory = TEMPORARY_FOLDER.newFolder();
+        String paramName = "TEST_PARAM";
+        String sourceContent = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<root version=\"2.0\" xmlns=\"http://www.informatica.com/Parameterization/1.0\">\n" +
+                "    <parameter name=\"" + paramName + "\">100</parameter>\n" +
+                "</root>";
+        File unchangedSource = new File(sourceDirectory, "param1.xml"), changedSource = new File(sourceDirectory, "sub" + File.separator + "param2.xml");
+        FileUtils.writeStringToFile(unchangedSource, sourceContent, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(changedSource, sourceContent, StandardCharsets.UTF_8);
+        File unchangedTarget = new File(targetDirectory, "param1.xml"), changedTarget = new File(targetDirectory, "sub" + File.separator + "param2.xml");
+        // create the ProcessPipe need to be tested
+        Properties pipeConf = new Properties();
+        pipeConf.setProperty(DefaultTransformPipe.INCREMENTAL_CONF_NAME, "true");
+        TransformPipe pipToBeTested = new DefaultTransformPipe();
+        pipToBeTested.set(pipeConf);
+        pipToBeTested.transform(sourceDirectory.getPath(), targetDirectory.getPath(), createTransformer(paramName, "VALUE"));
+        // mark the target files, so we can know whether they are transformed again
+        String marker = "NOT TRANSFORMED AGAIN";
+        FileUtils.writeStringToFile(unchangedTarget, marker, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(changedTarget, marker, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(changedSource, sourceContent.replace("100", "200"), StandardCharsets.UTF_8);
+
+        // when
+        pipToBeTested.transform(sourceDirectory.getPath(), targetDirectory.getPath(), createTransformer(paramName, "VALUE"));
+
+        // then
+        assertThat(FileUtils.readFileToString(unchangedTarget, StandardCharsets.UTF_8)).isEqualTo(marker);
+        assertThat(FileUtils.readFileToString(changedTarget, StandardCharsets.UTF_8))
+                .contains("<parameter name=\"" + paramName + "\">VALUE</parameter>");
+
+        // when
+        pipToBeTested.transform(sourceDirectory.getPath(), targetDirectory.getPath(), createTransformer(paramName, "OTHER_VALUE"));
+
+        // then
+        assertThat(FileUtils.readFileToString(unchangedTarget, StandardCharsets.UTF_8))
+                .contains("<parameter name=\"" + paramName + "\">OTHER_VALUE</parameter>");
+    }
+
+    private static Transformer createTransformer(String paramName, String paramValue) {
+        Properties conf = new Properties();
+        conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + paramName, paramValue);
+        Transformer transformer = new DefaultXMLParameterFileTransformer();
+        transformer.set(conf);
+        return transformer;
+    }
+
+    @Test
+    public void canCopyTheFilesWithoutConfiguredParametersAsTheyAre() throws Exception {
+        // given
+        File sourceDirectory = TEMPORARY_FOLDER.newFolder(), targetDirectory = TEMPORARY_FOLDER.newFolder();
+        String unmatchedContent = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<root version=\"2.0\" xmlns=\"http://www.informatica.com/Parameterization/1.0\">\n" +
+                "  <parameter   name=\"TEST_PARAM_OTHER\" >100</parameter>\n" +
+                "</root>";
+        FileUtils.writeStringToFile(new File(sourceDirectory, "unmatched.xml"), unmatchedContent, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(sourceDirectory, "matched.xml"), unmatchedContent.replace("TEST_PARAM_OTHER", "TEST_PARAM"), StandardCharsets.UTF_8);
+        TransformPipe pipToBeTested = new DefaultTransformPipe();
+        pipToBeTested.set(new Properties());
+
+        // when
+        pipToBeTested.transform(sourceDirectory.getPath(), targetDirectory.getPath(), createTransformer("TEST_PARAM", "VALUE"));
+
+        // then
+        assertThat(FileUtils.readFileToString(new File(targetDirectory, "unmatched.xml"), StandardCharsets.UTF_8)).isEqualTo(unmatchedContent);
+        assertThat(FileUtils.readFileToString(new File(targetDirectory, "matched.xml"), StandardCharsets.UTF_8))
+                .contains("<parameter name=\"TEST_PARAM\">VALUE</parameter>");
+    }
+
+    @Test
+    public void canReplaceTheTargetFilesWithoutLeavingTemporaryFiles() throws Exception {
+        // given
+        File sourceDirectory = TEMPORARY_FOLDER.newFolder(), targetDirectory = TEMPORARY_FOLDER.newFolder();
+        String content = "<root><parameter name=\"TEST_PARAM\">100</parameter></root>";
+        FileUtils.writeStringToFile(new File(sourceDirectory, "param.xml"), content, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(sourceDirectory, "sub/param.xml"), content, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(targetDirectory, "param.xml"), "stale", StandardCharsets.UTF_8);
+        TransformPipe pipToBeTested = new DefaultTransformPipe();
+        Properties conf = new Properties();
+        conf.setProperty(DefaultTransformPipe.FSYNC_CONF_NAME, DefaultTransformPipe.FSYNC_BATCH);
+        // the duplicate is linked to the target file not renamed yet
+        conf.setProperty(DefaultTransformPipe.DEDUP_CONF_NAME, DefaultTransformPipe.DEDUP_HARD_LINK);
+        pipToBeTested.set(conf);
+
+        // when
+        pipToBeTested.transform(sourceDirectory.getPath(), targetDirectory.getPath(), createTransformer("TEST_PARAM", "VALUE"));
+
+        // then
+        assertThat(FileUtils.readFileToString(new File(targetDirectory, "param.xml"), StandardCharsets.UTF_8))
+                .contains("<parameter name=\"TEST_PARAM\">VALUE</parameter>");
+        assertThat(FileUtils.readFileToString(new File(targetDirectory, "sub/param.xml"), StandardCharsets.UTF_8))
+                .contains("<parameter name=\"TEST_PARAM\">VALUE</parameter>");
+        assertThat(FileUtils.listFiles(targetDirectory, new String[]{"tmp"}, true)).isEmpty();
+    }
+
+    @Test
+    public void canTransformTheMappedSourceByChannelTransformer() throws Exception {
+        // given
+        File sourceDirectory = TEMPORARY_FOLDER.newFolder(), targetDirectory = TEMPORARY_FOLDER.newFolder();
+        StringBuilder content = new StringBuilder(), expected = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            content.append("INSERT INTO ${SCHEMA}.T VALUES (").append(i).append(");\n");
+            expected.append("INSERT INTO ODS.T VALUES (").append(i).append(");\n");
+        }
+        FileUtils.writeStringToFile(new File(sourceDirectory, "large.sql"), content.toString(), StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(sourceDirectory, "small.sql"), "SELECT 1 FROM ${SCHEMA}.T;", StandardCharsets.UTF_8);
+        Properties conf = new Properties();
+        conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "SCHEMA", "ODS");
+        Transformer transformer = new PlaceholderTransformer();
+        transformer.set(conf);
+        Properties pipeConf = new Properties();
+        pipeConf.setProperty(DefaultTransformPipe.MMAP_THRESHOLD_CONF_NAME, "1024");
+        DefaultTransformPipe pipeToBeTested = new DefaultTransformPipe();
+        pipeToBeTested.set(pipeConf);
+
+        // when
+        pipeToBeTested.transform(sourceDirectory.getPath(), targetDirectory.getPath(), transformer);
+
+        // then
+        assertThat(FileUtils.readFileToString(new File(targetDirectory, "large.sql"), StandardCharsets.UTF_8)).isEqualTo(expected.toString());
+        assertThat(FileUtils.readFileToString(new File(targetDirectory, "small.sql"), StandardCharsets.UTF_8)).isEqualTo("SELECT 1 FROM ODS.T;");
+    }
+
+    @Test
+    public void canKeepTheFilesRunningAtTheSameTimeWithinTheHeapBudget() throws Exception {
+        // given
+        File sourceDirectory = TEMPORARY_FOLDER.newFolder(), targetDirectory = TEMPORARY_FOLDER.newFolder();
+        int[] sizes = {700 * 1024, 600 * 1024, 300 * 1024, 200 * 1024, 100 * 1024, 1024, 1024, 1024};
+        for (int i = 0; i < sizes.length; i++) {
+            FileUtils.writeByteArrayToFile(new File(sourceDirectory, "file" + i + ".txt"), new byte[sizes[i]]);
+        }
+        AtomicLong runningBytes = new AtomicLong(), peakRunningBytes = new AtomicLong();
+        Transformer transformer = new AbstractStreamBasedTransformer() {
+            @Override
+            public void apply(InputStream input, OutputStream output) {
+                try {
+                    long size = IOUtils.copyLarge(input, output);
+                    peakRunningBytes.accumulateAndGet(runningBytes.addAndGet(size), Math::max);
+                    Thread.sleep(50);
+                    runningBytes.addAndGet(-size);
+                } catch (IOException e) {
+                    throw new TextTransformUtilException(e);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void set(Properties conf) {
+            }
+        };
+        Properties pipeConf = new Properties();
+        pipeConf.setProperty(DefaultTransformPipe.PARALLELISM_CONF_NAME, "4");
+        pipeConf.setProperty(DefaultTransformPipe.HEAP_BUDGET_CONF_NAME, "1");
+        pipeConf.setProperty(DefaultTransformPipe.HEAP_COST_FACTOR_CONF_NAME, "1");
+        DefaultTransformPipe pipeToBeTested = new DefaultTransformPipe();
+        pipeToBeTested.set(pipeConf);
+
+        // when
+        pipeToBeTested.transform(sourceDirectory.getPath(), targetDirectory.getPath(), transformer);
+
+        // then
+        for (int i = 0; i < sizes.length; i++) {
+            assertThat(new File(targetDirectory, "file" + i + ".txt")).hasSize(sizes[i]);
+        }
+        assertThat(peakRunningBytes.get()).isLessThanOrEqualTo(1024 * 1024);
+    }
+
+    @Test
+    public void canTransformTheFilesInTheWalkOrder() throws Exception {
+        // given
+        File sourceDirectory = TEMPORARY_FOLDER.newFolder(), targetDirectory = TEMPORARY_FOLDER.newFolder();
+        int[] sizes = {3 * 1024, 50 * 1024, 1024, 20 * 1024, 100 * 1024, 10 * 1024};
+        for (int i = 0; i < sizes.length; i++) {
+            FileUtils.writeByteArrayToFile(new File(sourceDirectory, "file" + i + ".txt"), new byte[sizes[i]]);
+        }
+        List<Long> transformedSizes = Collections.synchronizedList(new ArrayList<>());
+        Properties pipeConf = new Properties();
+        pipeConf.setProperty(DefaultTransformPipe.PARALLELISM_CONF_NAME, "1");
+        pipeConf.setProperty(DefaultTransformPipe.SCHEDULE_CONF_NAME, DefaultTransformPipe.SCHEDULE_WALK_ORDER);
+        DefaultTransformPipe pipeToBeTested = new DefaultTransformPipe();
+        pipeToBeTested.set(pipeConf);
+
+        // when
+        pipeToBeTested.transform(sourceDirectory.getPath(), targetDirectory.getPath(), createSizeRecordingTransformer(transformedSizes));
+
+        // then
+        // the walker lists a directory in the same order as the directory stream
+        List<Long> walkOrderSizes = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(sourceDirectory.toPath())) {
+            for (Path file : files) {
+                walkOrderSizes.add(Files.size(file));
+            }
+        }
+        assertThat(transformedSizes).isEqualTo(walkOrderSizes);
+    }
+
+    /**
+     * The transformer that records the size of each file it transforms.
+     */
+    private static Transformer createSizeRecordingTransformer(List<Long> transformedSizes) {
+        return new AbstractStreamBasedTransformer() {
+            @Override
+            public void apply(InputStream input, OutputStream output) {
+                try {
+                    transformedSizes.add(IOUtils.copyLarge(input, output));
+                } catch (IOException e) {
+                    throw new TextTransformUtilException(e);
+                }
+            }
+
+            @Override
+            public void set(Properties conf) {
+            }
+        };
+    }
+
+    @Test
+    public void canTransformEachContentOnceAndLinkTheDuplicates() throws Exception {
+        // given
+        File sourceDirectory = TEMPORARY_FOLDER.newFolder(), targetDirectory = TEMPORARY_FOLDER.newFolder();
+        String[] paths = {"wf1/param.xml", "wf2/param.xml", "wf3/sub/param.xml", "wf4/param.xml"};
+        String[] contents = {"same content", "same content", "same content", "other content"};
+        for (int i = 0; i < paths.length; i++) {
+            FileUtils.writeStringToFile(new File(sourceDirectory, paths[i]), contents[i], StandardCharsets.UTF_8);
+        }
+        AtomicLong transformCount = new AtomicLong();
+        Transformer transformer = new AbstractStreamBasedTransformer() {
+            @Override
+            public void apply(InputStream input, OutputStream output) {
+                transformCount.incrementAndGet();
+                try {
+                    output.write(IOUtils.toString(input, StandardCharsets.UTF_8).toUpperCase().getBytes(StandardCharsets.UTF_8));
+                } catch (IOException e) {
+                    throw new TextTransformUtilException(e);
+                }
+            }
+
+            @Override
+            public void set(Properties conf) {
+            }
+        };
+        Properties pipeConf = new Properties();
+        pipeConf.setProperty(DefaultTransformPipe.PARALLELISM_CONF_NAME, "4");
+        pipeConf.setProperty(DefaultTransformPipe.DEDUP_CONF_NAME, DefaultTransformPipe.DEDUP_HARD_LINK);
+        DefaultTransformPipe pipeToBeTested = new DefaultTransformPipe();
+        pipeToBeTested.set(pipeConf);
+        RunMetrics metrics = new RunMetrics();
+        pipeToBeTested.setMetrics(metrics);
+
+        // when
+        pipeToBeTested.transform(sourceDirectory.getPath(), targetDirectory.getPath(), transformer);
+
+        // then
+        assertThat(transformCount.get()).isEqualTo(2);
+        for (int i = 0; i < paths.length; i++) {
+            assertThat(new File(targetDirectory, paths[i])).hasContent(contents[i].toUpperCase());
+        }
+        assertThat(Files.isSameFile(new File(targetDirectory, paths[0]).toPath(), new File(targetDirectory, paths[2]).toPath())).isTrue();
+        assertThat(metrics.getFilesDeduplicated()).isEqualTo(2);
+        assertThat(metrics.getBytesDeduplicated()).isEqualTo(2 * "same content".length());
+    }
+
+    @Test
+    public void canLoadTheTransformedContentFromTheCache() throws Exception {
+        // given
+        File sourceDirectory = TEMPORARY_FOLDER.newFolder(), cacheDirectory = TEMPORARY_FOLDER.newFolder();
+        File firstTargetDirectory = TEMPORARY_FOLDER.newFolder(), secondTargetDirectory = TEMPORARY_FOLDER.newFolder();
+        String content = "<root><parameter name=\"TEST_PARAM\">100</parameter><parameter name=\"OTHER_PARAM\">1</parameter></root>";
+        FileUtils.writeStringToFile(new File(sourceDirectory, "wf1" + File.separator + "param.xml"), content, StandardCharsets.UTF_8);
+        Properties conf = new Properties();
+        conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "TEST_PARAM", "VALUE");
+        conf.setProperty(DefaultTransformPipe.CACHE_DIR_CONF_NAME, cacheDirectory.getPath());
+        Transformer firstTransformer = new DefaultXMLParameterFileTransformer();
+        firstTransformer.set(conf);
+        DefaultTransformPipe firstPipe = new DefaultTransformPipe();
+        firstPipe.set(conf);
+        firstPipe.setMetrics(new RunMetrics());
+        firstPipe.transform(sourceDirectory.getPath(), firstTargetDirectory.getPath(), firstTransformer);
+        // the parameter not in the source does not change the result
+        conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "UNUSED_PARAM", "VALUE");
+        Transformer secondTransformer = new DefaultXMLParameterFileTransformer();
+        secondTransformer.set(conf);
+        DefaultTransformPipe secondPipe = new DefaultTransformPipe();
+        secondPipe.set(conf);
+        RunMetrics metrics = new RunMetrics();
+        secondPipe.setMetrics(metrics);
+
+        // when
+        secondPipe.transform(sourceDirectory.getPath(), secondTargetDirectory.getPath(), secondTransformer);
+
+        // then
+        File firstTargetFile = new File(firstTargetDirectory, "wf1" + File.separator + "param.xml");
+        File secondTargetFile = new File(secondTargetDirectory, "wf1" + File.separator + "param.xml");
+        assertThat(metrics.getFilesCached()).isEqualTo(1);
+        assertThat(metrics.getCacheHits()).isEqualTo(1);
+        assertThat(secondTargetFile).hasSameTextualContentAs(firstTargetFile);
+        assertThat(FileUtils.readFileToString(secondTargetFile, StandardCharsets.UTF_8)).contains("<parameter name=\"TEST_PARAM\">VALUE</parameter>");
+    }
+
+    @Test
+    public void canKeepTheTargetUpToDateInWatchMode() throws Exception {
+        // given
+        File sourceDirectory = TEMPORARY_FOLDER.newFolder(), targetDirectory = TEMPORARY_FOLDER.newFolder();
+        String content = "<root><parameter name=\"TEST_PARAM\">100</parameter></root>";
+        File changedSource = new File(sourceDirectory, "changed.xml"), deletedSource = new File(sourceDirectory, "sub" + File.separator + "deleted.xml");
+        FileUtils.writeStringToFile(changedSource, content, StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(deletedSource, content, StandardCharsets.UTF_8);
+        File otherTargetFile = new File(targetDirectory, "sub" + File.separator + "other.txt");
+        FileUtils.writeStringToFile(otherTargetFile, "not written by the pipe", StandardCharsets.UTF_8);
+        DefaultTransformPipe pipToBeTested = new DefaultTransformPipe();
+        Properties conf = new Properties();
+        conf.setProperty(DefaultTransformPipe.EXTENSIONS_CONF_NAME, "xml");
+        conf.setProperty(DefaultTransformPipe.WATCH_DEBOUNCE_CONF_NAME, "50");
+        pipToBeTested.set(conf);
+        Thread watcher = new Thread(() -> pipToBeTested.watch(sourceDirectory.getPath(), Collections.singletonList(
+                new TransformProfile("test", targetDirectory.getPath(), createTransformer("TEST_PARAM", "VALUE")))));
+        watcher.start();
+        File changedTarget = new File(targetDirectory, "changed.xml"), deletedTarget = new File(targetDirectory, "sub" + File.separator + "deleted.xml");
+        File createdTarget = new File(targetDirectory, "new" + File.separator + "created.xml");
+        try {
+            awaitCondition(() -> deletedTarget.isFile());
+
+            // when
+            FileUtils.writeStringToFile(changedSource, content.replace("100", "200").replace("TEST_PARAM", "OTHER_PARAM"), StandardCharsets.UTF_8);
+            FileUtils.writeStringToFile(new File(sourceDirectory, "new" + File.separator + "created.xml"), content, StandardCharsets.UTF_8);
+            FileUtils.forceDelete(deletedSource);
+
+            // then
+            awaitCondition(() -> createdTarget.isFile() && !deletedTarget.exists()
+                    && FileUtils.readFileToString(changedTarget, StandardCharsets.UTF_8).contains("200"));
+        } finally {
+            watcher.interrupt();
+            watcher.join(10000);
+        }
+        assertThat(watcher.isAlive()).isFalse();
+        assertThat(FileUtils.readFileToString(createdTarget, StandardCharsets.UTF_8)).contains("<parameter name=\"TEST_PARAM\">VALUE</parameter>");
+        assertThat(otherTargetFile).exists();
+    }
+
+    private static void awaitCondition(Callable<Boolean> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!condition.call()) {
+            assertThat(System.currentTimeMillis()).as("waiting for the target to be updated").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
 }
@@ -5,7 +5,17 @@ import org.sparkliang.textutil.api.Transformer;
 
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.xpath.XPathFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.sparkliang.textutil.test.util.XMLTestUtil.getTextContentMatcher;
 import static org.xmlunit.assertj.XmlAssert.assertThat;
@@ -156,4 +166,323 @@ public class DefaultXMLParameterFileTransformerTest {
     }
 
 
-}
\ No newline at end of file
+    /**
+     * The StAX mode should produce the same document as the DOM mode, except the indentation.
+     */
+    @Test
+    public void canApplyInStAXModeWithTheSameResultAsDOMMode() throws Exception {
+        //given
+        String xmlBeforeApply = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<root version=\"2.0\" xmlns:xsi=\"http://www.w3.org/2001/XMLSchema\" xmlns=\"http://www.informatica.com/Parameterization/1.0\">\n" +
+                "   <project name=\"Orders\">\n" +
+                "      <workflow name=\"Customer_Workflow\">\n" +
+                "         <parameter name=\"TEST_PARAM\">100</parameter>\n" +
+                "         <parameter name=\"TEST_PARAM_OTHER\">200</parameter>\n" +
+                "      </workflow>\n" +
+                "      <workflow name=\"Customer_Workflow_2\">\n" +
+                "         <parameter name=\"TEST_PARAM\"><!-- comment -->100</parameter>\n" +
+                "         <parameter name=\"TEST_PARAM_OTHER_2\"/>\n" +
+                "      </workflow>\n" +
+                "   </project>\n" +
+                "</root>";
+
+        String testParamName = "TEST_PARAM", testParamVale = "VALUE<&>";
+        Properties domConf = new Properties() {{
+            setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + testParamName, testParamVale);
+        }};
+        Properties staxConf = new Properties() {{
+            putAll(domConf);
+            setProperty(DefaultXMLParameterFileTransformer.MODE_CONF_NAME, DefaultXMLParameterFileTransformer.MODE_STAX);
+        }};
+        Transformer domTransformer = new DefaultXMLParameterFileTransformer();
+        domTransformer.set(domConf);
+        Transformer utilToBeTested = new DefaultXMLParameterFileTransformer();
+        utilToBeTested.set(staxConf);
+
+        //when
+        String[] expected = domTransformer.apply(xmlBeforeApply.split(System.lineSeparator()));
+        String[] result = utilToBeTested.apply(xmlBeforeApply.split(System.lineSeparator()));
+
+        //then
+        String resultXMLStr = String.join(System.lineSeparator(), result);
+
+        assertThat(resultXMLStr).and(String.join(System.lineSeparator(), expected))
+                .ignoreWhitespace()
+                .areIdentical();
+        org.assertj.core.api.Assertions.assertThat(resultXMLStr)
+                .contains("<parameter name=\"TEST_PARAM\">VALUE&lt;&amp;&gt;</parameter>")
+                .contains("<parameter name=\"TEST_PARAM_OTHER\">200</parameter>");
+    }
+
+    @Test
+    public void canReportMatchedAndUnmatchedParameters() throws Exception {
+        //given
+        String xmlBeforeApply = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<root version=\"2.0\" xmlns=\"http://www.informatica.com/Parameterization/1.0\">\n" +
+                "   <project name=\"Orders\">\n" +
+                "      <workflow name=\"Customer_Workflow\">\n" +
+                "         <parameter name=\"TEST_PARAM\">100</parameter>\n" +
+                "         <parameter name=\"TEST_PARAM_OTHER\">200</parameter>\n" +
+                "      </workflow>\n" +
+                "      <workflow name=\"Customer_Workflow_2\">\n" +
+                "         <parameter name=\"TEST_PARAM\">100</parameter>\n" +
+                "      </workflow>\n" +
+                "   </project>\n" +
+                "</root>";
+
+        for (String mode : new String[]{DefaultXMLParameterFileTransformer.MODE_DOM, DefaultXMLParameterFileTransformer.MODE_STAX}) {
+            Properties conf = new Properties() {{
+                setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "TEST_PARAM", "VALUE");
+                setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "NOT_EXISTS", "VALUE");
+                setProperty(DefaultXMLParameterFileTransformer.MODE_CONF_NAME, mode);
+            }};
+            DefaultXMLParameterFileTransformer utilToBeTested = new DefaultXMLParameterFileTransformer();
+            utilToBeTested.set(conf);
+
+            //when
+            utilToBeTested.apply(xmlBeforeApply.split(System.lineSeparator()));
+
+            //then
+            SubstitutionStatistics statistics = utilToBeTested.getLastStatistics();
+            org.assertj.core.api.Assertions.assertThat(statistics.getMatchedParameters()).containsExactly("TEST_PARAM");
+            org.assertj.core.api.Assertions.assertThat(statistics.getUnmatchedCount()).isEqualTo(1);
+            org.assertj.core.api.Assertions.assertThat(statistics.getReplacedCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void canApplyConcurrentlyWithTheSameInstance() throws Exception {
+        //given
+        String testParamName = "TEST_PARAM", testParamVale = "VALUE";
+        Properties conf = new Properties() {{
+            setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + testParamName, testParamVale);
+        }};
+        Transformer utilToBeTested = new DefaultXMLParameterFileTransformer();
+        utilToBeTested.set(conf);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        //when
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            String xmlBeforeApply = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                    "<root version=\"2.0\" xmlns=\"http://www.informatica.com/Parameterization/1.0\">\n" +
+                    "   <workflow name=\"Customer_Workflow_" + i + "\">\n" +
+                    "      <parameter name=\"TEST_PARAM\">" + i + "</parameter>\n" +
+                    "   </workflow>\n" +
+                    "</root>";
+            results.add(executor.submit(() ->
+                    String.join(System.lineSeparator(), utilToBeTested.apply(xmlBeforeApply.split(System.lineSeparator())))
+            ));
+        }
+        executor.shutdown();
+
+        //then
+        for (int i = 0; i < results.size(); i++) {
+            org.assertj.core.api.Assertions.assertThat(results.get(i).get())
+                    .contains("Customer_Workflow_" + i + "\"")
+                    .contains("<parameter name=\"TEST_PARAM\">VALUE</parameter>");
+        }
+    }
+
+    @Test
+    public void canTellWhetherTheFileReferToTheConfiguredParameters() throws Exception {
+        //given
+        Properties conf = new Properties() {{
+            setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "TEST_PARAM", "VALUE");
+        }};
+        DefaultXMLParameterFileTransformer utilToBeTested = new DefaultXMLParameterFileTransformer();
+        utilToBeTested.set(conf);
+        String header = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<root>\n";
+
+        //when
+        //then
+        org.assertj.core.api.Assertions.assertThat(isTransformRequired(utilToBeTested,
+                header + "<parameter name=\"TEST_PARAM\">100</parameter></root>")).isTrue();
+        org.assertj.core.api.Assertions.assertThat(isTransformRequired(utilToBeTested,
+                header + "<parameter name='TEST_PARAM'>100</parameter></root>")).isTrue();
+        org.assertj.core.api.Assertions.assertThat(isTransformRequired(utilToBeTested,
+                header + "<parameter name=\"TEST_PARAM_OTHER\">TEST_PARAM</parameter></root>")).isFalse();
+        org.assertj.core.api.Assertions.assertThat(isTransformRequired(utilToBeTested,
+                header + "<!-- <parameter name=\"TEST_PARAM\"> --><![CDATA[ name=\"TEST_PARAM\" ]]></root>")).isFalse();
+        org.assertj.core.api.Assertions.assertThat(isTransformRequired(utilToBeTested,
+                header + "<p>it's</p><!-- it's --><parameter name=\"TEST_PARAM\">100</parameter></root>")).isTrue();
+        org.assertj.core.api.Assertions.assertThat(isTransformRequired(utilToBeTested,
+                header + "<parameter name=\"TEST_&#80;ARAM\">100</parameter></root>")).isTrue();
+        org.assertj.core.api.Assertions.assertThat(isTransformRequired(utilToBeTested,
+                "<?xml version=\"1.0\"?><!DOCTYPE root [<!ENTITY p \"TEST_PARAM\">]><root/>")).isTrue();
+        org.assertj.core.api.Assertions.assertThat(isTransformRequired(utilToBeTested,
+                "<?xml version=\"1.0\" encoding=\"UTF-16\"?><root/>")).isTrue();
+
+        //when
+        utilToBeTested.set(new Properties() {{
+            setProperty(DefaultXMLParameterFileTransformer.PRESCAN_CONF_NAME, "false");
+        }});
+
+        //then
+        org.assertj.core.api.Assertions.assertThat(isTransformRequired(utilToBeTested, header + "</root>")).isTrue();
+    }
+
+    private static boolean isTransformRequired(DefaultXMLParameterFileTransformer transformer, String xml) {
+        return transformer.isTransformRequired(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * The splice mode should only change the content of the matched parameters, and keep all the other bytes.
+     */
+    @Test
+    public void canSpliceTheValuesAndKeepTheOtherBytes() throws Exception {
+        //given
+        String xmlBeforeApply = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n" +
+                "<!-- <parameter name=\"TEST_PARAM\">comment</parameter> -->\r\n" +
+                "<root   version=\"2.0\" xmlns=\"http://www.informatica.com/Parameterization/1.0\">\r\n" +
+                "  <workflow name='Customer_Workflow'>\r\n" +
+                "    <parameter name=\"TEST_PARAM\"><![CDATA[</parameter>]]><!-- old --><b>100</b></parameter>\r\n" +
+                "    <parameter\tname = 'TEST_PARAM' />\r\n" +
+                "    <parameter name=\"TEST_&#80;ARAM_2\">\u4e2d\u6587</parameter>\r\n" +
+                "    <parameter name=\"TEST_PARAM_OTHER\">200</parameter>\r\n" +
+                "  </workflow>\r\n" +
+                "</root>\r\n";
+        String expected = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n" +
+                "<!-- <parameter name=\"TEST_PARAM\">comment</parameter> -->\r\n" +
+                "<root   version=\"2.0\" xmlns=\"http://www.informatica.com/Parameterization/1.0\">\r\n" +
+                "  <workflow name='Customer_Workflow'>\r\n" +
+                "    <parameter name=\"TEST_PARAM\">VALUE&lt;&amp;&gt;</parameter>\r\n" +
+                "    <parameter\tname = 'TEST_PARAM' >VALUE&lt;&amp;&gt;</parameter>\r\n" +
+                "    <parameter name=\"TEST_&#80;ARAM_2\">\u503c</parameter>\r\n" +
+                "    <parameter name=\"TEST_PARAM_OTHER\">200</parameter>\r\n" +
+                "  </workflow>\r\n" +
+                "</root>\r\n";
+        Properties conf = new Properties() {{
+            setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "TEST_PARAM", "VALUE<&>");
+            setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "TEST_PARAM_2", "\u503c");
+            setProperty(DefaultXMLParameterFileTransformer.MODE_CONF_NAME, DefaultXMLParameterFileTransformer.MODE_SPLICE);
+        }};
+        DefaultXMLParameterFileTransformer utilToBeTested = new DefaultXMLParameterFileTransformer();
+        utilToBeTested.set(conf);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        //when
+        utilToBeTested.apply(new ByteArrayInputStream(xmlBeforeApply.getBytes(StandardCharsets.UTF_8)), output);
+
+        //then
+        org.assertj.core.api.Assertions.assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(expected);
+        org.assertj.core.api.Assertions.assertThat(utilToBeTested.getLastStatistics().getReplacedCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void canSpliceTheDocumentWithDoctypeInStAXMode() throws Exception {
+        //given
+        String xmlBeforeApply = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<!DOCTYPE root [<!ENTITY name \"TEST_PARAM\">]>\n" +
+                "<root>\n" +
+                "  <parameter name=\"&name;\">100</parameter>\n" +
+                "</root>";
+        Properties conf = new Properties() {{
+            setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "TEST_PARAM", "VALUE");
+            setProperty(DefaultXMLParameterFileTransformer.MODE_CONF_NAME, DefaultXMLParameterFileTransformer.MODE_SPLICE);
+        }};
+        DefaultXMLParameterFileTransformer utilToBeTested = new DefaultXMLParameterFileTransformer();
+        utilToBeTested.set(conf);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        //when
+        utilToBeTested.apply(new ByteArrayInputStream(xmlBeforeApply.getBytes(StandardCharsets.UTF_8)), output);
+
+        //then
+        org.assertj.core.api.Assertions.assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8))
+                .contains(">VALUE</parameter>");
+        org.assertj.core.api.Assertions.assertThat(utilToBeTested.getLastStatistics().getReplacedCount()).isEqualTo(1);
+    }
+
+    /**
+     * The lines should be taken from the input while the output lines are produced, instead of being collected first.
+     */
+    @Test
+    public void canApplyOnTheLinesProducedLazily() throws Exception {
+        //given
+        int parameterCount = 100000;
+        AtomicInteger producedLines = new AtomicInteger(), consumedLines = new AtomicInteger(), replacedLines = new AtomicInteger();
+        AtomicInteger maxPendingLines = new AtomicInteger();
+        Iterator<String> input = new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return producedLines.get() < parameterCount + 2;
+            }
+
+            @Override
+            public String next() {
+                int line = producedLines.getAndIncrement();
+                if (0 == line) {
+                    return "<root xmlns=\"http://www.informatica.com/Parameterization/1.0\">";
+                }
+                if (parameterCount + 1 == line) {
+                    return "</root>";
+                }
+                return "  <parameter name=\"TEST_PARAM_" + (line % 2) + "\">100</parameter>\r";
+            }
+        };
+        Properties conf = new Properties() {{
+            setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "TEST_PARAM_1", "\u503c");
+            setProperty(DefaultXMLParameterFileTransformer.MODE_CONF_NAME, DefaultXMLParameterFileTransformer.MODE_SPLICE);
+        }};
+        DefaultXMLParameterFileTransformer utilToBeTested = new DefaultXMLParameterFileTransformer();
+        utilToBeTested.set(conf);
+
+        //when
+        utilToBeTested.apply(input, line -> {
+            int pendingLines = producedLines.get() - consumedLines.incrementAndGet();
+            maxPendingLines.accumulateAndGet(pendingLines, Math::max);
+            if (line.equals("  <parameter name=\"TEST_PARAM_1\">\u503c</parameter>")) {
+                replacedLines.incrementAndGet();
+            }
+        });
+
+        //then
+        org.assertj.core.api.Assertions.assertThat(consumedLines.get()).isEqualTo(parameterCount + 2);
+        org.assertj.core.api.Assertions.assertThat(replacedLines.get()).isEqualTo(parameterCount / 2);
+        org.assertj.core.api.Assertions.assertThat(maxPendingLines.get()).isLessThan(parameterCount / 10);
+    }
+
+    /**
+     * The document is parsed once, and the output for each transformer should be the same as applying that transformer alone,
+     * even if a parameter replaced for a transformer is not configured by the next one.
+     */
+    @Test
+    public void canApplyForSeveralTransformersAfterParsingOnce() throws Exception {
+        //given
+        String xmlBeforeApply = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+                "<root xmlns=\"http://www.informatica.com/Parameterization/1.0\">\n" +
+                "  <parameter name=\"TEST_PARAM\">100</parameter>\n" +
+                "  <parameter name=\"TEST_PARAM_OTHER\"><![CDATA[200]]><!-- comment --></parameter>\n" +
+                "</root>";
+        String[][] profileValues = {{"DEV", "DEV_OTHER"}, {"SIT", null}, {null, null}};
+        List<DefaultXMLParameterFileTransformer> transformers = new ArrayList<>();
+        List<ByteArrayOutputStream> outputs = new ArrayList<>();
+        for (String[] values : profileValues) {
+            Properties conf = new Properties();
+            if (null != values[0]) {
+                conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "TEST_PARAM", values[0]);
+            }
+            if (null != values[1]) {
+                conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "TEST_PARAM_OTHER", values[1]);
+            }
+            DefaultXMLParameterFileTransformer transformer = new DefaultXMLParameterFileTransformer();
+            transformer.set(conf);
+            transformers.add(transformer);
+            outputs.add(new ByteArrayOutputStream());
+        }
+
+        //when
+        transformers.get(0).apply(new ByteArrayInputStream(xmlBeforeApply.getBytes(StandardCharsets.UTF_8)), transformers, outputs);
+
+        //then
+        for (int i = 0; i < transformers.size(); i++) {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            transformers.get(i).apply(new ByteArrayInputStream(xmlBeforeApply.getBytes(StandardCharsets.UTF_8)), expected);
+            org.assertj.core.api.Assertions.assertThat(outputs.get(i).toString("UTF-8")).isEqualTo(expected.toString("UTF-8"));
+        }
+        org.assertj.core.api.Assertions.assertThat(outputs.get(1).toString("UTF-8"))
+                .contains(">SIT</parameter>")
+                .contains("<![CDATA[200]]><!-- comment -->");
+    }
+}
@@ -0,0 +1,136 @@
+package org.sparkliang.textutil.impl;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PlaceholderTransformerTest {
+
+    @Test
+    public void canReplaceThePlaceholdersInAllTheStyles() {
+        // given
+        String templateBeforeApply = "SELECT * FROM ${SCHEMA}.ORDERS WHERE DT = '@CYCLE_DT@' AND X = '${SCHEMA_2}';\n" +
+                "-- ${UNKNOWN} @UNKNOWN@ ${SCHEMA @CYCLE_DT $${SCHEMA}} @@CYCLE_DT@@\n" +
+                "${SCHEMA}";
+        String expected = "SELECT * FROM ODS.ORDERS WHERE DT = '2026-10-18' AND X = '\u503c';\n" +
+                "-- ${UNKNOWN} @UNKNOWN@ ${SCHEMA @CYCLE_DT $ODS} @2026-10-18@\n" +
+                "ODS";
+        PlaceholderTransformer transformerToBeTested = new PlaceholderTransformer();
+        transformerToBeTested.set(createConfiguration());
+
+        // when
+        String result = apply(transformerToBeTested, new ByteArrayInputStream(templateBeforeApply.getBytes(StandardCharsets.UTF_8)));
+
+        // then
+        assertThat(result).isEqualTo(expected);
+        assertThat(transformerToBeTested.getLastStatistics().getReplacedCount()).isEqualTo(6);
+        assertThat(transformerToBeTested.getLastStatistics().getMatchedParameters()).containsOnly("SCHEMA", "SCHEMA_2", "CYCLE_DT");
+    }
+
+    /**
+     * The placeholders split by the reads should be replaced the same as the others.
+     */
+    @Test
+    public void canReplaceThePlaceholdersAcrossTheReads() {
+        // given
+        Random random = new Random(20261018);
+        StringBuilder template = new StringBuilder(), expected = new StringBuilder();
+        String[] tokens = {"${SCHEMA}", "@CYCLE_DT@", "${SCHEMA_2}", "${SCHEMA", "@", "$", "text", "\u4e2d", "\n"};
+        String[] values = {"ODS", "2026-10-18", "\u503c", "${SCHEMA", "@", "$", "text", "\u4e2d", "\n"};
+        for (int i = 0; i < 5000; i++) {
+            int token = random.nextInt(tokens.length);
+            template.append(tokens[token]);
+            expected.append(values[token]);
+        }
+        PlaceholderTransformer transformerToBeTested = new PlaceholderTransformer();
+        transformerToBeTested.set(createConfiguration());
+        byte[] content = template.toString().getBytes(StandardCharsets.UTF_8);
+
+        for (int readSize : new int[]{1, 2, 3, 7, 100, content.length}) {
+            // when
+            String result = apply(transformerToBeTested, new TrickleInputStream(content, readSize));
+
+            // then
+            assertThat(result).isEqualTo(expected.toString());
+        }
+    }
+
+    @Test
+    public void canReplaceThePlaceholdersInABuffer() {
+        // given
+        String prefix = "${SCHEMA}";
+        String template = prefix + "SELECT * FROM ${SCHEMA}.T WHERE DT = '@CYCLE_DT@' -- ${UNKNOWN} ${SCHEMA @@CYCLE_DT@@";
+        String expected = "SELECT * FROM ODS.T WHERE DT = '2026-10-18' -- ${UNKNOWN} ${SCHEMA @2026-10-18@";
+        PlaceholderTransformer transformerToBeTested = new PlaceholderTransformer();
+        transformerToBeTested.set(createConfiguration());
+        byte[] content = template.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer input = ByteBuffer.allocateDirect(content.length);
+        input.put(content).flip();
+        // the content before the position is not part of the input
+        input.position(prefix.length());
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // when
+        transformerToBeTested.apply(input.asReadOnlyBuffer(), Channels.newChannel(output));
+
+        // then
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(expected);
+        assertThat(input.position()).isEqualTo(prefix.length());
+        assertThat(transformerToBeTested.getLastStatistics().getReplacedCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void canTellWhetherTheFileContainsThePlaceholders() {
+        // given
+        PlaceholderTransformer transformerToBeTested = new PlaceholderTransformer();
+        transformerToBeTested.set(createConfiguration());
+
+        // when & then
+        assertThat(transformerToBeTested.isTransformRequired(toStream("echo ${UNKNOWN} @SCHEMA ${SCHEMA"))).isFalse();
+        assertThat(transformerToBeTested.isTransformRequired(toStream("echo @SCHEMA@"))).isTrue();
+    }
+
+    private static Properties createConfiguration() {
+        Properties conf = new Properties();
+        conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "SCHEMA", "ODS");
+        conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "SCHEMA_2", "\u503c");
+        conf.setProperty(DefaultXMLParameterFileTransformer.PARAM_VAL_PROP_NAME_PREFIX + "CYCLE_DT", "2026-10-18");
+        return conf;
+    }
+
+    private static String apply(PlaceholderTransformer transformer, InputStream input) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        transformer.apply(input, output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static InputStream toStream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Return at most the given number of bytes on each read.
+     */
+    private static class TrickleInputStream extends ByteArrayInputStream {
+        private final int readSize;
+
+        TrickleInputStream(byte[] content, int readSize) {
+            super(content);
+            this.readSize = readSize;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) {
+            return super.read(b, off, Math.min(len, readSize));
+        }
+    }
+}
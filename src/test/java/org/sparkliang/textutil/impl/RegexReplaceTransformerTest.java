@@ -0,0 +1,153 @@
+package org.sparkliang.textutil.impl;
+
+import org.junit.Test;
+import org.sparkliang.textutil.exception.TextTransformUtilException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class RegexReplaceTransformerTest {
+
+    @Test
+    public void canApplyAllTheRulesInOnePass() {
+        // given
+        String textBeforeApply = "2026-10-18 INFO user=alice password=secret1\n" +
+                "2026-10-19 WARN user=bob password=secret2\n";
+        String expected = "18/10/2026 INFO user=ALICE password=***\n" +
+                "19/10/2026 WARN user=ALICE password=***\n";
+        Properties conf = new Properties();
+        conf.setProperty("transformer.regex.1.pattern", "(?<year>\\d{4})-(\\d{2})-(\\d{2})");
+        conf.setProperty("transformer.regex.1.replacement", "$3/$2/${year}");
+        conf.setProperty("transformer.regex.2.pattern", "(?<=password=)\\w+");
+        conf.setProperty("transformer.regex.2.replacement", "***");
+        conf.setProperty("transformer.regex.10.pattern", "user=\\w+");
+        conf.setProperty("transformer.regex.10.replacement", "user=ALICE");
+        // never applied, since the rule 10 matches at the same position
+        conf.setProperty("transformer.regex.11.pattern", "user=");
+        conf.setProperty("transformer.regex.11.replacement", "\\$1");
+        RegexReplaceTransformer transformerToBeTested = new RegexReplaceTransformer();
+        transformerToBeTested.set(conf);
+
+        // when
+        String result = apply(transformerToBeTested, textBeforeApply);
+
+        // then
+        assertThat(result).isEqualTo(expected);
+    }
+
+    /**
+     * The result should be the same as replacing in the whole text, as long as the matches are not longer than the maximum match length.
+     */
+    @Test
+    public void canReplaceTheSameAsTheWholeTextInASmallWindow() {
+        // given
+        Random random = new Random(20261018);
+        StringBuilder text = new StringBuilder();
+        String[] tokens = {"abc", "a", "b", "\n", "x", "\u503c", "\ud83d\ude00", "ab"};
+        for (int i = 0; i < 20000; i++) {
+            text.append(tokens[random.nextInt(tokens.length)]);
+        }
+        String[][] rules = {
+                {"(?m)^a+b?", "<$0>"},
+                {"(?<=x)b{1,3}", "[$0]"},
+                {"c?(?=\\n)", "!"},
+                {"\u503c+|\ud83d\ude00", "#"},
+        };
+        for (String[] rule : rules) {
+            Properties conf = new Properties();
+            conf.setProperty("transformer.regex.1.pattern", rule[0]);
+            conf.setProperty("transformer.regex.1.replacement", rule[1]);
+            conf.setProperty(RegexReplaceTransformer.MAX_MATCH_LENGTH_CONF_NAME, "50");
+            conf.setProperty(RegexReplaceTransformer.WINDOW_SIZE_CONF_NAME, "101");
+            RegexReplaceTransformer transformerToBeTested = new RegexReplaceTransformer();
+            transformerToBeTested.set(conf);
+
+            // when
+            String result = apply(transformerToBeTested, text.toString());
+
+            // then
+            assertThat(result).as(rule[0]).isEqualTo(text.toString().replaceAll(rule[0], rule[1]));
+        }
+    }
+
+    @Test
+    public void canRejectTheInvalidRules() {
+        // given
+        Properties invalidPattern = new Properties(), invalidGroup = new Properties(), missingPattern = new Properties();
+        invalidPattern.setProperty("transformer.regex.1.pattern", "(abc");
+        invalidGroup.setProperty("transformer.regex.1.pattern", "(abc)");
+        invalidGroup.setProperty("transformer.regex.1.replacement", "$2");
+        missingPattern.setProperty("transformer.regex.1.replacement", "abc");
+
+        for (Properties conf : new Properties[]{invalidPattern, invalidGroup, missingPattern}) {
+            // when
+            Throwable failure = catchThrowable(() -> new RegexReplaceTransformer().set(conf));
+
+            // then
+            assertThat(failure).isInstanceOf(TextTransformUtilException.class);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void canKeepTheWindowIfTheNewOneIsRejected() {
+        // given
+        Properties conf = new Properties();
+        conf.setProperty("transformer.regex.1.pattern", "b+");
+        conf.setProperty("transformer.regex.1.replacement", "B");
+        RegexReplaceTransformer transformerToBeTested = new RegexReplaceTransformer();
+        transformerToBeTested.set(conf);
+        Properties tooSmallWindow = new Properties();
+        tooSmallWindow.setProperty(RegexReplaceTransformer.WINDOW_SIZE_CONF_NAME, "10");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append("abb\n");
+        }
+
+        // when
+        Throwable failure = catchThrowable(() -> transformerToBeTested.set(tooSmallWindow));
+        String result = apply(transformerToBeTested, text.toString());
+
+        // then
+        assertThat(failure).isInstanceOf(TextTransformUtilException.class);
+        assertThat(result).isEqualTo(text.toString().replaceAll("b+", "B"));
+    }
+
+    @Test
+    public void canKeepTheConfigurationIfTheNewRulesAreRejected() {
+        // given
+        Properties conf = new Properties();
+        conf.setProperty("transformer.regex.1.pattern", "b+");
+        conf.setProperty("transformer.regex.1.replacement", "B");
+        RegexReplaceTransformer transformerToBeTested = new RegexReplaceTransformer();
+        transformerToBeTested.set(conf);
+        Properties invalidRule = new Properties();
+        invalidRule.setProperty(RegexReplaceTransformer.CHARSET_CONF_NAME, "UTF-16");
+        invalidRule.setProperty("transformer.regex.2.pattern", "(abc");
+        Properties correctedRule = new Properties();
+        correctedRule.setProperty("transformer.regex.2.pattern", "a");
+        correctedRule.setProperty("transformer.regex.2.replacement", "A");
+
+        // when
+        Throwable failure = catchThrowable(() -> transformerToBeTested.set(invalidRule));
+        String resultAfterFailure = apply(transformerToBeTested, "abba");
+        transformerToBeTested.set(correctedRule);
+        String resultAfterCorrection = apply(transformerToBeTested, "abba");
+
+        // then
+        assertThat(failure).isInstanceOf(TextTransformUtilException.class);
+        assertThat(resultAfterFailure).isEqualTo("aBa");
+        assertThat(resultAfterCorrection).isEqualTo("ABA");
+    }
+
+    private static String apply(RegexReplaceTransformer transformer, String text) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        transformer.apply(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
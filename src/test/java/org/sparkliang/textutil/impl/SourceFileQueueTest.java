@@ -0,0 +1,65 @@
+package org.sparkliang.textutil.impl;
+
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SourceFileQueueTest {
+
+    private static final long[] SIZES = {3 * 1024, 50 * 1024, 1024, 20 * 1024, 100 * 1024, 10 * 1024};
+
+    @Test
+    public void canTakeTheLargestFileFirst() throws Exception {
+        // given
+        SourceFileQueue queueToBeTested = new SourceFileQueue(SIZES.length, true, Long.MAX_VALUE, 1);
+        putAllAndEnd(queueToBeTested);
+
+        // when
+        List<Path> takenFiles = takeAll(queueToBeTested);
+
+        // then
+        assertThat(takenFiles).containsExactly(getPath(4), getPath(1), getPath(3), getPath(5), getPath(0), getPath(2));
+    }
+
+    @Test
+    public void canTakeTheFilesInTheOrderTheyArePut() throws Exception {
+        // given
+        SourceFileQueue queueToBeTested = new SourceFileQueue(SIZES.length, false, Long.MAX_VALUE, 1);
+        putAllAndEnd(queueToBeTested);
+
+        // when
+        List<Path> takenFiles = takeAll(queueToBeTested);
+
+        // then
+        assertThat(takenFiles).containsExactly(getPath(0), getPath(1), getPath(2), getPath(3), getPath(4), getPath(5));
+    }
+
+    private static void putAllAndEnd(SourceFileQueue queue) throws InterruptedException {
+        for (int i = 0; i < SIZES.length; i++) {
+            queue.put(getPath(i), SIZES[i]);
+        }
+        queue.end();
+    }
+
+    /**
+     * Take the files one by one as a single worker does, releasing each before taking the next one.
+     */
+    private static List<Path> takeAll(SourceFileQueue queue) throws InterruptedException {
+        List<Path> takenFiles = new ArrayList<>();
+        for (SourceFileQueue.SourceFile file = queue.take(); null != file; file = queue.take()) {
+            takenFiles.add(file.getPath());
+            queue.release(file);
+        }
+        return takenFiles;
+    }
+
+    private static Path getPath(int index) {
+        return Paths.get("file" + index + ".txt");
+    }
+}